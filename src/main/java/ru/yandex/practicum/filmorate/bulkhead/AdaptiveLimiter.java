@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+/**
+ * Адаптивный лимит одновременных запросов (AIMD по задержке).
+ *
+ * <p>Базой служит минимальная задержка среди последних замеров (окно {@link #BASELINE_WINDOW}):
+ * это время ответа без очереди. Если замер дольше базы в {@code tolerance} раз, а переборка
+ * была загружена почти до лимита (не меньше 3/4), — где-то копится очередь (потоки, соединения
+ * с БД), и лимит уменьшается на 10%. Медленный ответ при малой загрузке — свойство самого
+ * запроса, а не перегрузки, и лимит не трогает. Снижение — не чаще одного раза за круг:
+ * запросы, начатые до предыдущего снижения, его уже учли. Быстрый ответ при загрузке хотя бы
+ * на половину лимита поднимает лимит на единицу. Лимит остаётся в [min, max].
+ */
+final class AdaptiveLimiter {
+
+  static final int BASELINE_WINDOW = 500;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+
+  private int limit;
+  private int inFlight;
+  private long baselineNanos = Long.MAX_VALUE;
+  private long windowMinNanos = Long.MAX_VALUE;
+  private int windowSamples;
+  private boolean decreased;
+  private long lastDecreaseNanos;
+
+  AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException("Некорректные границы лимита: [" + minLimit + ", " + maxLimit + "]");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.tolerance = tolerance;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  synchronized boolean tryAcquire() {
+    if (inFlight >= limit) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+
+  /** Время — {@link System#nanoTime()} при входе запроса и при его завершении. */
+  synchronized void release(long startedNanos, long finishedNanos) {
+    final int busy = inFlight--;
+    final long latencyNanos = finishedNanos - startedNanos;
+    updateBaseline(latencyNanos);
+    if (latencyNanos > baselineNanos * tolerance) {
+      if (busy * 4 >= limit * 3 && (!decreased || startedNanos - lastDecreaseNanos >= 0)) {
+        limit = Math.max(minLimit, (int) (limit * 0.9));
+        decreased = true;
+        lastDecreaseNanos = finishedNanos;
+      }
+    } else if (inFlight * 2 >= limit) {
+      limit = Math.min(maxLimit, limit + 1);
+    }
+  }
+
+  synchronized int limit() {
+    return limit;
+  }
+
+  synchronized int inFlight() {
+    return inFlight;
+  }
+
+  // База — минимум текущего окна или предыдущего: после смены окна она может вырасти,
+  // если сервис стал стабильно медленнее (например, выросли данные)
+  private void updateBaseline(long latencyNanos) {
+    windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+    baselineNanos = Math.min(baselineNanos, latencyNanos);
+    if (++windowSamples >= BASELINE_WINDOW) {
+      baselineNanos = windowMinNanos;
+      windowMinNanos = Long.MAX_VALUE;
+      windowSamples = 0;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ограничение числа одновременных запросов к обработчику контроллера.
+ *
+ * <p>Обработчики с одинаковым {@link #value()} делят один лимит. Сверх лимита запрос
+ * сразу получает 429 с Retry-After, не занимая поток и соединение с БД
+ * (см. {@link BulkheadInterceptor}).
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+  /** Имя переборки: ключ настроек filmorate.bulkhead.max.* и тег метрик. */
+  String value();
+}
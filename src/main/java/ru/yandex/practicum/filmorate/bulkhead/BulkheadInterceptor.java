@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Переборки для обработчиков с {@link Bulkhead}: у каждой переборки свой
+ * {@link AdaptiveLimiter}. Запрос сверх лимита получает 429 и Retry-After ещё до вызова
+ * контроллера, поэтому тяжёлые маршруты (GET /films без лимита, запросы друзей) не могут
+ * занять все потоки Tomcat и соединения с БД и не мешают лёгким (/genres, /mpa).
+ *
+ * <p>Метрики: {@code filmorate.bulkhead.rejected}, {@code filmorate.bulkhead.limit},
+ * {@code filmorate.bulkhead.inflight} с тегом {@code name}.
+ */
+@Slf4j
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+  private static final String STARTED_AT = BulkheadInterceptor.class.getName() + ".startedAt";
+  private static final byte[] REJECTED_BODY =
+      "{\"message\":\"Слишком много одновременных запросов, повторите позже.\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final BulkheadProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final String retryAfterSeconds;
+  private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+  public BulkheadInterceptor(BulkheadProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.retryAfterSeconds = Long.toString(Math.max(1, (properties.retryAfter().toMillis() + 999) / 1000));
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws IOException {
+    final Compartment compartment = compartmentFor(handler);
+    if (compartment == null) {
+      return true;
+    }
+    if (!compartment.limiter.tryAcquire()) {
+      compartment.rejected.increment();
+      log.debug("Переборка {} заполнена: {} {} отклонён", compartment.name, request.getMethod(),
+          request.getRequestURI());
+      response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.getOutputStream().write(REJECTED_BODY);
+      return false;
+    }
+    request.setAttribute(STARTED_AT, System.nanoTime());
+    return true;
+  }
+
+  // Вызывается и при исключении в обработчике — слот освобождается всегда
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) {
+    final Object startedAt = request.getAttribute(STARTED_AT);
+    if (startedAt == null) {
+      return;
+    }
+    request.removeAttribute(STARTED_AT);
+    final Compartment compartment = compartmentFor(handler);
+    if (compartment != null) {
+      compartment.limiter.release((long) startedAt, System.nanoTime());
+    }
+  }
+
+  private Compartment compartmentFor(Object handler) {
+    if (!(handler instanceof HandlerMethod method)) {
+      return null;
+    }
+    final Bulkhead bulkhead = method.getMethodAnnotation(Bulkhead.class);
+    if (bulkhead == null) {
+      return null;
+    }
+    return compartments.computeIfAbsent(bulkhead.value(), this::newCompartment);
+  }
+
+  private Compartment newCompartment(String name) {
+    final AdaptiveLimiter limiter = new AdaptiveLimiter(properties.initialLimit(), properties.minLimit(),
+        properties.maxLimitFor(name), properties.latencyTolerance());
+    Gauge.builder("filmorate.bulkhead.limit", limiter, AdaptiveLimiter::limit)
+        .tag("name", name)
+        .register(meterRegistry);
+    Gauge.builder("filmorate.bulkhead.inflight", limiter, AdaptiveLimiter::inFlight)
+        .tag("name", name)
+        .register(meterRegistry);
+    final Counter rejected = Counter.builder("filmorate.bulkhead.rejected")
+        .description("Запросы, отклонённые переборкой с ответом 429")
+        .tag("name", name)
+        .register(meterRegistry);
+    return new Compartment(name, limiter, rejected);
+  }
+
+  private record Compartment(String name, AdaptiveLimiter limiter, Counter rejected) {
+  }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки переборок (префикс {@code filmorate.bulkhead}).
+ *
+ * @param enabled          false — переборки не устанавливаются
+ * @param initialLimit     стартовый лимит одновременных запросов на переборку
+ * @param minLimit         ниже этого адаптивный лимит не опускается
+ * @param maxLimit         выше этого не поднимается, если для переборки не задан свой {@code max}
+ * @param latencyTolerance во сколько раз задержка может превысить базовую, прежде чем лимит снизится
+ * @param retryAfter       значение заголовка Retry-After в ответе 429
+ * @param max              максимальный лимит по имени переборки (переопределяет maxLimit)
+ */
+@ConfigurationProperties(prefix = "filmorate.bulkhead")
+public record BulkheadProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("8") int initialLimit,
+    @DefaultValue("2") int minLimit,
+    @DefaultValue("32") int maxLimit,
+    @DefaultValue("2.0") double latencyTolerance,
+    @DefaultValue("1s") Duration retryAfter,
+    Map<String, Integer> max) {
+
+  public BulkheadProperties {
+    max = max == null ? Map.of() : Map.copyOf(max);
+  }
+
+  int maxLimitFor(String name) {
+    return max.getOrDefault(name, maxLimit);
+  }
+}
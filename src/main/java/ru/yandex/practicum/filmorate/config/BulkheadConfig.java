@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.yandex.practicum.filmorate.bulkhead.BulkheadInterceptor;
+import ru.yandex.practicum.filmorate.bulkhead.BulkheadProperties;
+
+/**
+ * Переборки маршрутов (@Bulkhead): лимиты одновременных запросов и ответ 429
+ * (filmorate.bulkhead.*; filmorate.bulkhead.enabled=false — отключить).
+ */
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig implements WebMvcConfigurer {
+
+  private final BulkheadProperties properties;
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+
+  public BulkheadConfig(BulkheadProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    if (properties.enabled()) {
+      registry.addInterceptor(new BulkheadInterceptor(properties, meterRegistry.getObject()));
+    }
+  }
+}
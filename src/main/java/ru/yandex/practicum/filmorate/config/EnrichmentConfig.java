@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.EnrichmentExecutor;
+import ru.yandex.practicum.filmorate.storage.EnrichmentProperties;
+
+/**
+ * Параллельная догрузка жанров и лайков в FilmDbStorage
+ * (filmorate.storage.parallel-enrichment.enabled=true; без бина — последовательно).
+ */
+@Configuration
+@EnableConfigurationProperties(EnrichmentProperties.class)
+public class EnrichmentConfig {
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(name = "filmorate.storage.parallel-enrichment.enabled", havingValue = "true")
+  public EnrichmentExecutor enrichmentExecutor(EnrichmentProperties properties) {
+    return EnrichmentExecutor.bounded(properties.threads(), properties.queueCapacity(), properties.timeout());
+  }
+}
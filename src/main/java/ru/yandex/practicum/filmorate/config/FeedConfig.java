@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.config;
+
+import java.time.Clock;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.feed.ActivityFeed;
+import ru.yandex.practicum.filmorate.service.feed.FeedProperties;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Лента активности: кольца событий в памяти
+ * (filmorate.feed.ring-size, filmorate.feed.max-users, filmorate.feed.celebrity-threshold,
+ * filmorate.feed.fan-out-queue).
+ */
+@Configuration
+@EnableConfigurationProperties(FeedProperties.class)
+public class FeedConfig {
+
+  @Bean(destroyMethod = "close")
+  public ActivityFeed activityFeed(UserStorage userStorage, FeedProperties properties) {
+    return new ActivityFeed(userStorage, Clock.systemUTC(), properties);
+  }
+}
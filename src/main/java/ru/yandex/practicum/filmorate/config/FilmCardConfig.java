@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.cards.FilmCardProjector;
+import ru.yandex.practicum.filmorate.service.cards.FilmCardProperties;
+import ru.yandex.practicum.filmorate.service.cards.FilmCardsEndpoint;
+import ru.yandex.practicum.filmorate.storage.card.FilmCardStorage;
+
+/**
+ * Модель чтения карточек фильмов (film_cards).
+ * - filmorate.film-cards.interval / batch-size — как часто и какими пачками применять изменения.
+ * - filmorate.film-cards.rebuild-on-start=true (по умолчанию) — пересборка при расхождении с films.
+ * - POST /actuator/filmcards — пересборка по требованию (эндпоинт открывается только на закрытом
+ *   management-порту, см. application.properties).
+ */
+@Configuration
+@EnableConfigurationProperties(FilmCardProperties.class)
+public class FilmCardConfig {
+
+  @Bean(destroyMethod = "close")
+  public FilmCardProjector filmCardProjector(FilmCardStorage storage, MeterRegistry meterRegistry,
+      FilmCardProperties properties) {
+    return new FilmCardProjector(storage, meterRegistry, properties.interval(), properties.batchSize());
+  }
+
+  @Bean
+  public FilmCardsEndpoint filmCardsEndpoint(FilmCardProjector projector) {
+    return new FilmCardsEndpoint(projector);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "filmorate.film-cards.rebuild-on-start", havingValue = "true", matchIfMissing = true)
+  public ApplicationRunner filmCardsRebuildRunner(FilmCardProjector projector) {
+    return args -> projector.rebuildIfStale();
+  }
+}
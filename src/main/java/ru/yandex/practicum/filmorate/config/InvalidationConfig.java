@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.invalidation.HttpPeerTransport;
+import ru.yandex.practicum.filmorate.invalidation.InvalidationBus;
+import ru.yandex.practicum.filmorate.invalidation.InvalidationProperties;
+import ru.yandex.practicum.filmorate.invalidation.InvalidationTransport;
+import ru.yandex.practicum.filmorate.invalidation.LoopbackTransport;
+
+/**
+ * Шина инвалидаций между узлами за балансировщиком.
+ * - filmorate.invalidation.transport=loopback (по умолчанию) — одиночный узел, наружу ничего не уходит.
+ * - filmorate.invalidation.transport=http — рассылка на filmorate.invalidation.peers;
+ *   нужен общий для узлов filmorate.invalidation.token.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(InvalidationProperties.class)
+public class InvalidationConfig {
+
+  @Bean
+  public InvalidationTransport invalidationTransport(InvalidationProperties properties) {
+    if (properties.transport() == InvalidationProperties.Transport.HTTP) {
+      // без токена POST /internal/invalidations мог бы вызвать любой, кто достучался до узла
+      if (properties.token().isBlank()) {
+        throw new IllegalStateException(
+            "Для filmorate.invalidation.transport=http задайте filmorate.invalidation.token");
+      }
+      log.info("Инвалидации рассылаются на узлы {}", properties.peers());
+      return new HttpPeerTransport(properties.peers(), properties.timeout(), properties.token());
+    }
+    return new LoopbackTransport();
+  }
+
+  @Bean(destroyMethod = "close")
+  public InvalidationBus invalidationBus(InvalidationProperties properties, InvalidationTransport transport,
+      ApplicationEventPublisher publisher, MeterRegistry meterRegistry) {
+    final String node = properties.node().isBlank() ? UUID.randomUUID().toString() : properties.node();
+    return new InvalidationBus(node, transport, publisher, meterRegistry,
+        properties.flushInterval(), properties.maxBatch());
+  }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.journal.EventJournal;
+import ru.yandex.practicum.filmorate.journal.JournalLikesRebuilder;
+import ru.yandex.practicum.filmorate.journal.JournalProperties;
+import ru.yandex.practicum.filmorate.journal.JournalReader;
+import ru.yandex.practicum.filmorate.journal.MappedFileJournal;
+
+/**
+ * Журнал событий лайков/дружбы.
+ * - filmorate.journal.enabled=false (по умолчанию) — журнал не пишется (NOOP).
+ * - filmorate.journal.rebuild-likes=true — при старте восстановить film_likes по журналу.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+public class JournalConfig {
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(name = "filmorate.journal.enabled", havingValue = "true")
+  public MappedFileJournal eventJournal(JournalProperties properties) {
+    log.info("Журнал событий: {}, сегмент {}, fsync каждые {}",
+        properties.directory(), properties.segmentSize(), properties.fsyncInterval());
+    return new MappedFileJournal(properties.directory(),
+        Math.toIntExact(properties.segmentSize().toBytes()), properties.fsyncInterval());
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "filmorate.journal.enabled", havingValue = "false", matchIfMissing = true)
+  public EventJournal noopEventJournal() {
+    return EventJournal.NOOP;
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "filmorate.journal.rebuild-likes", havingValue = "true")
+  public ApplicationRunner journalLikesRebuildRunner(JournalProperties properties,
+      JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+    final JournalLikesRebuilder rebuilder = new JournalLikesRebuilder(
+        new JournalReader(properties.directory()), jdbcTemplate, transactionTemplate);
+    return args -> rebuilder.rebuild();
+  }
+}
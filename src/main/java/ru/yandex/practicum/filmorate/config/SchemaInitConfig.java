@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.config;
+
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Версионная инициализация схемы вместо повторного выполнения schema.sql/data.sql на каждом
+ * старте (spring.sql.init.* по-прежнему задают режим, кодировку и расположение скриптов).
+ */
+@Configuration
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+public class SchemaInitConfig {
+
+  @Bean
+  public VersionedSchemaInitializer versionedSchemaInitializer(DataSource dataSource,
+      SqlInitializationProperties properties) {
+    return new VersionedSchemaInitializer(dataSource, properties);
+  }
+}
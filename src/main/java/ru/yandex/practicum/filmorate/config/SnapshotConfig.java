@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.snapshot.SnapshotProperties;
+import ru.yandex.practicum.filmorate.storage.snapshot.StorageSnapshotter;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+/**
+ * Снимки in-memory хранилищ; действует только при filmorate.storage.mode=memory.
+ * - filmorate.snapshot.enabled=true — при старте загрузить снимок, затем писать его периодически
+ *   и при остановке.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "memory")
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotConfig {
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  @ConditionalOnProperty(name = "filmorate.snapshot.enabled", havingValue = "true")
+  public StorageSnapshotter storageSnapshotter(SnapshotProperties properties,
+      InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage) {
+    log.info("Снимки хранилищ: {}, период {}", properties.path(), properties.interval());
+    return new StorageSnapshotter(filmStorage, userStorage, properties.path(), properties.interval());
+  }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.config;
+
+import java.time.Clock;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.service.trending.TrendingCheckpointer;
+import ru.yandex.practicum.filmorate.service.trending.TrendingProperties;
+import ru.yandex.practicum.filmorate.service.trending.TrendingTracker;
+
+/**
+ * Тренды: счётчики лайков по времени в памяти и их контрольные точки на диске
+ * (filmorate.trending.checkpoint-path, filmorate.trending.checkpoint-interval).
+ */
+@Configuration
+@EnableConfigurationProperties(TrendingProperties.class)
+public class TrendingConfig {
+
+  @Bean
+  public TrendingTracker trendingTracker() {
+    return new TrendingTracker(Clock.systemUTC());
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  public TrendingCheckpointer trendingCheckpointer(TrendingTracker tracker, JdbcTemplate jdbcTemplate,
+      TrendingProperties properties) {
+    return new TrendingCheckpointer(tracker, jdbcTemplate, Clock.systemUTC(),
+        properties.checkpointPath(), properties.checkpointInterval());
+  }
+}
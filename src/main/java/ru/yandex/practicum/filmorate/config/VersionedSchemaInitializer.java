@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Инициализация схемы с учётом версий: для каждого скрипта (schema.sql, data.sql) в таблице
+ * schema_history хранится SHA-256 содержимого, и скрипт выполняется только если он новый или
+ * изменился. Повторный старт с той же схемой не тратит время на DDL и MERGE справочников.
+ *
+ * <p>Заменяет стандартный инициализатор Spring Boot в приложении; в срезах {@code @JdbcTest}
+ * по-прежнему работает стандартный.
+ */
+@Slf4j
+public class VersionedSchemaInitializer extends SqlDataSourceScriptDatabaseInitializer {
+
+  private static final String CREATE_HISTORY_SQL = """
+      CREATE TABLE IF NOT EXISTS schema_history (
+          script VARCHAR(255) PRIMARY KEY,
+          checksum VARCHAR(64) NOT NULL,
+          applied_at TIMESTAMP NOT NULL
+      )""";
+
+  private static final String FIND_CHECKSUM_SQL = "SELECT checksum FROM schema_history WHERE script = ?";
+
+  private static final String SAVE_CHECKSUM_SQL = """
+      MERGE INTO schema_history (script, checksum, applied_at) KEY (script)
+      VALUES (?, ?, CURRENT_TIMESTAMP)""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public VersionedSchemaInitializer(DataSource dataSource, SqlInitializationProperties properties) {
+    super(dataSource, properties);
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @Override
+  protected void runScripts(Scripts scripts) {
+    jdbcTemplate.execute(CREATE_HISTORY_SQL);
+    for (Resource script : scripts) {
+      final String name = script.getFilename();
+      final String checksum = checksum(script);
+      final List<String> applied = jdbcTemplate.queryForList(FIND_CHECKSUM_SQL, String.class, name);
+      if (applied.contains(checksum)) {
+        log.info("Скрипт {} не изменился — пропускаем", name);
+        continue;
+      }
+      final long started = System.nanoTime();
+      super.runScripts(new Scripts(List.of(script))
+          .continueOnError(scripts.isContinueOnError())
+          .separator(scripts.getSeparator())
+          .encoding(scripts.getEncoding()));
+      jdbcTemplate.update(SAVE_CHECKSUM_SQL, name, checksum);
+      log.info("Скрипт {} применён за {} мс", name, (System.nanoTime() - started) / 1_000_000);
+    }
+  }
+
+  private static String checksum(Resource script) {
+    try (InputStream in = script.getInputStream()) {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(in.readAllBytes()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Не удалось прочитать скрипт " + script, e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
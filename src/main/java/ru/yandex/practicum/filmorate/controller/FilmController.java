@@ -4,17 +4,28 @@ import jakarta.validation.Valid;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.bulkhead.Bulkhead;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCard;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.PopularStreamPublisher;
+import ru.yandex.practicum.filmorate.service.cards.FilmCardService;
 
  // TODO сортировка/лимит теперь в хранилище.
  /**
@@ -31,6 +42,17 @@ import ru.yandex.practicum.filmorate.service.FilmService;
  *   PUT    /films/{id}/like/{userId}      — поставить лайк фильму
  *   DELETE /films/{id}/like/{userId}      — убрать лайк
  *   GET    /films/popular?count={count}   — топ популярных фильмов (по умолчанию 10)
+ *          &genreId=&year=&mpaId=          — необязательные фильтры по жанру, году и рейтингу
+ *   GET    /films/trending?window=24h&count={count} — прирост лайков за окно (1h, 24h, 7d)
+ *   GET    /films/popular/stream?count={count} — SSE: топ популярных при каждом изменении
+ *
+ * Карточки (модель чтения film_cards, могут отставать от фильмов на время обработки очереди):
+ *   GET    /films?view=card&after={id}&limit={limit} — постранично по id
+ *   GET    /films/popular?view=card&count={count}
+ *   GET    /films/search?view=card&q={query}
+ *
+ * Тяжёлые чтения (полный список, multi-get, поиск) ограничены переборками @Bulkhead: сверх лимита — 429.
+ * Карточки читаются из отдельной модели и дешевле полных фильмов — у них свои переборки.
  */
 @Slf4j
 @RestController
@@ -39,6 +61,8 @@ import ru.yandex.practicum.filmorate.service.FilmService;
 public class FilmController {
 
   private final FilmService filmService;
+  private final PopularStreamPublisher popularStream;
+  private final FilmCardService cardService;
 
   @PostMapping
   public Film create(@Valid @RequestBody final Film film) {
@@ -59,12 +83,30 @@ public class FilmController {
   }
 
   @GetMapping
+  @Bulkhead("films-list")
   public List<Film> findAll() {
     // FIX2: список — обычная операция, логируем в DEBUG
     log.debug("GET /films — list");
     return filmService.findAll();
   }
 
+  @GetMapping(params = "view=card")
+  @Bulkhead("films-cards")
+  public List<FilmCard> findCards(
+      @RequestParam(name = "after", required = false) final Long after,
+      @RequestParam(name = "limit", defaultValue = "100") final int limit) {
+    log.debug("GET /films?view=card&after={}&limit={} — cards", after, limit);
+    return cardService.findPage(after, limit);
+  }
+
+  // Пакетное чтение: GET /films?ids=1,2,3 — порядок как в запросе, отсутствующие id в missing
+  @GetMapping(params = "ids")
+  @Bulkhead("films-multiget")
+  public MultiGetResult<Film> getByIds(@RequestParam final List<Long> ids) {
+    log.debug("GET /films?ids — {} ids", ids.size());
+    return filmService.getByIds(ids);
+  }
+
   @GetMapping("/{id}")
   public Film getById(@PathVariable final long id) { // CHANGE: long id
     // FIX2: входной параметр важен — логируем на INFO
@@ -72,6 +114,32 @@ public class FilmController {
     return filmService.getById(id);
   }
 
+  @GetMapping("/trending")
+  public List<Film> trending(
+      @RequestParam(name = "window", defaultValue = "24h") final String window,
+      @RequestParam(name = "count", defaultValue = "10") final int count) {
+    log.debug("GET /films/trending?window={}&count={} — trending", window, count);
+    return filmService.getTrending(window, count);
+  }
+
+  @GetMapping("/search")
+  @Bulkhead("films-search")
+  public List<Film> search(
+      @RequestParam(name = "q", defaultValue = "") final String query,
+      @RequestParam(name = "limit", defaultValue = "10") final int limit) {
+    log.debug("GET /films/search?q='{}'&limit={} — search", query, limit);
+    return filmService.search(query, limit);
+  }
+
+  @GetMapping(path = "/search", params = "view=card")
+  @Bulkhead("films-search-cards")
+  public List<FilmCard> searchCards(
+      @RequestParam(name = "q", defaultValue = "") final String query,
+      @RequestParam(name = "limit", defaultValue = "10") final int limit) {
+    log.debug("GET /films/search?view=card&q='{}'&limit={} — search cards", query, limit);
+    return cardService.search(query, limit);
+  }
+
   // ----------- SPRINT 11: лайки и популярность -----------
 
   @PutMapping("/{id}/like/{userId}")
@@ -86,9 +154,72 @@ public class FilmController {
     filmService.removeLike(id, userId);
   }
 
+  // Отдаём заранее сериализованные байты (и gzip-вариант, если клиент его принимает) без Jackson на горячем пути
   @GetMapping("/popular")
-  public List<Film> popular(@RequestParam(name = "count", defaultValue = "10") final int count) {
-    log.debug("GET /films/popular?count={} — list", count);
-    return filmService.getPopular(count);
+  public ResponseEntity<byte[]> popular(
+      @RequestParam(name = "count", defaultValue = "10") final int count,
+      @RequestParam(name = "genreId", required = false) final Integer genreId,
+      @RequestParam(name = "year", required = false) final Integer year,
+      @RequestParam(name = "mpaId", required = false) final Integer mpaId,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) final String acceptEncoding) {
+    log.debug("GET /films/popular?count={}&genreId={}&year={}&mpaId={} — list", count, genreId, year, mpaId);
+    final PopularFilmsCache.Entry body = filmService.getPopularSerialized(count, genreId, year, mpaId);
+    final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (acceptsGzip(acceptEncoding)) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+    }
+    return response.body(body.json());
+  }
+
+  @GetMapping(path = "/popular", params = "view=card")
+  public List<FilmCard> popularCards(
+      @RequestParam(name = "count", defaultValue = "10") final int count,
+      @RequestParam(name = "genreId", required = false) final Integer genreId,
+      @RequestParam(name = "year", required = false) final Integer year,
+      @RequestParam(name = "mpaId", required = false) final Integer mpaId) {
+    log.debug("GET /films/popular?view=card&count={} — cards", count);
+    return cardService.getPopular(count, genreId, year, mpaId);
+  }
+
+  @GetMapping(path = "/popular/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter popularStream(@RequestParam(name = "count", defaultValue = "10") final int count) {
+    log.debug("GET /films/popular/stream?count={} — subscribe", count);
+    return popularStream.subscribe(count);
+  }
+
+  // gzip или x-gzip решает сам за себя, иначе — "*"; q=0 означает отказ (RFC 9110, 12.5.3)
+  private static boolean acceptsGzip(final String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Boolean wildcard = null;
+    for (final String part : acceptEncoding.split(",")) {
+      final String[] params = part.split(";");
+      final String coding = params[0].trim().toLowerCase();
+      final boolean accepted = qualityOf(params) > 0;
+      if (coding.equals("gzip") || coding.equals("x-gzip")) {
+        return accepted;
+      }
+      if (coding.equals("*")) {
+        wildcard = accepted;
+      }
+    }
+    return Boolean.TRUE.equals(wildcard);
+  }
+
+  private static double qualityOf(final String[] params) {
+    for (int i = 1; i < params.length; i++) {
+      final String param = params[i].trim();
+      if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")) {
+        try {
+          return Double.parseDouble(param.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
   }
 }
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.invalidation.HttpPeerTransport;
+import ru.yandex.practicum.filmorate.invalidation.InvalidationBatch;
+import ru.yandex.practicum.filmorate.invalidation.InvalidationBus;
+import ru.yandex.practicum.filmorate.invalidation.InvalidationProperties;
+
+/**
+ * Приём инвалидаций от соседних узлов (только при filmorate.invalidation.transport=http):
+ *   POST /internal/invalidations  {"node": "...", "changes": [{"type": "FILM", "id": 1}, ..]}
+ * Пачка принимается только с общим токеном узлов в заголовке X-Filmorate-Peer-Token
+ * (filmorate.invalidation.token), иначе — 401. Служебный маршрут — снаружи балансировщика
+ * всё равно должен быть закрыт.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(name = "filmorate.invalidation.transport", havingValue = "http")
+@RequiredArgsConstructor
+public class InvalidationController {
+
+  private final InvalidationBus bus;
+  private final InvalidationProperties properties;
+
+  @PostMapping(HttpPeerTransport.PATH)
+  public ResponseEntity<Void> receive(
+      @RequestHeader(name = HttpPeerTransport.TOKEN_HEADER, required = false) final String token,
+      @RequestBody final InvalidationBatch batch) {
+    if (!validToken(token)) {
+      log.warn("Пачка инвалидаций от узла {} отклонена: неверный токен", batch.node());
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+    bus.receive(batch);
+    return ResponseEntity.noContent().build();
+  }
+
+  // Сравнение за постоянное время — время ответа не подсказывает, сколько символов совпало
+  private boolean validToken(final String token) {
+    final String expected = properties.token();
+    return token != null && !expected.isBlank() && MessageDigest.isEqual(
+        expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -11,7 +11,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.bulkhead.Bulkhead;
+import ru.yandex.practicum.filmorate.model.FeedPage;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
@@ -30,6 +34,9 @@ import ru.yandex.practicum.filmorate.service.UserService;
  *   DELETE /users/{id}/friends/{friendId} — удалить из друзей
  *   GET /users/{id}/friends — список друзей
  *   GET /users/{id}/friends/common/{otherId} — общие друзья
+ *   GET /users/{id}/feed?cursor=&limit= — лента активности друзей (лайки, новые друзья)
+ *
+ * Списки, multi-get, запросы друзей и лента ограничены переборками @Bulkhead: сверх лимита — 429.
  */
 @Slf4j
 @RestController
@@ -60,12 +67,21 @@ public class UserController {
   }
 
   @GetMapping
+  @Bulkhead("users-list")
   public List<User> findAll() {
     // FIX2: список — обычная операция, оставляем в DEBUG
     log.debug("GET /users — list");
     return userService.findAll();
   }
 
+  // Пакетное чтение: GET /users?ids=1,2,3 — порядок как в запросе, отсутствующие id в missing
+  @GetMapping(params = "ids")
+  @Bulkhead("users-multiget")
+  public MultiGetResult<User> getByIds(@RequestParam final List<Long> ids) {
+    log.debug("GET /users?ids — {} ids", ids.size());
+    return userService.getByIds(ids);
+  }
+
   @GetMapping("/{id}")
   public User getById(@PathVariable final long id) { // CHANGE: long id
     // FIX2: входной параметр важен — логируем на INFO
@@ -88,14 +104,26 @@ public class UserController {
   }
 
   @GetMapping("/{id}/friends")
+  @Bulkhead("user-friends")
   public List<User> getFriends(@PathVariable final long id) {
     log.debug("GET /users/{}/friends — list", id);
     return userService.getFriends(id);
   }
 
+  // пересечение двух списков заметно дороже одного списка: у переборки свой профиль задержки
   @GetMapping("/{id}/friends/common/{otherId}")
+  @Bulkhead("user-common-friends")
   public List<User> getCommonFriends(@PathVariable final long id, @PathVariable final long otherId) {
     log.debug("GET /users/{}/friends/common/{} — list", id, otherId);
     return userService.getCommonFriends(id, otherId);
   }
+
+  @GetMapping("/{id}/feed")
+  @Bulkhead("user-feed")
+  public FeedPage getFeed(@PathVariable final long id,
+      @RequestParam(name = "cursor", required = false) final Long cursor,
+      @RequestParam(name = "limit", defaultValue = "20") final int limit) {
+    log.debug("GET /users/{}/feed?cursor={}&limit={} — page", id, cursor, limit);
+    return userService.getFeed(id, cursor, limit);
+  }
 }
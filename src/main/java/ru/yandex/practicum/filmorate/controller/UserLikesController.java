@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.LikeBatchRequest;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+/**
+ * Пакетные лайки пользователя (синхронизация очереди офлайн-действий мобильного клиента):
+ *   POST /users/{userId}/likes:batch  {"add": [..], "remove": [..]} — статус по каждому фильму
+ */
+@Slf4j
+@RestController
+@RequestMapping("/users/{userId}")
+@RequiredArgsConstructor
+public class UserLikesController {
+
+  private final FilmService filmService;
+
+  @PostMapping("/likes:batch")
+  public LikeBatchResult applyBatch(@PathVariable final long userId, @RequestBody final LikeBatchRequest request) {
+    log.info("POST /users/{}/likes:batch — add={} remove={}", userId,
+        request.getAdd().size(), request.getRemove().size());
+    return filmService.applyLikeBatch(userId, request);
+  }
+}
@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
  * - CHANGE: Единообразный ответ для 400 (message + по необходимости errors).
  * - CHANGE: Отдельный 404 для NotFoundException.
  * - CHANGE: Фолбэк 500 для прочих ошибок.
+ * - 404 логируется на DEBUG: NotFoundException — ожидаемый исход, без стектрейса.
  */
 @Slf4j
 @RestControllerAdvice
@@ -48,7 +49,8 @@ public class GlobalExceptionHandler {
   @ExceptionHandler(NotFoundException.class)
   public ResponseEntity<Map<String, Object>> handleNotFound(NotFoundException ex) {
     String msg = ex.getMessage() == null ? "Resource not found" : ex.getMessage();
-    log.warn("Ресурс не найден: {}", msg);
+    // DEBUG: 404 от перебора случайных id не должен нагружать логирование
+    log.debug("Ресурс не найден: {}", msg);
     Map<String, Object> body = new HashMap<>();
     body.put("message", msg);
     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
@@ -1,8 +1,13 @@
 package ru.yandex.practicum.filmorate.exception;
 
-/** Resource not found exception. */
+/**
+ * Resource not found exception.
+ *
+ * <p>Без стектрейса и suppressed: это ожидаемый исход (404), а не ошибка, и под перебором
+ * случайных id сбор стека занимал бы основную часть стоимости ответа.
+ */
 public class NotFoundException extends RuntimeException {
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
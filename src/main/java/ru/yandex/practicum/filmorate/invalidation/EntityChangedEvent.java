@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+/**
+ * Изменение сущности в хранилище; публикуется как событие приложения.
+ *
+ * @param remote {@code true} — изменение пришло с другого узла: локальные кэши должны его учесть,
+ *               а шина не рассылает его повторно
+ */
+public record EntityChangedEvent(EntityType type, long id, boolean remote) {
+
+  public static EntityChangedEvent local(EntityType type, long id) {
+    return new EntityChangedEvent(type, id, false);
+  }
+}
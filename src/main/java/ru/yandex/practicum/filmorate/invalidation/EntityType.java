@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+/**
+ * Что изменилось; id в событии — фильма или пользователя. Справочники жанров и рейтингов
+ * заполняются при инициализации схемы и через API не меняются — событий для них нет.
+ */
+public enum EntityType {
+  FILM,
+  USER,
+  /** Лайк поставлен или снят; id — фильма. */
+  LIKE,
+  /** Дружба добавлена или удалена; id — пользователя, чей список друзей изменился. */
+  FRIENDSHIP
+}
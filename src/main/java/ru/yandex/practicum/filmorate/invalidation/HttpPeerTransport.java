@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Рассылка пачек на соседние узлы: POST {@value #PATH} на каждый адрес из
+ * {@code filmorate.invalidation.peers}. Приём — {@code InvalidationController}; узлы
+ * подтверждают друг другу общий токен в заголовке {@value #TOKEN_HEADER}.
+ *
+ * <p>Доставка «не более одного раза»: недоступный узел пачку теряет и пишет предупреждение
+ * в лог. Его кэши остаются устаревшими до следующего изменения тех же сущностей, поэтому
+ * кэши на узлах всё равно должны иметь ограниченный срок жизни или версию.
+ */
+@Slf4j
+public class HttpPeerTransport implements InvalidationTransport {
+
+  public static final String PATH = "/internal/invalidations";
+  public static final String TOKEN_HEADER = "X-Filmorate-Peer-Token";
+
+  private final List<URI> peers;
+  private final String token;
+  private final RestClient client;
+
+  public HttpPeerTransport(List<URI> peers, Duration timeout, String token) {
+    this.peers = List.copyOf(peers);
+    this.token = token;
+    final SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout(timeout);
+    requestFactory.setReadTimeout(timeout);
+    this.client = RestClient.builder().requestFactory(requestFactory).build();
+  }
+
+  @Override
+  public void send(InvalidationBatch batch) {
+    for (URI peer : peers) {
+      try {
+        client.post()
+            .uri(peer.resolve(PATH))
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(TOKEN_HEADER, token)
+            .body(batch)
+            .retrieve()
+            .toBodilessEntity();
+      } catch (RestClientException e) {
+        log.warn("Пачка инвалидаций ({} изменений) не доставлена на {}: {}",
+            batch.changes().size(), peer, e.getMessage());
+      }
+    }
+  }
+}
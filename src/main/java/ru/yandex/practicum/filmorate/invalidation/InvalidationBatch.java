@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+import java.util.List;
+
+/**
+ * Пачка изменений одного узла — единица пересылки между узлами.
+ *
+ * @param node id узла-отправителя; свои пачки узел пропускает
+ */
+public record InvalidationBatch(String node, List<Change> changes) {
+
+  public InvalidationBatch {
+    changes = List.copyOf(changes);
+  }
+
+  public record Change(EntityType type, long id) {
+  }
+}
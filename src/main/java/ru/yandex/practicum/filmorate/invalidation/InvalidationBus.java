@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Шина инвалидаций между узлами.
+ *
+ * <p>Хранилища публикуют {@link EntityChangedEvent} как обычные события приложения. Шина
+ * получает локальные изменения после коммита транзакции (вне транзакции — сразу), копит их
+ * без повторов и раз в {@code flushInterval} отправляет пачкой через {@link InvalidationTransport};
+ * серия изменений одной сущности уходит одним элементом. Пришедшие с других узлов изменения
+ * публикуются локально с {@code remote = true} — на них подписаны кэши — и дальше не рассылаются.
+ */
+@Slf4j
+public class InvalidationBus implements Closeable {
+
+  private final String node;
+  private final InvalidationTransport transport;
+  private final ApplicationEventPublisher publisher;
+  private final int maxBatch;
+  private final ScheduledExecutorService flusher;
+  private final Counter sent;
+  private final Counter received;
+
+  private Set<InvalidationBatch.Change> pending = new LinkedHashSet<>();
+
+  public InvalidationBus(String node, InvalidationTransport transport, ApplicationEventPublisher publisher,
+      MeterRegistry meterRegistry, Duration flushInterval, int maxBatch) {
+    this.node = node;
+    this.transport = transport;
+    this.publisher = publisher;
+    this.maxBatch = Math.max(1, maxBatch);
+    this.sent = meterRegistry.counter("filmorate.invalidation.sent");
+    this.received = meterRegistry.counter("filmorate.invalidation.received");
+    this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      final Thread thread = new Thread(r, "invalidation-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long periodMs = Math.max(1L, flushInterval.toMillis());
+    flusher.scheduleWithFixedDelay(this::flushQuietly, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    transport.bind(this::receive);
+  }
+
+  public String node() {
+    return node;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onLocalChange(EntityChangedEvent event) {
+    if (event.remote()) {
+      return;
+    }
+    final boolean full;
+    synchronized (this) {
+      pending.add(new InvalidationBatch.Change(event.type(), event.id()));
+      full = pending.size() >= maxBatch;
+    }
+    if (full) {
+      flusher.execute(this::flushQuietly);
+    }
+  }
+
+  /** Пачка с другого узла: изменения публикуются как события приложения с {@code remote = true}. */
+  public void receive(InvalidationBatch batch) {
+    if (node.equals(batch.node())) {
+      return;
+    }
+    for (InvalidationBatch.Change change : batch.changes()) {
+      publisher.publishEvent(new EntityChangedEvent(change.type(), change.id(), true));
+    }
+    received.increment(batch.changes().size());
+    log.debug("Получено {} инвалидаций от узла {}", batch.changes().size(), batch.node());
+  }
+
+  /** Отправляет всё накопленное пачками не больше maxBatch. */
+  void flush() {
+    final Set<InvalidationBatch.Change> drained;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      drained = pending;
+      pending = new LinkedHashSet<>();
+    }
+    final List<InvalidationBatch.Change> changes = new ArrayList<>(drained);
+    for (int from = 0; from < changes.size(); from += maxBatch) {
+      final List<InvalidationBatch.Change> chunk = changes.subList(from, Math.min(changes.size(), from + maxBatch));
+      transport.send(new InvalidationBatch(node, chunk));
+      sent.increment(chunk.size());
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      // транспорт сам глушит ошибки доставки; сюда попадают только неожиданные
+      log.warn("Не удалось отправить инвалидации", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    flusher.shutdown();
+    flushQuietly();
+  }
+}
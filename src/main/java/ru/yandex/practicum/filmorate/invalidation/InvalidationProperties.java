@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки шины инвалидаций (префикс {@code filmorate.invalidation}).
+ *
+ * @param transport     loopback — только внутри процесса (одиночный узел), http — рассылка на peers
+ * @param peers         базовые адреса соседних узлов, например {@code http://film-2:8080}
+ * @param node          id этого узла; пустой — случайный при старте
+ * @param flushInterval как часто отправлять накопленные изменения: не больше одной пачки
+ *                      на узел за интервал, если пачка не заполнилась раньше
+ * @param maxBatch      изменений в пачке; заполненная пачка уходит, не дожидаясь интервала
+ * @param timeout       таймаут соединения и ответа соседнего узла
+ * @param token         общий секрет узлов: отправляется в заголовке {@value HttpPeerTransport#TOKEN_HEADER},
+ *                      без него пачка не принимается; для transport=http обязателен
+ */
+@ConfigurationProperties(prefix = "filmorate.invalidation")
+public record InvalidationProperties(
+    @DefaultValue("loopback") Transport transport,
+    List<URI> peers,
+    @DefaultValue("") String node,
+    @DefaultValue("100ms") Duration flushInterval,
+    @DefaultValue("500") int maxBatch,
+    @DefaultValue("1s") Duration timeout,
+    @DefaultValue("") String token) {
+
+  public InvalidationProperties {
+    peers = peers == null ? List.of() : List.copyOf(peers);
+  }
+
+  public enum Transport {
+    LOOPBACK,
+    HTTP
+  }
+}
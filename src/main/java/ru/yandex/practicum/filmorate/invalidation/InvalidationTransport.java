@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+import java.util.function.Consumer;
+
+/** Доставка пачек изменений на другие узлы. */
+public interface InvalidationTransport {
+
+  /** Отправляет пачку всем узлам; ошибки доставки не должны доходить до вызывающего. */
+  void send(InvalidationBatch batch);
+
+  /**
+   * Подключает приём пачек. Транспорт, который принимает их сам (см. {@link LoopbackTransport}),
+   * передаёт их в {@code receiver}; HTTP-транспорт принимает через контроллер.
+   */
+  default void bind(Consumer<InvalidationBatch> receiver) {
+  }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Транспорт внутри процесса: пачка синхронно передаётся всем подключённым шинам, включая
+ * отправителя (его пачки шина отбрасывает по id узла). Для тестов — несколько «узлов» на одном
+ * транспорте; для одиночного узла — транспорт по умолчанию.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+  private final List<Consumer<InvalidationBatch>> receivers = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void send(InvalidationBatch batch) {
+    for (Consumer<InvalidationBatch> receiver : receivers) {
+      receiver.accept(batch);
+    }
+  }
+
+  @Override
+  public void bind(Consumer<InvalidationBatch> receiver) {
+    receivers.add(receiver);
+  }
+}
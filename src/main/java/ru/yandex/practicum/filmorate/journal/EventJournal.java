@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.journal;
+
+/** Append-only журнал событий лайков и дружбы. */
+public interface EventJournal {
+
+  EventJournal NOOP = (type, userId, targetId) -> {
+  };
+
+  void append(JournalEventType type, long userId, long targetId);
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.journal;
+
+/**
+ * Одна запись журнала.
+ *
+ * @param userId   кто совершил действие
+ * @param targetId фильм (LIKE/UNLIKE) или пользователь (FRIEND_ADD/FRIEND_REMOVE)
+ */
+public record JournalEvent(JournalEventType type, long timestampMillis, long userId, long targetId) {
+}
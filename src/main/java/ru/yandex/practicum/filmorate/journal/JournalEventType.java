@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.journal;
+
+/** Types of journaled events; the code is the on-disk record tag (0 marks free space). */
+public enum JournalEventType {
+
+  LIKE((byte) 1),
+  UNLIKE((byte) 2),
+  FRIEND_ADD((byte) 3),
+  FRIEND_REMOVE((byte) 4);
+
+  private final byte code;
+
+  JournalEventType(byte code) {
+    this.code = code;
+  }
+
+  public byte code() {
+    return code;
+  }
+
+  static JournalEventType fromCode(byte code) {
+    for (JournalEventType type : values()) {
+      if (type.code == code) {
+        return type;
+      }
+    }
+    throw new IllegalStateException("Неизвестный тип записи журнала: " + code);
+  }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** On-disk layout shared by the journal writer and reader. */
+final class JournalFormat {
+
+  static final int MAGIC = 0x464A524E; // "FJRN"
+  static final short VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int RECORD_SIZE = 1 + 8 + 8 + 8;
+
+  private static final String PREFIX = "journal-";
+  private static final String SUFFIX = ".seg";
+
+  private JournalFormat() {
+  }
+
+  static Path segmentPath(Path directory, long index) {
+    return directory.resolve(String.format("%s%020d%s", PREFIX, index, SUFFIX));
+  }
+
+  static long segmentIndex(Path segment) {
+    final String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+  }
+
+  // Имена дополнены нулями, поэтому лексикографический порядок совпадает с порядком сегментов
+  static List<Path> listSegments(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(p -> {
+            final String name = p.getFileName().toString();
+            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+          })
+          .sorted()
+          .toList();
+    }
+  }
+
+  static void writeHeader(ByteBuffer buffer) {
+    buffer.putInt(0, MAGIC);
+    buffer.putShort(4, VERSION);
+  }
+
+  static void checkHeader(ByteBuffer buffer, Path path) {
+    if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+      throw new IllegalStateException("Файл не является сегментом журнала: " + path);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.journal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Восстанавливает film_likes по журналу.
+ *
+ * <p>Для каждой встретившейся в журнале пары (фильм, пользователь) применяется её итоговое
+ * состояние — последний LIKE или UNLIKE. Пары, которых нет в журнале, не трогаются, поэтому
+ * инструмент безопасен и для журнала, включённого не с первого дня, и при повторном запуске.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JournalLikesRebuilder {
+
+  private final JournalReader reader;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public Result rebuild() {
+    final Map<LikeKey, Boolean> finalState = new LinkedHashMap<>();
+    final long events = reader.replay(event -> {
+      if (event.type() == JournalEventType.LIKE) {
+        finalState.put(new LikeKey(event.targetId(), event.userId()), true);
+      } else if (event.type() == JournalEventType.UNLIKE) {
+        finalState.put(new LikeKey(event.targetId(), event.userId()), false);
+      }
+    });
+    final List<Object[]> liked = new ArrayList<>();
+    final List<Object[]> unliked = new ArrayList<>();
+    finalState.forEach((key, isLiked) ->
+        (isLiked ? liked : unliked).add(new Object[]{key.filmId(), key.userId()}));
+
+    transactionTemplate.executeWithoutResult(status -> {
+      if (!unliked.isEmpty()) {
+        jdbcTemplate.batchUpdate("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?", unliked);
+      }
+      if (!liked.isEmpty()) {
+        // фильм или пользователь могли быть удалены после события — такие пары пропускаем
+        jdbcTemplate.batchUpdate("MERGE INTO film_likes (film_id, user_id) KEY (film_id, user_id) "
+            + "SELECT f.id, u.id FROM films f JOIN users u ON u.id = ? WHERE f.id = ?",
+            liked.stream().map(args -> new Object[]{args[1], args[0]}).toList());
+      }
+    });
+    final Result result = new Result(events, liked.size(), unliked.size());
+    log.info("film_likes восстановлены по журналу: {}", result);
+    return result;
+  }
+
+  /** Итог восстановления: прочитано событий, пар с лайком и пар без лайка. */
+  public record Result(long events, int liked, int unliked) {
+  }
+
+  private record LikeKey(long filmId, long userId) {
+  }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.journal;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Настройки журнала событий (префикс {@code filmorate.journal}).
+ *
+ * @param fsyncInterval период сброса страниц на диск; {@code 0} — после каждой записи
+ */
+@ConfigurationProperties(prefix = "filmorate.journal")
+public record JournalProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("./journal") Path directory,
+    @DefaultValue("64MB") DataSize segmentSize,
+    @DefaultValue("1s") Duration fsyncInterval) {
+}
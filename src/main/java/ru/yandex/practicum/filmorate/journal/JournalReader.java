@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/** Последовательное чтение журнала для воспроизведения событий (replay). */
+public class JournalReader {
+
+  private final Path directory;
+
+  public JournalReader(Path directory) {
+    this.directory = directory;
+  }
+
+  /** Передаёт события всех сегментов в порядке записи; возвращает число прочитанных событий. */
+  public long replay(Consumer<JournalEvent> consumer) {
+    long count = 0;
+    try {
+      for (Path path : JournalFormat.listSegments(directory)) {
+        count += replaySegment(path, consumer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Не удалось прочитать журнал из " + directory, e);
+    }
+    return count;
+  }
+
+  private long replaySegment(Path path, Consumer<JournalEvent> consumer) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      JournalFormat.checkHeader(buffer, path);
+      long count = 0;
+      int position = JournalFormat.HEADER_SIZE;
+      while (position + JournalFormat.RECORD_SIZE <= buffer.limit()) {
+        final byte code = buffer.get(position);
+        if (code == 0) {
+          break;
+        }
+        consumer.accept(new JournalEvent(
+            JournalEventType.fromCode(code),
+            buffer.getLong(position + 1),
+            buffer.getLong(position + 9),
+            buffer.getLong(position + 17)));
+        position += JournalFormat.RECORD_SIZE;
+        count++;
+      }
+      return count;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Журнал на сегментированных memory-mapped файлах.
+ *
+ * <p>Формат сегмента: заголовок {@link JournalFormat#HEADER_SIZE} байт, далее записи
+ * фиксированной длины {@link JournalFormat#RECORD_SIZE}: [тип:1][время:8][userId:8][targetId:8].
+ * Байт типа пишется последним и служит признаком завершённой записи; нулевой байт — свободное место.
+ * Когда в сегменте не остаётся места, открывается следующий. Страницы сбрасываются на диск
+ * по расписанию ({@code fsyncInterval}) либо после каждой записи, если интервал нулевой.
+ */
+@Slf4j
+public class MappedFileJournal implements EventJournal, Closeable {
+
+  private final Path directory;
+  private final int segmentSize;
+  private final boolean syncEveryWrite;
+  private final Clock clock;
+  private final ScheduledExecutorService flusher;
+
+  private MappedByteBuffer segment;
+  private long segmentIndex;
+  private boolean dirty;
+
+  public MappedFileJournal(Path directory, int segmentSize, Duration fsyncInterval) {
+    this(directory, segmentSize, fsyncInterval, Clock.systemUTC());
+  }
+
+  MappedFileJournal(Path directory, int segmentSize, Duration fsyncInterval, Clock clock) {
+    if (segmentSize < JournalFormat.HEADER_SIZE + JournalFormat.RECORD_SIZE) {
+      throw new IllegalArgumentException("Слишком маленький сегмент журнала: " + segmentSize);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.syncEveryWrite = fsyncInterval.isZero();
+    this.clock = clock;
+    try {
+      Files.createDirectories(directory);
+      openLastSegment();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Не удалось открыть журнал в " + directory, e);
+    }
+    if (syncEveryWrite) {
+      this.flusher = null;
+    } else {
+      this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "journal-fsync");
+        thread.setDaemon(true);
+        return thread;
+      });
+      final long periodMs = Math.max(1L, fsyncInterval.toMillis());
+      flusher.scheduleWithFixedDelay(this::flush, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public synchronized void append(JournalEventType type, long userId, long targetId) {
+    if (segment.remaining() < JournalFormat.RECORD_SIZE) {
+      roll();
+    }
+    final int position = segment.position();
+    segment.putLong(position + 1, clock.millis());
+    segment.putLong(position + 9, userId);
+    segment.putLong(position + 17, targetId);
+    // тип — последним: незавершённая запись читается как свободное место
+    segment.put(position, type.code());
+    segment.position(position + JournalFormat.RECORD_SIZE);
+    dirty = true;
+    if (syncEveryWrite) {
+      flush();
+    }
+  }
+
+  public synchronized void flush() {
+    if (dirty) {
+      segment.force();
+      dirty = false;
+    }
+  }
+
+  @Override
+  public void close() {
+    if (flusher != null) {
+      flusher.shutdown();
+    }
+    flush();
+  }
+
+  private void roll() {
+    segment.force();
+    dirty = false;
+    segmentIndex++;
+    try {
+      segment = map(JournalFormat.segmentPath(directory, segmentIndex), true);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Не удалось открыть новый сегмент журнала", e);
+    }
+    log.info("Журнал: открыт сегмент #{}", segmentIndex);
+  }
+
+  // Продолжаем последний сегмент с первой свободной позиции (после рестарта или сбоя)
+  private void openLastSegment() throws IOException {
+    final List<Path> segments = JournalFormat.listSegments(directory);
+    if (segments.isEmpty()) {
+      segmentIndex = 0;
+      segment = map(JournalFormat.segmentPath(directory, 0), true);
+      return;
+    }
+    final Path last = segments.get(segments.size() - 1);
+    segmentIndex = JournalFormat.segmentIndex(last);
+    segment = map(last, false);
+    int position = JournalFormat.HEADER_SIZE;
+    while (position + JournalFormat.RECORD_SIZE <= segment.limit() && segment.get(position) != 0) {
+      position += JournalFormat.RECORD_SIZE;
+    }
+    segment.position(position);
+    log.info("Журнал: продолжаем сегмент #{} с позиции {}", segmentIndex, position);
+  }
+
+  private MappedByteBuffer map(Path path, boolean fresh) throws IOException {
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final int size = fresh ? segmentSize : (int) Math.max(channel.size(), segmentSize);
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      if (fresh) {
+        JournalFormat.writeHeader(buffer);
+      } else {
+        JournalFormat.checkHeader(buffer, path);
+      }
+      buffer.position(JournalFormat.HEADER_SIZE);
+      return buffer;
+    }
+  }
+}
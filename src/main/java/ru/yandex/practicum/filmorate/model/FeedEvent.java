@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.Instant;
+
+/**
+ * Событие ленты активности: кто ({@code userId}) что сделал с кем/чем ({@code targetId}).
+ *
+ * <p>{@code id} растёт монотонно и служит курсором постраничного чтения ленты.
+ */
+public record FeedEvent(long id, Instant timestamp, long userId, Type type, long targetId) {
+
+  public enum Type {
+    /** Пользователь поставил лайк фильму targetId. */
+    LIKE,
+    /** Пользователь добавил в друзья пользователя targetId. */
+    FRIEND
+  }
+}
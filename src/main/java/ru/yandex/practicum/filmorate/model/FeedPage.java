@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/** Страница ленты: события от новых к старым и курсор следующей страницы (null — дальше пусто). */
+public record FeedPage(List<FeedEvent> items, Long nextCursor) {
+}
@@ -6,7 +6,6 @@ import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import lombok.Data;
@@ -21,6 +20,7 @@ import lombok.NoArgsConstructor;
  * - добавлено поле likes (Set<Long>) для лайков фильма пользователями.
  * - likes инициализируется пустым Set для уникальности и отсутствия NPE.
  * - убран @AllArgsConstructor из-за final-поля likes (иначе конструктор станет неудобным).
+ * - likes хранится в {@link LongSet} (отсортированный long[]); JSON — прежний массив чисел.
  */
 @Data
 @NoArgsConstructor
@@ -49,8 +49,8 @@ public class Film {
 
   private Set<Genre> genres = new LinkedHashSet<>();
 
-  // SPRINT 11: лайки от пользователей (уникальные id)
-  private final Set<Long> likes = new HashSet<>();
+  // SPRINT 11: лайки от пользователей (уникальные id); LongSet — без упаковки id в Long
+  private final LongSet likes = new LongSet();
 
   public void setGenres(Set<Genre> genres) {
     this.genres = genres == null ? new LinkedHashSet<>() : new LinkedHashSet<>(genres);
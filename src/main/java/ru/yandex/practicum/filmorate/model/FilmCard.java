@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Карточка фильма для списков: без описания и id лайкнувших, только число лайков.
+ *
+ * <p>В режиме БД читается из денормализованной таблицы film_cards, которая обновляется
+ * асинхронно после записей (см. service.cards.FilmCardProjector), поэтому может отставать
+ * от полного фильма на время обработки очереди.
+ */
+public record FilmCard(long id, String name, String mpa, List<Genre> genres, int likes, Integer releaseYear) {
+
+  public FilmCard {
+    genres = List.copyOf(genres);
+  }
+
+  public static FilmCard from(Film film) {
+    final List<Genre> genres = new ArrayList<>();
+    if (film.getGenres() != null) {
+      for (Genre genre : film.getGenres()) {
+        genres.add(new Genre(genre.getId(), genre.getName()));
+      }
+    }
+    return new FilmCard(film.getId(), film.getName(), film.getMpa() == null ? null : film.getMpa().getName(),
+        genres, film.getLikes().size(), film.getReleaseDate() == null ? null : film.getReleaseDate().getYear());
+  }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Пакет лайков пользователя: id фильмов, которым поставить и с которых снять лайк. */
+@Data
+@NoArgsConstructor
+public class LikeBatchRequest {
+
+  private List<Long> add = new ArrayList<>();
+
+  private List<Long> remove = new ArrayList<>();
+
+  public void setAdd(List<Long> add) {
+    this.add = add == null ? new ArrayList<>() : add;
+  }
+
+  public void setRemove(List<Long> remove) {
+    this.remove = remove == null ? new ArrayList<>() : remove;
+  }
+}
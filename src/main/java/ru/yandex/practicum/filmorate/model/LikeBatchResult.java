@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/** Результат пакета лайков: статус по каждому элементу в порядке запроса (сначала add, затем remove). */
+public record LikeBatchResult(long userId, List<Item> results) {
+
+  public record Item(long filmId, Action action, Status status) {
+  }
+
+  public enum Action {
+    ADD,
+    REMOVE
+  }
+
+  public enum Status {
+    /** Лайк поставлен. */
+    ADDED,
+    /** Лайк снят. */
+    REMOVED,
+    /** Состояние уже было таким (повторный лайк, снятие отсутствующего, повтор id в пакете). */
+    UNCHANGED,
+    /** Фильма с таким id нет. */
+    FILM_NOT_FOUND
+  }
+}
@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Множество id на отсортированном массиве {@code long[]}: 8 байт на элемент вместо ~50
+ * у {@code HashSet<Long>} (обёртка Long плюс узел таблицы), без сборки мусора на каждый id.
+ *
+ * <p>Поиск — двоичный, вставка и удаление сдвигают хвост массива. Добавление по возрастанию
+ * (загрузка из БД с ORDER BY, чтение снимка) идёт в конец без сдвига, {@link #addAll} из другого
+ * {@code LongSet} — слиянием за один проход. Порядок обхода — по возрастанию id.
+ *
+ * <p>Как и {@code HashSet}, не потокобезопасно. В JSON — обычный массив чисел.
+ */
+@JsonSerialize(using = LongSet.Serializer.class)
+@JsonDeserialize(using = LongSet.Deserializer.class)
+public final class LongSet extends AbstractSet<Long> {
+
+  private static final long[] EMPTY = new long[0];
+
+  private long[] values = EMPTY;
+  private int size;
+  private int modCount;
+
+  public LongSet() {
+  }
+
+  public LongSet(Collection<? extends Long> ids) {
+    addAll(ids);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(long id) {
+    return Arrays.binarySearch(values, 0, size, id) >= 0;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Long id && contains(id.longValue());
+  }
+
+  public boolean add(long id) {
+    if (size > 0 && id > values[size - 1]) {
+      ensureCapacity(size + 1);
+      values[size++] = id;
+      modCount++;
+      return true;
+    }
+    final int index = Arrays.binarySearch(values, 0, size, id);
+    if (index >= 0) {
+      return false;
+    }
+    final int insertAt = -index - 1;
+    ensureCapacity(size + 1);
+    System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+    values[insertAt] = id;
+    size++;
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public boolean add(Long id) {
+    return add(id.longValue());
+  }
+
+  public boolean remove(long id) {
+    final int index = Arrays.binarySearch(values, 0, size, id);
+    if (index < 0) {
+      return false;
+    }
+    removeAt(index);
+    return true;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    return o instanceof Long id && remove(id.longValue());
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends Long> ids) {
+    if (ids instanceof LongSet other) {
+      return merge(other);
+    }
+    ensureCapacity(size + ids.size());
+    boolean changed = false;
+    for (Long id : ids) {
+      changed |= add(id.longValue());
+    }
+    return changed;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  /** Копия элементов по возрастанию. */
+  public long[] toLongArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  @Override
+  public Iterator<Long> iterator() {
+    return new Iterator<>() {
+      private int next;
+      private int last = -1;
+      private int expectedModCount = modCount;
+
+      @Override
+      public boolean hasNext() {
+        return next < size;
+      }
+
+      @Override
+      public Long next() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+        if (next >= size) {
+          throw new NoSuchElementException();
+        }
+        last = next++;
+        return values[last];
+      }
+
+      @Override
+      public void remove() {
+        if (last < 0) {
+          throw new IllegalStateException();
+        }
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+        removeAt(last);
+        next = last;
+        last = -1;
+        expectedModCount = modCount;
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof LongSet other) {
+      return Arrays.equals(values, 0, size, other.values, 0, other.size);
+    }
+    return super.equals(o);
+  }
+
+  // Та же формула, что у AbstractSet (сумма Long.hashCode), но без упаковки
+  @Override
+  public int hashCode() {
+    int hash = 0;
+    for (int i = 0; i < size; i++) {
+      hash += Long.hashCode(values[i]);
+    }
+    return hash;
+  }
+
+  private boolean merge(LongSet other) {
+    if (other.size == 0) {
+      return false;
+    }
+    if (size == 0 || other.values[0] > values[size - 1]) {
+      ensureCapacity(size + other.size);
+      System.arraycopy(other.values, 0, values, size, other.size);
+      size += other.size;
+      modCount++;
+      return true;
+    }
+    final long[] merged = new long[size + other.size];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (i < size && j < other.size) {
+      final long a = values[i];
+      final long b = other.values[j];
+      if (a < b) {
+        merged[n++] = a;
+        i++;
+      } else if (b < a) {
+        merged[n++] = b;
+        j++;
+      } else {
+        merged[n++] = a;
+        i++;
+        j++;
+      }
+    }
+    while (i < size) {
+      merged[n++] = values[i++];
+    }
+    while (j < other.size) {
+      merged[n++] = other.values[j++];
+    }
+    final boolean changed = n != size;
+    values = merged;
+    size = n;
+    modCount++;
+    return changed;
+  }
+
+  private void removeAt(int index) {
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    size--;
+    modCount++;
+  }
+
+  private void ensureCapacity(int required) {
+    if (required > values.length) {
+      values = Arrays.copyOf(values, Math.max(required, Math.max(4, values.length + (values.length >> 1))));
+    }
+  }
+
+  /** Пишет элементы массивом чисел без упаковки в Long. */
+  public static final class Serializer extends JsonSerializer<LongSet> {
+
+    @Override
+    public void serialize(LongSet set, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+      gen.writeArray(set.values, 0, set.size);
+    }
+  }
+
+  /** Читает массив чисел; поддерживает дозапись в существующее множество (final-поля моделей). */
+  public static final class Deserializer extends JsonDeserializer<LongSet> {
+
+    @Override
+    public LongSet deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      return deserialize(p, ctxt, new LongSet());
+    }
+
+    @Override
+    public LongSet deserialize(JsonParser p, DeserializationContext ctxt, LongSet into) throws IOException {
+      if (!p.isExpectedStartArrayToken()) {
+        return (LongSet) ctxt.handleUnexpectedToken(LongSet.class, p);
+      }
+      JsonToken token;
+      while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == JsonToken.VALUE_NULL) {
+          continue;
+        }
+        into.add(p.getValueAsLong());
+      }
+      return into;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ответ пакетного чтения по id: найденные сущности в порядке запроса и список id,
+ * которых нет (вместо 404 на весь запрос).
+ */
+public record MultiGetResult<T>(List<T> items, List<Long> missing) {
+
+  /** Раскладывает загруженное хранилищем (в любом порядке) по порядку запрошенных id. */
+  public static <T> MultiGetResult<T> of(Collection<Long> requestedIds, Collection<T> found,
+      Function<T, Long> idOf) {
+    final Map<Long, T> byId = new HashMap<>(Math.max(found.size() * 2, 16));
+    for (T item : found) {
+      byId.put(idOf.apply(item), item);
+    }
+    final List<T> items = new ArrayList<>(found.size());
+    final List<Long> missing = new ArrayList<>();
+    for (Long id : requestedIds) {
+      final T item = byId.get(id);
+      if (item != null) {
+        items.add(item);
+      } else {
+        missing.add(id);
+      }
+    }
+    return new MultiGetResult<>(items, missing);
+  }
+}
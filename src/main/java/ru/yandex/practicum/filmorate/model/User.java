@@ -5,8 +5,6 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Pattern;
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -20,6 +18,7 @@ import lombok.NoArgsConstructor;
  * - добавлено поле friends (Set<Long>) для хранения дружбы пользователя.
  * - friends инициализируется пустым Set для уникальности и отсутствия NPE.
  * - Убрали @AllArgsConstructor из-за final-поля friends (иначе ломается генерация конструктора).
+ * - friends хранится в {@link LongSet} (отсортированный long[]); JSON — прежний массив чисел.
  */
 @Data
 @NoArgsConstructor
@@ -41,6 +40,6 @@ public class User {
   @PastOrPresent(message = "Дата рождения не может быть в будущем.")
   private LocalDate birthday;
 
-  // SPRINT 11: список друзей (уникальные id пользователей)
-  private final Set<Long> friends = new HashSet<>();
+  // SPRINT 11: список друзей (уникальные id пользователей); LongSet — без упаковки id в Long
+  private final LongSet friends = new LongSet();
 }
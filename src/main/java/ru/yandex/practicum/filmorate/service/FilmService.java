@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -10,14 +11,28 @@ import java.util.Objects;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-// CHANGES/SPRINT 11 FIX3: удалён неиспользуемый импорт NotFoundException,
-// он больше не упоминается напрямую в этом классе.
-// import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.invalidation.EntityChangedEvent;
+import ru.yandex.practicum.filmorate.invalidation.EntityType;
+import ru.yandex.practicum.filmorate.journal.EventJournal;
+import ru.yandex.practicum.filmorate.journal.JournalEventType;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeBatchRequest;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.service.feed.ActivityFeed;
+import ru.yandex.practicum.filmorate.service.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.trending.TrendingTracker;
+import ru.yandex.practicum.filmorate.service.trending.TrendingWindow;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeChanges;
+import ru.yandex.practicum.filmorate.storage.film.PopularQuery;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 /**
@@ -40,6 +55,12 @@ import ru.yandex.practicum.filmorate.storage.user.UserStorage;
  * SPRINT 11 FIX:
  * - Перенос сортировки/лимита популярных фильмов в слой хранения (см. FilmStorage.findMostPopular).
  * - Уровень лога при неуспешном удалении лайка повышен до WARN по рекомендации ревью.
+ *
+ * Одинаковые параллельные чтения фильма по id объединяются через {@link SingleFlight};
+ * любая запись по фильму «забывает» его ключ.
+ *
+ * Изменения фильмов и лайков на других узлах приходят через шину инвалидаций
+ * (см. invalidation.InvalidationBus) и сбрасывают те же локальные кэши.
  */
 @Slf4j
 @Service
@@ -49,10 +70,38 @@ public class FilmService {
   // CHANGE: вынесена константа самой ранней корректной даты
   private static final LocalDate EARLIEST_DATE = LocalDate.of(1895, 12, 28);
   private static final int DEFAULT_POPULAR_LIMIT = FilmStorage.DEFAULT_POPULAR_LIMIT;
+  private static final int DEFAULT_SEARCH_LIMIT = 10;
+  private static final int MAX_SEARCH_LIMIT = 100;
+  private static final String FILM_FLIGHT = "film";
+  private static final int MAX_LIKE_BATCH = 500;
 
   // SPRINT 11: внедряем зависимости от интерфейсов хранилищ
   private final FilmStorage filmStore;
   private final UserStorage userStore;
+  private final PopularFilmsCache popularCache;
+  private final FilmSearchIndex searchIndex;
+  private final EventJournal journal;
+  private final SingleFlight singleFlight;
+  private final TrendingTracker trending;
+  private final ActivityFeed feed;
+
+  // Поисковый индекс строится один раз из хранилища, дальше поддерживается create/update/delete
+  @EventListener(ApplicationReadyEvent.class)
+  public void buildSearchIndex() {
+    searchIndex.rebuild(filmStore.findAll());
+  }
+
+  // Фильм или его лайки изменились на другом узле: сбрасываем локальные кэши и переиндексируем
+  // фильм по текущему состоянию хранилища (шина присылает не больше одного изменения на фильм за пачку)
+  @EventListener(condition = "#event.remote()")
+  public void onRemoteChange(final EntityChangedEvent event) {
+    if (event.type() != EntityType.FILM && event.type() != EntityType.LIKE) {
+      return;
+    }
+    singleFlight.forget(FILM_FLIGHT, event.id());
+    popularCache.invalidate();
+    filmStore.findById(event.id()).ifPresentOrElse(searchIndex::index, () -> searchIndex.remove(event.id()));
+  }
 
   // CHANGE: возвращаем типобезопасный List (теперь — из хранилища)
   public List<Film> findAll() {
@@ -66,8 +115,16 @@ public class FilmService {
   }
 
   public Film getById(final long id) {
-    // SPRINT 11: делегируем хранилищу (NotFoundException пробрасывается из него)
-    return filmStore.getById(id);
+    // промах идёт через Optional; исключение (без стектрейса) создаётся один раз — для ответа 404.
+    // Результат получат и ведомые из других запросов — грузим мимо карты идентичности ведущего
+    return singleFlight.execute(FILM_FLIGHT, id, () -> filmStore.findDetached(id))
+        .orElseThrow(() -> new NotFoundException("Фильм с id=" + id + " не найден."));
+  }
+
+  // Пакетное чтение для карточек ленты: по одному запросу на таблицу вместо трёх на каждый фильм
+  public MultiGetResult<Film> getByIds(final List<Long> ids) {
+    final Set<Long> requested = MultiGetIds.require(ids);
+    return MultiGetResult.of(requested, filmStore.findByIds(requested), Film::getId);
   }
 
   public Film create(final Film film) {
@@ -75,6 +132,8 @@ public class FilmService {
     normalizeGenres(film);
     // SPRINT 11: генерация id и сохранение — в storage
     final Film saved = filmStore.create(film);
+    popularCache.invalidate();
+    searchIndex.index(saved);
     // CHANGE: безопасный лог
     log.info("Создан фильм id={} name='{}'", saved.getId(), saved.getName());
     return saved;
@@ -88,6 +147,9 @@ public class FilmService {
     normalizeGenres(film);
     // SPRINT 11: обновление — через storage
     final Film saved = filmStore.update(film);
+    singleFlight.forget(FILM_FLIGHT, saved.getId());
+    popularCache.invalidate();
+    searchIndex.index(saved);
     // CHANGE
     log.info("Обновлён фильм id={} name='{}'", saved.getId(), saved.getName());
     return saved;
@@ -96,6 +158,10 @@ public class FilmService {
   public void delete(final long id) {
     // SPRINT 11: удаление — через storage
     filmStore.delete(id);
+    singleFlight.forget(FILM_FLIGHT, id);
+    popularCache.invalidate();
+    searchIndex.remove(id);
+    trending.remove(id);
     // CHANGE
     log.info("Удалён фильм id={}", id);
   }
@@ -103,13 +169,19 @@ public class FilmService {
   // ----------- SPRINT 11: лайки и популярность -----------
 
   public void addLike(final long filmId, final long userId) {
-    final Film film = filmStore.getById(filmId); // NotFound -> 404, если нет фильма
-    userStore.getById(userId); // NotFound -> 404, если нет пользователя
+    // только проверка существования (индекс id), без загрузки фильма с лайками и пользователя с друзьями
+    requireFilm(filmId); // NotFound -> 404, если нет фильма
+    requireUser(userId); // NotFound -> 404, если нет пользователя
 
-    final boolean added = film.getLikes().add(userId);
+    // атомарно в хранилище: параллельные лайки одного фильма не теряют друг друга
+    final boolean added = filmStore.addLike(filmId, userId);
     if (added) {
-      // фиксируем изменение состояния
-      filmStore.update(film);
+      journal.append(JournalEventType.LIKE, userId, filmId);
+      singleFlight.forget(FILM_FLIGHT, filmId);
+      popularCache.invalidate();
+      searchIndex.updatePopularity(filmId, 1);
+      trending.record(filmId, 1);
+      feed.publish(FeedEvent.Type.LIKE, userId, filmId);
       log.info("Пользователь id={} поставил лайк фильму id={}", userId, filmId);
     } else {
       log.debug("Повторный лайк игнорирован: userId={} filmId={}", userId, filmId);
@@ -117,10 +189,14 @@ public class FilmService {
   }
 
   public void removeLike(final long filmId, final long userId) {
-    final Film film = filmStore.getById(filmId);
-    final boolean removed = film.getLikes().remove(userId);
+    requireFilm(filmId);
+    final boolean removed = filmStore.removeLike(filmId, userId);
     if (removed) {
-      filmStore.update(film);
+      journal.append(JournalEventType.UNLIKE, userId, filmId);
+      singleFlight.forget(FILM_FLIGHT, filmId);
+      popularCache.invalidate();
+      searchIndex.updatePopularity(filmId, -1);
+      trending.record(filmId, -1);
       log.info("Пользователь id={} удалил лайк фильму id={}", userId, filmId);
     } else {
       // SPRINT 11 FIX: если важно видеть причину, поднимаем уровень до WARN (по ревью)
@@ -128,14 +204,136 @@ public class FilmService {
     }
   }
 
+  // Пакет лайков одного пользователя (синхронизация офлайн-действий клиента):
+  // существование пользователя и фильмов проверяется одним запросом каждое, изменения — одним пакетом
+  public LikeBatchResult applyLikeBatch(final long userId, final LikeBatchRequest request) {
+    final List<Long> add = request.getAdd();
+    final List<Long> remove = request.getRemove();
+    if (add.size() + remove.size() > MAX_LIKE_BATCH) {
+      throw new ValidationException("В пакете лайков не больше " + MAX_LIKE_BATCH + " элементов.");
+    }
+    if (add.contains(null) || remove.contains(null)) {
+      throw new ValidationException("id фильма в пакете лайков не может быть пустым.");
+    }
+    final Set<Long> removeIds = new HashSet<>(remove);
+    if (add.stream().anyMatch(removeIds::contains)) {
+      throw new ValidationException("Один фильм не может быть одновременно в add и remove.");
+    }
+    if (!userStore.exists(userId)) {
+      throw new NotFoundException("Пользователь с id=" + userId + " не найден.");
+    }
+    final Set<Long> requested = new HashSet<>(add);
+    requested.addAll(removeIds);
+    final Set<Long> existing = filmStore.findExistingIds(requested);
+    final LikeChanges changes = filmStore.applyLikes(userId,
+        add.stream().filter(existing::contains).toList(),
+        remove.stream().filter(existing::contains).toList());
+    // фильм, удалённый уже во время пакета, — тоже FILM_NOT_FOUND
+    existing.removeAll(changes.missing());
+
+    for (Long filmId : changes.added()) {
+      journal.append(JournalEventType.LIKE, userId, filmId);
+      singleFlight.forget(FILM_FLIGHT, filmId);
+      searchIndex.updatePopularity(filmId, 1);
+      trending.record(filmId, 1);
+    }
+    feed.publishAll(FeedEvent.Type.LIKE, userId, changes.added());
+    for (Long filmId : changes.removed()) {
+      journal.append(JournalEventType.UNLIKE, userId, filmId);
+      singleFlight.forget(FILM_FLIGHT, filmId);
+      searchIndex.updatePopularity(filmId, -1);
+      trending.record(filmId, -1);
+    }
+    if (!changes.isEmpty()) {
+      popularCache.invalidate();
+    }
+    log.info("Пакет лайков пользователя id={}: добавлено {}, снято {}, запрошено {}",
+        userId, changes.added().size(), changes.removed().size(), add.size() + remove.size());
+
+    final List<LikeBatchResult.Item> results = new ArrayList<>(add.size() + remove.size());
+    collectResults(add, LikeBatchResult.Action.ADD, LikeBatchResult.Status.ADDED, existing, changes.added(), results);
+    collectResults(remove, LikeBatchResult.Action.REMOVE, LikeBatchResult.Status.REMOVED, existing,
+        changes.removed(), results);
+    return new LikeBatchResult(userId, results);
+  }
+
+  // Статус «изменено» получает только первое вхождение id; повторы в пакете — UNCHANGED
+  private static void collectResults(final List<Long> filmIds, final LikeBatchResult.Action action,
+      final LikeBatchResult.Status changedStatus, final Set<Long> existing, final Set<Long> changed,
+      final List<LikeBatchResult.Item> results) {
+    final Set<Long> seen = new HashSet<>(filmIds.size());
+    for (Long filmId : filmIds) {
+      final LikeBatchResult.Status status;
+      if (!existing.contains(filmId)) {
+        status = LikeBatchResult.Status.FILM_NOT_FOUND;
+      } else if (seen.add(filmId) && changed.contains(filmId)) {
+        status = changedStatus;
+      } else {
+        status = LikeBatchResult.Status.UNCHANGED;
+      }
+      results.add(new LikeBatchResult.Item(filmId, action, status));
+    }
+  }
+
   public List<Film> getPopular(int count) {
     final int effectiveLimit = count <= 0 ? DEFAULT_POPULAR_LIMIT : count; // SPRINT 11: дефолт, если параметр не задан/некорректен
     // SPRINT 11 FIX: сортировку и лимит выполняет хранилище (для будущей БД)
     return filmStore.findMostPopular(effectiveLimit);
   }
 
+  // Готовый JSON популярных фильмов: между изменениями лайков отдаём одни и те же байты
+  public PopularFilmsCache.Entry getPopularSerialized(int count, Integer genreId, Integer year, Integer mpaId) {
+    final int effectiveLimit = count <= 0 ? DEFAULT_POPULAR_LIMIT : count;
+    if (year != null && (year < EARLIEST_DATE.getYear() || year > LocalDate.now().getYear())) {
+      throw new ValidationException("Некорректный год релиза: " + year + ".");
+    }
+    final PopularQuery query = new PopularQuery(effectiveLimit, genreId, year, mpaId);
+    return popularCache.get(query, filmStore::findMostPopular);
+  }
+
+  // ----------- тренды -----------
+
+  // Прирост лайков за окно; топ считается по счётчикам в памяти, фильмы догружаются одним пакетом
+  public List<Film> getTrending(final String window, final int count) {
+    final TrendingWindow trendingWindow = TrendingWindow.fromLabel(window)
+        .orElseThrow(() -> new ValidationException("Неизвестное окно трендов: " + window
+            + ". Допустимые значения: 1h, 24h, 7d."));
+    final int effectiveLimit = count <= 0 ? DEFAULT_POPULAR_LIMIT : Math.min(count, MAX_SEARCH_LIMIT);
+    return loadInOrder(trending.top(trendingWindow, effectiveLimit));
+  }
+
+  // ----------- поиск -----------
+
+  public List<Film> search(final String query, final int limit) {
+    if (query == null || query.isBlank()) {
+      throw new ValidationException("Поисковый запрос не может быть пустым.");
+    }
+    final int effectiveLimit = limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+    return loadInOrder(searchIndex.search(query, effectiveLimit));
+  }
+
+  // Хранилище не гарантирует порядок — восстанавливаем ранжирование; удалённые фильмы пропускаются
+  private List<Film> loadInOrder(final List<Long> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    return MultiGetResult.of(ids, filmStore.findByIds(ids), Film::getId).items();
+  }
+
   // ----------- валидация -----------
 
+  private void requireFilm(final long id) {
+    if (!filmStore.exists(id)) {
+      throw new NotFoundException("Фильм с id=" + id + " не найден.");
+    }
+  }
+
+  private void requireUser(final long id) {
+    if (!userStore.exists(id)) {
+      throw new NotFoundException("Пользователь с id=" + id + " не найден.");
+    }
+  }
+
   // CHANGE: централизованная бизнес-валидация
   private void validateBusinessRules(final Film film) {
     if (film.getReleaseDate() != null && film.getReleaseDate().isBefore(EARLIEST_DATE)) {
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 
@@ -18,6 +19,7 @@ public class GenreService {
   }
 
   public Genre getById(int id) {
-    return genreStorage.getById(id);
+    return genreStorage.findById(id)
+        .orElseThrow(() -> new NotFoundException("Жанр с id=" + id + " не найден."));
   }
 }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
 
@@ -18,6 +19,7 @@ public class MpaService {
   }
 
   public Mpa getById(int id) {
-    return mpaStorage.getById(id);
+    return mpaStorage.findById(id)
+        .orElseThrow(() -> new NotFoundException("Рейтинг с id=" + id + " не найден."));
   }
 }
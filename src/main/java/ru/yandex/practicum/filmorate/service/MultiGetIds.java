@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+/** Проверка списка id пакетного чтения (GET /films?ids=, GET /users?ids=). */
+final class MultiGetIds {
+
+  static final int MAX_IDS = 100;
+
+  private MultiGetIds() {
+  }
+
+  // Повторы id схлопываются, порядок первого вхождения сохраняется
+  static Set<Long> require(final List<Long> ids) {
+    if (ids == null || ids.isEmpty() || ids.contains(null)) {
+      throw new ValidationException("Список ids не может быть пустым.");
+    }
+    final Set<Long> requested = new LinkedHashSet<>(ids);
+    if (requested.size() > MAX_IDS) {
+      throw new ValidationException("За один запрос можно получить не больше " + MAX_IDS + " записей.");
+    }
+    return requested;
+  }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.PopularQuery;
+
+/**
+ * Кэш готового ответа GET /films/popular: сериализованный JSON и его gzip-вариант
+ * по ключу {@link PopularQuery} (count и фильтры).
+ *
+ * <p>Любое изменение лайков или фильмов поднимает версию кэша; записи старой версии
+ * пересобираются при следующем обращении, поэтому загрузка, начавшаяся до инвалидации,
+ * не может закрепить устаревший ответ.
+ *
+ * <p>Параллельные промахи по одному ключу и версии пересобирают запись один раз
+ * (см. {@link SingleFlight}); после инвалидации новые запросы к старой загрузке не присоединяются.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularFilmsCache {
+
+  // count больше этого значения не кэшируем, чтобы клиент не раздувал кэш произвольными ключами
+  static final int MAX_CACHED_COUNT = 100;
+  // фильтры (год, жанр, рейтинг) дают много комбинаций — ограничиваем число записей
+  static final int MAX_ENTRIES = 1024;
+
+  private static final String FLIGHT = "popular";
+
+  private final ObjectMapper objectMapper;
+  private final SingleFlight singleFlight;
+  private final Map<PopularQuery, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+
+  public Entry get(final PopularQuery query, final Function<PopularQuery, List<Film>> loader) {
+    final Entry cached = entries.get(query);
+    final long current = version.get();
+    if (cached != null && cached.version() == current) {
+      return cached;
+    }
+    final Entry built = singleFlight.execute(FLIGHT, new FlightKey(query, current),
+        () -> build(current, loader.apply(query)));
+    if (query.limit() <= MAX_CACHED_COUNT && (cached != null || entries.size() < MAX_ENTRIES)) {
+      entries.put(query, built);
+    }
+    return built;
+  }
+
+  /** Текущая версия: меняется при каждой инвалидации (см. PopularStreamPublisher). */
+  public long version() {
+    return version.get();
+  }
+
+  public void invalidate() {
+    version.incrementAndGet();
+    entries.clear();
+    log.debug("Кэш популярных фильмов сброшен");
+  }
+
+  private Entry build(final long builtVersion, final List<Film> films) {
+    try {
+      final byte[] json = objectMapper.writeValueAsBytes(films);
+      return new Entry(builtVersion, json, gzip(json));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Не удалось сериализовать список популярных фильмов", e);
+    }
+  }
+
+  private static byte[] gzip(final byte[] json) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(json.length / 4, 64));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private record FlightKey(PopularQuery query, long version) {
+  }
+
+  /** Serialized popular list together with its gzip-compressed variant. */
+  public record Entry(long version, byte[] json, byte[] gzip) {
+  }
+}
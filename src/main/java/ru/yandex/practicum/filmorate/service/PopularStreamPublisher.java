@@ -0,0 +1,220 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+/**
+ * SSE-поток топа популярных фильмов (GET /films/popular/stream).
+ *
+ * <p>Раз в {@code filmorate.popular-stream.tick} проверяется версия {@link PopularFilmsCache};
+ * если она изменилась, для каждого count, на который есть подписчики, один раз берётся готовый
+ * JSON из кэша и сравнивается с последним разосланным — подписчикам уходит только реально
+ * изменившийся список. Обнаружение изменений не зависит от числа подписчиков.
+ *
+ * <p>Соединения держит асинхронная обработка Servlet, отдельного потока на клиента нет:
+ * рассылку выполняет ограниченный пул. У каждого подписчика один слот «последний снимок»:
+ * новый снимок затирает ещё не отправленный, поэтому медленный клиент получает последнее
+ * состояние, а промежуточные пропускает (метрика {@code filmorate.popular.stream.dropped}).
+ */
+@Slf4j
+@Component
+public class PopularStreamPublisher {
+
+  static final int MAX_STREAM_COUNT = PopularFilmsCache.MAX_CACHED_COUNT;
+
+  private final PopularFilmsCache cache;
+  private final FilmService filmService;
+  private final long emitterTimeoutMs;
+  private final ExecutorService senders;
+  private final ScheduledExecutorService ticker;
+  private final Map<Integer, Group> groups = new ConcurrentHashMap<>();
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+  private final Counter dropped;
+  private final Counter sent;
+  private volatile long seenVersion = -1;
+
+  public PopularStreamPublisher(PopularFilmsCache cache, FilmService filmService, MeterRegistry meterRegistry,
+      @Value("${filmorate.popular-stream.tick:1s}") Duration tick,
+      @Value("${filmorate.popular-stream.timeout:30m}") Duration emitterTimeout,
+      @Value("${filmorate.popular-stream.sender-threads:4}") int senderThreads) {
+    this.cache = cache;
+    this.filmService = filmService;
+    this.emitterTimeoutMs = emitterTimeout.toMillis();
+    this.senders = Executors.newFixedThreadPool(senderThreads, daemon("popular-stream-sender"));
+    this.dropped = Counter.builder("filmorate.popular.stream.dropped")
+        .description("Снимки топа, затёртые более новыми до отправки медленному клиенту")
+        .register(meterRegistry);
+    this.sent = Counter.builder("filmorate.popular.stream.sent")
+        .description("Отправленные снимки топа")
+        .register(meterRegistry);
+    Gauge.builder("filmorate.popular.stream.subscribers", subscriberCount, AtomicInteger::get)
+        .register(meterRegistry);
+    if (tick.isZero()) {
+      this.ticker = null;
+    } else {
+      this.ticker = Executors.newSingleThreadScheduledExecutor(daemon("popular-stream-tick"));
+      final long periodMs = Math.max(1L, tick.toMillis());
+      ticker.scheduleWithFixedDelay(this::tickQuietly, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public SseEmitter subscribe(int count) {
+    final SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+    register(count, emitter);
+    return emitter;
+  }
+
+  // Подписка сразу получает текущий топ, дальше — только изменения
+  void register(int count, SseEmitter emitter) {
+    if (count <= 0 || count > MAX_STREAM_COUNT) {
+      throw new ValidationException("count для потока должен быть от 1 до " + MAX_STREAM_COUNT + ".");
+    }
+    final Group group = groups.computeIfAbsent(count, Group::new);
+    final Subscriber subscriber = new Subscriber(group, emitter);
+    group.subscribers.add(subscriber);
+    subscriberCount.incrementAndGet();
+    emitter.onCompletion(subscriber::close);
+    emitter.onTimeout(subscriber::close);
+    emitter.onError(e -> subscriber.close());
+    subscriber.offer(group.current());
+  }
+
+  /** Одна проверка изменений для всех подписчиков; вызывается по расписанию. */
+  void tick() {
+    final long version = cache.version();
+    if (version == seenVersion) {
+      return;
+    }
+    seenVersion = version;
+    for (Group group : groups.values()) {
+      if (group.subscribers.isEmpty()) {
+        continue;
+      }
+      final byte[] previous = group.last.get();
+      final byte[] latest = group.current();
+      if (!Arrays.equals(previous, latest)) {
+        for (Subscriber subscriber : group.subscribers) {
+          subscriber.offer(latest);
+        }
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (ticker != null) {
+      ticker.shutdownNow();
+    }
+    senders.shutdownNow();
+    groups.values().forEach(group -> group.subscribers.forEach(s -> s.emitter.complete()));
+  }
+
+  private void tickQuietly() {
+    try {
+      tick();
+    } catch (RuntimeException e) {
+      log.warn("Ошибка рассылки топа популярных фильмов: {}", e.getMessage());
+    }
+  }
+
+  private static ThreadFactory daemon(String name) {
+    final AtomicInteger seq = new AtomicInteger();
+    return r -> {
+      final Thread thread = new Thread(r, name + "-" + seq.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private final class Group {
+
+    private final int count;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<byte[]> last = new AtomicReference<>();
+
+    private Group(int count) {
+      this.count = count;
+    }
+
+    private byte[] current() {
+      final byte[] json = filmService.getPopularSerialized(count, null, null, null).json();
+      last.set(json);
+      return json;
+    }
+  }
+
+  private final class Subscriber {
+
+    private final Group group;
+    private final SseEmitter emitter;
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Subscriber(Group group, SseEmitter emitter) {
+      this.group = group;
+      this.emitter = emitter;
+    }
+
+    private void offer(byte[] snapshot) {
+      if (closed.get()) {
+        return;
+      }
+      if (pending.getAndSet(snapshot) != null) {
+        dropped.increment();
+      }
+      if (scheduled.compareAndSet(false, true)) {
+        senders.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      try {
+        byte[] snapshot;
+        while ((snapshot = pending.getAndSet(null)) != null && !closed.get()) {
+          emitter.send(SseEmitter.event().name("popular").data(snapshot, MediaType.APPLICATION_JSON));
+          sent.increment();
+        }
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Подписчик потока популярных отключился: {}", e.getMessage());
+        close();
+        emitter.completeWithError(e);
+      } finally {
+        scheduled.set(false);
+      }
+      // снимок мог прийти между последним getAndSet и сбросом флага
+      if (pending.get() != null && !closed.get() && scheduled.compareAndSet(false, true)) {
+        senders.execute(this::drain);
+      }
+    }
+
+    private void close() {
+      if (closed.compareAndSet(false, true)) {
+        group.subscribers.remove(this);
+        subscriberCount.decrementAndGet();
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Объединение одинаковых параллельных чтений (single-flight): пока загрузка по ключу идёт,
+ * остальные вызовы с тем же ключом не обращаются к хранилищу, а ждут её результат.
+ *
+ * <p>Результат общий для всех дождавшихся — вызывающие не должны его изменять. Ведомый ждёт
+ * не дольше {@code filmorate.single-flight.timeout}, после чего загружает данные сам.
+ * После записи ключ нужно {@link #forget забыть}, чтобы новые чтения не присоединялись
+ * к загрузке, начатой до изменения.
+ *
+ * <p>Метрика {@code filmorate.singleflight.calls} с тегами {@code name} и
+ * {@code outcome} = leader | coalesced | timeout.
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+
+  private final MeterRegistry meterRegistry;
+  private final long timeoutMs;
+  private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+  public SingleFlight(MeterRegistry meterRegistry,
+      @Value("${filmorate.single-flight.timeout:2s}") Duration timeout) {
+    this.meterRegistry = meterRegistry;
+    this.timeoutMs = timeout.toMillis();
+  }
+
+  @SuppressWarnings("unchecked")
+  public <V> V execute(String name, Object key, Supplier<V> loader) {
+    final Key flightKey = new Key(name, key);
+    final CompletableFuture<Object> mine = new CompletableFuture<>();
+    final CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, mine);
+    if (running == null) {
+      count(name, "leader");
+      try {
+        final V value = loader.get();
+        mine.complete(value);
+        return value;
+      } catch (RuntimeException | Error e) {
+        mine.completeExceptionally(e);
+        throw e;
+      } finally {
+        inFlight.remove(flightKey, mine);
+      }
+    }
+    count(name, "coalesced");
+    try {
+      return (V) running.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      count(name, "timeout");
+      log.debug("Single-flight {}: общий результат по ключу {} не готов за {} мс", name, key, timeoutMs);
+      return loader.get();
+    } catch (ExecutionException e) {
+      // ошибка ведущего (например, NotFoundException) — та же ошибка для всех ожидавших
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Ожидание загрузки прервано", e);
+    }
+  }
+
+  /** Новые вызовы по ключу начнут собственную загрузку; уже ожидающие получат текущую. */
+  public void forget(String name, Object key) {
+    inFlight.remove(new Key(name, key));
+  }
+
+  private void count(String name, String outcome) {
+    counters.computeIfAbsent(name + '/' + outcome, k -> Counter.builder("filmorate.singleflight.calls")
+        .description("Чтения через single-flight по исходу")
+        .tag("name", name)
+        .tag("outcome", outcome)
+        .register(meterRegistry))
+        .increment();
+  }
+
+  private record Key(String name, Object key) {
+  }
+}
@@ -7,8 +7,15 @@ import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.journal.EventJournal;
+import ru.yandex.practicum.filmorate.journal.JournalEventType;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.FeedPage;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.feed.ActivityFeed;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 /**
@@ -31,14 +38,21 @@ import ru.yandex.practicum.filmorate.storage.user.UserStorage;
  *
  * SPRINT 12 (fix):
  * - removeFriend стал симметричным: при наличии взаимной дружбы удаляем id у friendId и сохраняем обе стороны.
+ *
+ * Одинаковые параллельные чтения пользователя по id объединяются через {@link SingleFlight}.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+  private static final String USER_FLIGHT = "user";
+
   // SPRINT 11: внедрение хранилища пользователей через интерфейс
   private final UserStorage userStorage;
+  private final EventJournal journal;
+  private final SingleFlight singleFlight;
+  private final ActivityFeed feed;
 
   public List<User> findAll() {
     // CHANGE: типобезопасный List (теперь приходит из хранилища)
@@ -51,7 +65,14 @@ public class UserService {
   }
 
   public User getById(final long id) {
-    return userStorage.getById(id);
+    // результат получат и ведомые из других запросов — грузим мимо карты идентичности ведущего
+    return singleFlight.execute(USER_FLIGHT, id, () -> userStorage.findDetached(id)).orElseThrow(() -> notFound(id));
+  }
+
+  // Пакетное чтение: отсутствующие id возвращаются в missing, а не 404
+  public MultiGetResult<User> getByIds(final List<Long> ids) {
+    final Set<Long> requested = MultiGetIds.require(ids);
+    return MultiGetResult.of(requested, userStorage.findByIds(requested), User::getId);
   }
 
   public User create(final User user) {
@@ -69,6 +90,7 @@ public class UserService {
     }
     normalize(user); // CHANGE
     final User saved = userStorage.update(user); // SPRINT 11
+    singleFlight.forget(USER_FLIGHT, saved.getId());
     // CHANGE + FIX2: важное событие — INFO, добавили login для контекста
     log.info("Обновлён пользователь id={} login='{}'", saved.getId(), saved.getLogin());
     return saved;
@@ -80,40 +102,37 @@ public class UserService {
     if (id == friendId) {
       throw new ValidationException("Нельзя добавить в друзья самого себя.");
     }
-    final User u = userStorage.getById(id);
-    final User f = userStorage.getById(friendId);
+    // только проверка существования — без загрузки пользователей и их друзей
+    requireUser(id);
+    requireUser(friendId);
 
-    final boolean added = u.getFriends().add(friendId);
+    // атомарно в хранилище: параллельные заявки не затирают друг друга
+    final boolean added = userStorage.addFriend(id, friendId);
     if (added) {
-      userStorage.update(u);
-      if (f.getFriends().contains(id)) {
-        log.info("Дружба подтверждена: {} <-> {}", id, friendId);
-      } else {
-        log.info("Пользователь {} отправил заявку в друзья пользователю {}", id, friendId);
-      }
+      journal.append(JournalEventType.FRIEND_ADD, id, friendId);
+      singleFlight.forget(USER_FLIGHT, id);
+      feed.publish(FeedEvent.Type.FRIEND, id, friendId);
+      log.info("Пользователь {} добавил в друзья пользователя {}", id, friendId);
     } else {
       log.debug("Повторное добавление в друзья проигнорировано: {} <-> {}", id, friendId);
     }
   }
 
   public void removeFriend(final long id, final long friendId) {
-    // fix sprint 12: симметрично разрываем дружбу и сохраняем обе стороны при необходимости
-    final User u = userStorage.getById(id);
-    final User f = userStorage.getById(friendId);
-
-    final boolean removedFromU = u.getFriends().remove(friendId);
-    boolean removedFromF = false;
+    // fix sprint 12: симметрично разрываем дружбу; каждая сторона удаляется атомарной операцией хранилища
+    requireUser(id);
+    requireUser(friendId);
 
+    final boolean removedFromU = userStorage.removeFriend(id, friendId);
     // Если дружба была взаимной — удаляем id у друга
-    if (f.getFriends().contains(id)) {
-      removedFromF = f.getFriends().remove(id);
-    }
-
+    final boolean removedFromF = userStorage.removeFriend(friendId, id);
     if (removedFromU) {
-      userStorage.update(u);
+      journal.append(JournalEventType.FRIEND_REMOVE, id, friendId);
+      singleFlight.forget(USER_FLIGHT, id);
     }
     if (removedFromF) {
-      userStorage.update(f);
+      journal.append(JournalEventType.FRIEND_REMOVE, friendId, id);
+      singleFlight.forget(USER_FLIGHT, friendId);
     }
 
     if (removedFromU && removedFromF) {
@@ -129,25 +148,40 @@ public class UserService {
   }
 
   public List<User> getFriends(final long id) {
-    final User u = userStorage.getById(id);
+    final User u = userStorage.findById(id).orElseThrow(() -> notFound(id));
     return idsToUsers(u.getFriends());
   }
 
   public List<User> getCommonFriends(final long id, final long otherId) {
-    final User a = userStorage.getById(id);
-    final User b = userStorage.getById(otherId);
+    final User a = userStorage.findById(id).orElseThrow(() -> notFound(id));
+    final User b = userStorage.findById(otherId).orElseThrow(() -> notFound(otherId));
     final Set<Long> common = a.getFriends().stream()
         .filter(b.getFriends()::contains)
         .collect(Collectors.toSet());
     return idsToUsers(common);
   }
 
+  // Лента активности друзей: от новых событий к старым, cursor — id последнего полученного события
+  public FeedPage getFeed(final long id, final Long cursor, final int limit) {
+    return feed.page(id, cursor, limit);
+  }
+
   // ----------- утилиты -----------
 
+  private void requireUser(final long id) {
+    if (!userStorage.exists(id)) {
+      throw notFound(id);
+    }
+  }
+
+  private static NotFoundException notFound(final long id) {
+    return new NotFoundException("Пользователь с id=" + id + " не найден.");
+  }
+
   private List<User> idsToUsers(final Set<Long> ids) {
     final List<User> list = new ArrayList<>();
     for (Long i : ids) {
-      list.add(userStorage.getById(i));
+      list.add(userStorage.findById(i).orElseThrow(() -> notFound(i)));
     }
     return list;
   }
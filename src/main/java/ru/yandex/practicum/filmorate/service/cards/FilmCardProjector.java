@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate.service.cards;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.invalidation.EntityChangedEvent;
+import ru.yandex.practicum.filmorate.storage.card.FilmCardStorage;
+
+/**
+ * Асинхронное обновление карточек фильмов по событиям записи.
+ *
+ * <p>Изменения фильмов и лайков (после коммита) копятся в очереди без повторов; фоновый поток
+ * раз в {@code interval} пересчитывает карточки пачками по {@code batchSize}. Изменения с других
+ * узлов не обрабатываются — их карточки в общей БД обновляет узел, сделавший запись.
+ *
+ * <p>Метрики: {@code filmorate.film-cards.pending} — фильмов в очереди,
+ * {@code filmorate.film-cards.lag} — сколько ждёт самое старое изменение,
+ * {@code filmorate.film-cards.applied} — пересчитано карточек.
+ */
+@Slf4j
+public class FilmCardProjector implements Closeable {
+
+  private final FilmCardStorage storage;
+  private final int batchSize;
+  private final ScheduledExecutorService applier;
+  private final Counter applied;
+  private final Object applyLock = new Object();
+
+  // id фильма -> System.nanoTime() первого непримененного изменения
+  private final Map<Long, Long> pending = new LinkedHashMap<>();
+
+  public FilmCardProjector(FilmCardStorage storage, MeterRegistry meterRegistry, Duration interval, int batchSize) {
+    this.storage = storage;
+    this.batchSize = Math.max(1, batchSize);
+    this.applied = meterRegistry.counter("filmorate.film-cards.applied");
+    Gauge.builder("filmorate.film-cards.pending", this, FilmCardProjector::pendingCount)
+        .register(meterRegistry);
+    Gauge.builder("filmorate.film-cards.lag", this, FilmCardProjector::lagSeconds)
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    this.applier = Executors.newSingleThreadScheduledExecutor(r -> {
+      final Thread thread = new Thread(r, "film-cards");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long periodMs = Math.max(1L, interval.toMillis());
+    applier.scheduleWithFixedDelay(this::applyQuietly, periodMs, periodMs, TimeUnit.MILLISECONDS);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onChange(EntityChangedEvent event) {
+    if (event.remote()) {
+      return;
+    }
+    switch (event.type()) {
+      case FILM, LIKE -> {
+        synchronized (pending) {
+          pending.putIfAbsent(event.id(), System.nanoTime());
+        }
+      }
+      default -> {
+      }
+    }
+  }
+
+  /** Применяет всю накопленную очередь. */
+  void apply() {
+    synchronized (applyLock) {
+      Map<Long, Long> batch;
+      while (!(batch = takeBatch()).isEmpty()) {
+        try {
+          storage.refresh(batch.keySet());
+        } catch (RuntimeException e) {
+          // вернём пачку в очередь — повторим на следующем такте; отставание видно по lag
+          requeue(batch);
+          throw e;
+        }
+        applied.increment(batch.size());
+      }
+    }
+  }
+
+  /** Пересобирает все карточки; очередь, накопленная к этому моменту, уже учтена. */
+  public int rebuild() {
+    synchronized (applyLock) {
+      final long started = System.nanoTime();
+      synchronized (pending) {
+        pending.clear();
+      }
+      final int count = storage.rebuild();
+      log.info("Карточки фильмов пересобраны: {} за {} мс", count, (System.nanoTime() - started) / 1_000_000);
+      return count;
+    }
+  }
+
+  /** Пересобирает карточки, если они расходятся с фильмами и лайками (первый запуск, сбой). */
+  public void rebuildIfStale() {
+    if (storage.isStale()) {
+      rebuild();
+    }
+  }
+
+  public int pendingCount() {
+    synchronized (pending) {
+      return pending.size();
+    }
+  }
+
+  public double lagSeconds() {
+    synchronized (pending) {
+      if (pending.isEmpty()) {
+        return 0;
+      }
+      final long oldest = pending.values().iterator().next();
+      return (System.nanoTime() - oldest) / 1e9;
+    }
+  }
+
+  private Map<Long, Long> takeBatch() {
+    synchronized (pending) {
+      final Map<Long, Long> batch = new LinkedHashMap<>();
+      final Iterator<Map.Entry<Long, Long>> entries = pending.entrySet().iterator();
+      while (entries.hasNext() && batch.size() < batchSize) {
+        final Map.Entry<Long, Long> entry = entries.next();
+        batch.put(entry.getKey(), entry.getValue());
+        entries.remove();
+      }
+      return batch;
+    }
+  }
+
+  // Повтор встаёт в начало очереди с прежним временем — иначе lag занизился бы
+  private void requeue(Map<Long, Long> batch) {
+    synchronized (pending) {
+      final Map<Long, Long> restored = new LinkedHashMap<>(batch);
+      pending.forEach(restored::putIfAbsent);
+      pending.clear();
+      pending.putAll(restored);
+    }
+  }
+
+  private void applyQuietly() {
+    try {
+      apply();
+    } catch (RuntimeException e) {
+      log.warn("Не удалось обновить карточки фильмов", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    applier.shutdown();
+    applyQuietly();
+  }
+}
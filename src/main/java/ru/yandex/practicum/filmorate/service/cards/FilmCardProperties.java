@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.service.cards;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки модели чтения карточек (префикс {@code filmorate.film-cards}).
+ *
+ * @param interval      как часто применять накопленные изменения к film_cards
+ * @param batchSize     фильмов в одном пересчёте (одна транзакция, два запроса)
+ * @param rebuildOnStart пересобрать карточки при старте, если их число не совпадает с числом фильмов
+ */
+@ConfigurationProperties(prefix = "filmorate.film-cards")
+public record FilmCardProperties(
+    @DefaultValue("100ms") Duration interval,
+    @DefaultValue("200") int batchSize,
+    @DefaultValue("true") boolean rebuildOnStart) {
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.service.cards;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FilmCard;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.service.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.card.FilmCardStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularQuery;
+
+/**
+ * Списки фильмов в виде карточек (?view=card): читаются из модели чтения одним запросом
+ * на страницу. Карточки могут отставать от полных фильмов (см. {@link FilmCardProjector}).
+ */
+@Service
+@RequiredArgsConstructor
+public class FilmCardService {
+
+  static final int DEFAULT_PAGE = 100;
+  static final int MAX_PAGE = 1000;
+  private static final int DEFAULT_SEARCH_LIMIT = 10;
+  private static final int MAX_SEARCH_LIMIT = 100;
+
+  private final FilmCardStorage cardStorage;
+  private final FilmStorage filmStorage;
+  private final FilmSearchIndex searchIndex;
+
+  // Постраничный обход по id: следующая страница — after = id последней карточки
+  public List<FilmCard> findPage(final Long after, final int limit) {
+    if (limit <= 0 || limit > MAX_PAGE) {
+      throw new ValidationException("limit должен быть от 1 до " + MAX_PAGE + ".");
+    }
+    return cardStorage.findPage(after == null ? 0 : after, limit);
+  }
+
+  // Фильтры по жанру, году и рейтингу модель чтения не покрывает — такие запросы собираются из фильмов
+  public List<FilmCard> getPopular(final int count, final Integer genreId, final Integer year, final Integer mpaId) {
+    final int effectiveLimit = count <= 0 ? FilmStorage.DEFAULT_POPULAR_LIMIT : count;
+    final PopularQuery query = new PopularQuery(effectiveLimit, genreId, year, mpaId);
+    if (query.isFiltered()) {
+      return filmStorage.findMostPopular(query).stream().map(FilmCard::from).toList();
+    }
+    return cardStorage.findMostPopular(effectiveLimit);
+  }
+
+  public List<FilmCard> search(final String query, final int limit) {
+    if (query == null || query.isBlank()) {
+      throw new ValidationException("Поисковый запрос не может быть пустым.");
+    }
+    final int effectiveLimit = limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+    final List<Long> ids = searchIndex.search(query, effectiveLimit);
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    return MultiGetResult.of(ids, cardStorage.findByIds(ids), FilmCard::id).items();
+  }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.service.cards;
+
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * Служебный эндпоинт модели чтения карточек:
+ *   GET  /actuator/filmcards — размер очереди и отставание;
+ *   POST /actuator/filmcards — полная пересборка film_cards.
+ * По умолчанию не опубликован по HTTP: открывать только на закрытом management-порту.
+ */
+@Endpoint(id = "filmcards")
+@RequiredArgsConstructor
+public class FilmCardsEndpoint {
+
+  private final FilmCardProjector projector;
+
+  @ReadOperation
+  public Map<String, Object> status() {
+    return Map.of("pending", projector.pendingCount(), "lagSeconds", projector.lagSeconds());
+  }
+
+  @WriteOperation
+  public Map<String, Object> rebuild() {
+    return Map.of("rebuilt", projector.rebuild());
+  }
+}
@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.service.feed;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.FeedPage;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Лента активности (GET /users/{id}/feed): лайки и новые друзья тех, на кого подписан пользователь
+ * (его друзей в смысле односторонней связи user -> friend).
+ *
+ * <p>Гибридная раскладка. Событие обычного автора при записи кладётся в кольцо каждого подписчика
+ * ({@link FeedProperties#ringSize()} последних событий), и чтение — это один проход по своему кольцу.
+ * Если подписчиков больше {@link FeedProperties#celebrityThreshold()}, событие пишется один раз
+ * в кольцо самого автора, а подписчики подмешивают такие кольца при чтении. Так стоимость записи
+ * ограничена порогом, а чтение — числом «знаменитостей» среди друзей.
+ *
+ * <p>Раскладка (загрузка подписчиков и запись в их кольца) идёт в отдельном потоке: запрос,
+ * поставивший лайк, только кладёт задачу в очередь ёмкостью {@link FeedProperties#fanOutQueue()}.
+ * Если очередь полна, события отбрасываются — лента вспомогательная, а запись лайка важнее.
+ * Время события фиксируется при публикации, id — при раскладке: события попадают в кольца
+ * в порядке id, и курсор не пропускает поздно разложенные.
+ *
+ * <p>Память ограничена: кольца фиксированной ёмкости, лент не больше {@link FeedProperties#maxUsers()}
+ * (давно не читанные и не пополнявшиеся вытесняются). Лента живёт только в памяти узла
+ * и после рестарта начинается заново.
+ */
+@Slf4j
+public class ActivityFeed implements Closeable {
+
+  public static final int MAX_PAGE = 100;
+
+  private static final Comparator<FeedEvent> NEWEST_FIRST =
+      Comparator.comparingLong(FeedEvent::id).reversed();
+
+  private final UserStorage userStorage;
+  private final Clock clock;
+  private final int ringSize;
+  private final int celebrityThreshold;
+  private final AtomicLong seq = new AtomicLong();
+  private final Map<Long, FeedRing> inboxes;
+  private final Map<Long, FeedRing> outboxes = new ConcurrentHashMap<>();
+  // null — раскладка в потоке публикации (fan-out-queue=0)
+  private final ThreadPoolExecutor fanOut;
+  private final AtomicLong dropped = new AtomicLong();
+
+  public ActivityFeed(UserStorage userStorage, Clock clock, FeedProperties properties) {
+    this.userStorage = userStorage;
+    this.clock = clock;
+    this.ringSize = properties.ringSize();
+    this.celebrityThreshold = properties.celebrityThreshold();
+    final int maxUsers = properties.maxUsers();
+    // LinkedHashMap в порядке доступа: вытесняется лента, к которой дольше всех не обращались
+    this.inboxes = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, FeedRing> eldest) {
+        return size() > maxUsers;
+      }
+    };
+    this.fanOut = properties.fanOutQueue() <= 0 ? null : new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(properties.fanOutQueue()), r -> {
+          final Thread thread = new Thread(r, "feed-fan-out");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  public void publish(FeedEvent.Type type, long actorId, long targetId) {
+    publishAll(type, actorId, List.of(targetId));
+  }
+
+  // Несколько событий одного автора (пакет лайков): подписчики загружаются один раз
+  public void publishAll(FeedEvent.Type type, long actorId, Collection<Long> targetIds) {
+    if (targetIds.isEmpty()) {
+      return;
+    }
+    final Instant at = clock.instant();
+    final List<Long> targets = List.copyOf(targetIds);
+    if (fanOut == null) {
+      deliver(type, actorId, targets, at);
+      return;
+    }
+    try {
+      fanOut.execute(() -> deliverQuietly(type, actorId, targets, at));
+    } catch (RejectedExecutionException e) {
+      dropped.addAndGet(targets.size());
+      log.debug("Очередь раскладки ленты заполнена — пропущено {} событий пользователя {}", targets.size(), actorId);
+    }
+  }
+
+  public FeedPage page(long userId, Long cursor, int limit) {
+    if (limit <= 0 || limit > MAX_PAGE) {
+      throw new ValidationException("limit должен быть от 1 до " + MAX_PAGE + ".");
+    }
+    final User user = userStorage.findById(userId)
+        .orElseThrow(() -> new NotFoundException("Пользователь с id=" + userId + " не найден."));
+    final long before = cursor == null ? Long.MAX_VALUE : cursor;
+    // из каждого источника берём на одно событие больше — чтобы понять, есть ли следующая страница
+    final List<FeedEvent> merged = new ArrayList<>();
+    final FeedRing inbox;
+    synchronized (inboxes) {
+      inbox = inboxes.get(userId);
+    }
+    if (inbox != null) {
+      inbox.collectBefore(before, limit + 1, merged);
+    }
+    if (!outboxes.isEmpty()) {
+      for (long friendId : user.getFriends().toLongArray()) {
+        final FeedRing outbox = outboxes.get(friendId);
+        if (outbox != null) {
+          outbox.collectBefore(before, limit + 1, merged);
+        }
+      }
+    }
+    merged.sort(NEWEST_FIRST);
+    if (merged.size() <= limit) {
+      return new FeedPage(List.copyOf(merged), null);
+    }
+    final List<FeedEvent> items = List.copyOf(merged.subList(0, limit));
+    return new FeedPage(items, items.get(limit - 1).id());
+  }
+
+  /** Сколько событий отброшено из-за переполненной очереди раскладки. */
+  public long droppedCount() {
+    return dropped.get();
+  }
+
+  // Разложенные к остановке события не нужны: лента всё равно живёт только в памяти
+  @Override
+  public void close() {
+    if (fanOut != null) {
+      fanOut.shutdownNow();
+    }
+  }
+
+  int inboxCount() {
+    synchronized (inboxes) {
+      return inboxes.size();
+    }
+  }
+
+  private void deliver(FeedEvent.Type type, long actorId, List<Long> targetIds, Instant at) {
+    // на одного больше порога — достаточно, чтобы понять, что автор «знаменитость»
+    final List<Long> followers = userStorage.findFollowerIds(actorId, celebrityThreshold + 1);
+    final boolean celebrity = followers.size() > celebrityThreshold;
+    if (!celebrity && followers.isEmpty()) {
+      return;
+    }
+    final List<FeedRing> rings;
+    if (celebrity) {
+      rings = List.of(outboxes.computeIfAbsent(actorId, id -> new FeedRing(ringSize)));
+    } else {
+      // кольца всех подписчиков — за один захват общей карты, а не по захвату на подписчика
+      rings = new ArrayList<>(followers.size());
+      synchronized (inboxes) {
+        for (Long followerId : followers) {
+          rings.add(inboxes.computeIfAbsent(followerId, id -> new FeedRing(ringSize)));
+        }
+      }
+    }
+    for (Long targetId : targetIds) {
+      final FeedEvent event = new FeedEvent(seq.incrementAndGet(), at, actorId, type, targetId);
+      for (FeedRing ring : rings) {
+        ring.add(event);
+      }
+    }
+  }
+
+  // исключение (например, БД недоступна) не должно останавливать поток раскладки
+  private void deliverQuietly(FeedEvent.Type type, long actorId, List<Long> targetIds, Instant at) {
+    try {
+      deliver(type, actorId, targetIds, at);
+    } catch (RuntimeException e) {
+      log.warn("Не удалось разложить события ленты пользователя {}: {}", actorId, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.service.feed;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки ленты активности (префикс {@code filmorate.feed}).
+ *
+ * @param ringSize            сколько последних событий хранится в ленте одного пользователя
+ * @param maxUsers            сколько лент держать в памяти; дольше всех не читанные вытесняются
+ * @param celebrityThreshold  с какого числа подписчиков события пишутся в ленту автора,
+ *                            а не раскладываются по лентам подписчиков
+ * @param fanOutQueue         сколько публикаций ждут раскладки в фоновом потоке; сверх этого
+ *                            события отбрасываются; 0 — раскладка в потоке публикации
+ */
+@ConfigurationProperties(prefix = "filmorate.feed")
+public record FeedProperties(
+    @DefaultValue("100") int ringSize,
+    @DefaultValue("10000") int maxUsers,
+    @DefaultValue("1000") int celebrityThreshold,
+    @DefaultValue("10000") int fanOutQueue) {
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.service.feed;
+
+import java.util.List;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+
+/**
+ * Кольцо последних событий фиксированной ёмкости: новое событие вытесняет самое старое.
+ * Кольцо упорядочено по id: параллельные публикации могут прийти не по порядку,
+ * такое событие сдвигается назад на своё место (обычно на одну-две позиции).
+ */
+final class FeedRing {
+
+  private final FeedEvent[] events;
+  private int head;
+  private int size;
+
+  FeedRing(int capacity) {
+    this.events = new FeedEvent[capacity];
+  }
+
+  synchronized void add(FeedEvent event) {
+    events[head] = event;
+    head = (head + 1) % events.length;
+    if (size < events.length) {
+      size++;
+    }
+    for (int i = 1; i < size; i++) {
+      final int current = Math.floorMod(head - i, events.length);
+      final int previous = Math.floorMod(current - 1, events.length);
+      if (events[previous].id() < events[current].id()) {
+        break;
+      }
+      final FeedEvent swap = events[previous];
+      events[previous] = events[current];
+      events[current] = swap;
+    }
+  }
+
+  // Добавляет в out до limit событий с id < before, от новых к старым
+  synchronized void collectBefore(long before, int limit, List<FeedEvent> out) {
+    int taken = 0;
+    for (int i = 1; i <= size && taken < limit; i++) {
+      final FeedEvent event = events[Math.floorMod(head - i, events.length)];
+      if (event.id() < before) {
+        out.add(event);
+        taken++;
+      }
+    }
+  }
+
+  synchronized int size() {
+    return size;
+  }
+}
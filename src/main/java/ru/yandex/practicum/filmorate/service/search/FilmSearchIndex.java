@@ -0,0 +1,197 @@
+package ru.yandex.practicum.filmorate.service.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * In-memory inverted index over film names and descriptions.
+ *
+ * <p>Терм из названия весит больше терма из описания; точное совпадение терма запроса
+ * весит больше совпадения по префиксу. Все термы запроса обязательны (AND). При равной
+ * релевантности выше идёт фильм с большим числом лайков, затем — с меньшим id.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex {
+
+  static final int NAME_WEIGHT = 3;
+  static final int DESCRIPTION_WEIGHT = 1;
+  static final int EXACT_BONUS = 2;
+  // короткие префиксы раскрываются в слишком много термов — для них ищем только точное совпадение
+  static final int MIN_PREFIX_LENGTH = 2;
+
+  // терм -> (id фильма -> вес терма в фильме)
+  private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+  // id фильма -> термы фильма (для переиндексации/удаления) и популярность
+  private final Map<Long, Document> documents = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public void rebuild(final Collection<Film> films) {
+    lock.writeLock().lock();
+    try {
+      postings.clear();
+      documents.clear();
+      for (Film film : films) {
+        addDocument(film);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("Поисковый индекс построен: фильмов={}, термов={}", films.size(), postings.size());
+  }
+
+  public void index(final Film film) {
+    lock.writeLock().lock();
+    try {
+      removeDocument(film.getId());
+      addDocument(film);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(final long filmId) {
+    lock.writeLock().lock();
+    try {
+      removeDocument(filmId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void updatePopularity(final long filmId, final int likesDelta) {
+    lock.writeLock().lock();
+    try {
+      final Document document = documents.get(filmId);
+      if (document != null) {
+        document.likes = Math.max(0, document.likes + likesDelta);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Returns ids of the best matching films, most relevant first. */
+  public List<Long> search(final String query, final int limit) {
+    final List<String> terms = SearchTokenizer.tokenize(query);
+    if (terms.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+    lock.readLock().lock();
+    try {
+      Map<Long, Integer> scores = null;
+      for (String term : terms) {
+        final Map<Long, Integer> termScores = scoreTerm(term);
+        scores = scores == null ? termScores : intersect(scores, termScores);
+        if (scores.isEmpty()) {
+          return List.of();
+        }
+      }
+      return topN(scores, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Map<Long, Integer> scoreTerm(final String term) {
+    final Map<Long, Integer> scores = new HashMap<>();
+    final Map<Long, Integer> exact = postings.get(term);
+    if (exact != null) {
+      exact.forEach((filmId, weight) -> scores.merge(filmId, weight * EXACT_BONUS, Integer::sum));
+    }
+    if (term.length() >= MIN_PREFIX_LENGTH) {
+      // все термы, начинающиеся с term (сам term уже учтён выше)
+      postings.subMap(term, false, term + Character.MAX_VALUE, false)
+          .values()
+          .forEach(matches -> matches.forEach((filmId, weight) -> scores.merge(filmId, weight, Integer::max)));
+    }
+    return scores;
+  }
+
+  private static Map<Long, Integer> intersect(final Map<Long, Integer> left, final Map<Long, Integer> right) {
+    final Map<Long, Integer> smaller = left.size() <= right.size() ? left : right;
+    final Map<Long, Integer> larger = smaller == left ? right : left;
+    final Map<Long, Integer> result = new HashMap<>(smaller.size());
+    smaller.forEach((filmId, score) -> {
+      final Integer other = larger.get(filmId);
+      if (other != null) {
+        result.put(filmId, score + other);
+      }
+    });
+    return result;
+  }
+
+  private List<Long> topN(final Map<Long, Integer> scores, final int limit) {
+    final Comparator<Map.Entry<Long, Integer>> byRelevance = Comparator
+        .comparingInt((Map.Entry<Long, Integer> e) -> e.getValue())
+        .thenComparingInt(e -> documents.get(e.getKey()).likes)
+        .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+    // min-куча размера limit: в вершине худший из лучших
+    final PriorityQueue<Map.Entry<Long, Integer>> heap = new PriorityQueue<>(limit + 1, byRelevance);
+    for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+      heap.offer(entry);
+      if (heap.size() > limit) {
+        heap.poll();
+      }
+    }
+    final List<Long> result = new ArrayList<>(heap.size());
+    while (!heap.isEmpty()) {
+      result.add(heap.poll().getKey());
+    }
+    Collections.reverse(result);
+    return result;
+  }
+
+  private void addDocument(final Film film) {
+    final Map<String, Integer> weights = new HashMap<>();
+    for (String term : SearchTokenizer.tokenize(film.getName())) {
+      weights.merge(term, NAME_WEIGHT, Integer::sum);
+    }
+    for (String term : SearchTokenizer.tokenize(film.getDescription())) {
+      weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+    }
+    final long filmId = film.getId();
+    weights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(filmId, weight));
+    documents.put(filmId, new Document(weights.keySet().toArray(String[]::new), film.getLikes().size()));
+  }
+
+  private void removeDocument(final long filmId) {
+    final Document document = documents.remove(filmId);
+    if (document == null) {
+      return;
+    }
+    for (String term : document.terms) {
+      final Map<Long, Integer> matches = postings.get(term);
+      if (matches != null) {
+        matches.remove(filmId);
+        if (matches.isEmpty()) {
+          postings.remove(term);
+        }
+      }
+    }
+  }
+
+  private static final class Document {
+
+    private final String[] terms;
+    private int likes;
+
+    private Document(final String[] terms, final int likes) {
+      this.terms = terms;
+      this.likes = likes;
+    }
+  }
+}
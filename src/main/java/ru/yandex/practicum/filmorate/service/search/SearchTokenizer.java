@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбивает текст на поисковые термы: нижний регистр, «ё» приводится к «е»,
+ * разделителями служат любые символы, кроме букв и цифр (латиница и кириллица равноправны).
+ */
+final class SearchTokenizer {
+
+  private SearchTokenizer() {
+  }
+
+  static List<String> tokenize(final String text) {
+    final List<String> tokens = new ArrayList<>();
+    if (text == null || text.isEmpty()) {
+      return tokens;
+    }
+    final StringBuilder current = new StringBuilder();
+    for (int i = 0; i < text.length(); i++) {
+      final char ch = text.charAt(i);
+      if (Character.isLetterOrDigit(ch)) {
+        current.append(normalize(ch));
+      } else if (current.length() > 0) {
+        tokens.add(current.toString());
+        current.setLength(0);
+      }
+    }
+    if (current.length() > 0) {
+      tokens.add(current.toString());
+    }
+    return tokens;
+  }
+
+  private static char normalize(final char ch) {
+    final char lower = Character.toLowerCase(ch);
+    return lower == 'ё' ? 'е' : lower;
+  }
+}
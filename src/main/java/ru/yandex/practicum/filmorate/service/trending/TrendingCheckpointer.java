@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.service.trending;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Контрольные точки счётчиков трендов.
+ *
+ * <p>При старте загружается последняя контрольная точка, затем из film_likes догружаются лайки,
+ * поставленные после неё (по индексу created_at); без контрольной точки — лайки за 7 дней.
+ * Дальше точка пишется периодически и при остановке: во временный файл с CRC32 и атомарной
+ * подменой. Лайки, снятые между контрольной точкой и перезапуском, не вычитаются.
+ */
+@Slf4j
+public class TrendingCheckpointer implements Closeable {
+
+  private static final int MAGIC = 0x46545244; // "FTRD"
+  private static final short VERSION = 1;
+
+  private final TrendingTracker tracker;
+  private final JdbcTemplate jdbcTemplate;
+  private final Clock clock;
+  private final Path path;
+  private final Duration interval;
+
+  private ScheduledExecutorService scheduler;
+
+  public TrendingCheckpointer(TrendingTracker tracker, JdbcTemplate jdbcTemplate, Clock clock,
+      Path path, Duration interval) {
+    this.tracker = tracker;
+    this.jdbcTemplate = jdbcTemplate;
+    this.clock = clock;
+    this.path = path;
+    this.interval = interval;
+  }
+
+  public void start() {
+    restore();
+    if (interval.isZero()) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      final Thread thread = new Thread(r, "trending-checkpoint");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long periodMs = Math.max(1L, interval.toMillis());
+    scheduler.scheduleWithFixedDelay(this::checkpointQuietly, periodMs, periodMs, TimeUnit.MILLISECONDS);
+  }
+
+  /** Загружает контрольную точку и догружает более поздние лайки из БД. */
+  public void restore() {
+    final Instant weekAgo = clock.instant().minus(TrendingWindow.WEEK.length());
+    Instant since = weekAgo;
+    if (Files.exists(path)) {
+      try {
+        final Instant savedAt = read();
+        since = savedAt.isAfter(weekAgo) ? savedAt : weekAgo;
+      } catch (IOException e) {
+        // повреждённая точка не должна мешать старту — счётчики восстановятся из БД
+        log.warn("Контрольная точка трендов {} не прочитана ({}), восстанавливаем из БД", path, e.getMessage());
+      }
+    }
+    final AtomicLong likes = new AtomicLong();
+    jdbcTemplate.query("SELECT film_id, created_at FROM film_likes WHERE created_at > ?",
+        rs -> {
+          tracker.recordAt(rs.getLong("film_id"), rs.getTimestamp("created_at").toInstant(), 1);
+          likes.incrementAndGet();
+        },
+        Timestamp.from(since));
+    log.info("Тренды: догружено {} лайков после {}", likes.get(), since);
+  }
+
+  /** Записывает текущие корзины; файл подменяется атомарно. */
+  public synchronized void checkpoint() throws IOException {
+    final Instant savedAt = clock.instant();
+    final Map<Long, Map<Long, Integer>> buckets = tracker.buckets();
+    final Path parent = path.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    final Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+    try {
+      final CRC32 crc = new CRC32();
+      try (OutputStream file = Files.newOutputStream(tmp)) {
+        final DataOutputStream out = new DataOutputStream(
+            new CheckedOutputStream(new BufferedOutputStream(file), crc));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(savedAt.toEpochMilli());
+        out.writeInt(buckets.size());
+        for (Map.Entry<Long, Map<Long, Integer>> bucket : buckets.entrySet()) {
+          out.writeLong(bucket.getKey());
+          out.writeInt(bucket.getValue().size());
+          for (Map.Entry<Long, Integer> count : bucket.getValue().entrySet()) {
+            out.writeLong(count.getKey());
+            out.writeInt(count.getValue());
+          }
+        }
+        out.flush();
+        new DataOutputStream(file).writeLong(crc.getValue());
+      }
+      Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    checkpointQuietly();
+  }
+
+  private Instant read() throws IOException {
+    final CRC32 crc = new CRC32();
+    try (InputStream file = new BufferedInputStream(Files.newInputStream(path))) {
+      final DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+      if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+        throw new IOException("неизвестный формат");
+      }
+      final Instant savedAt = Instant.ofEpochMilli(in.readLong());
+      final int bucketCount = in.readInt();
+      final Map<Long, Map<Long, Integer>> buckets = new HashMap<>(Math.max(bucketCount * 2, 16));
+      for (int i = 0; i < bucketCount; i++) {
+        final long bucket = in.readLong();
+        final int entries = in.readInt();
+        final Map<Long, Integer> counts = new HashMap<>(Math.max(entries * 2, 16));
+        for (int j = 0; j < entries; j++) {
+          counts.put(in.readLong(), in.readInt());
+        }
+        buckets.put(bucket, counts);
+      }
+      final long expected = crc.getValue();
+      if (new DataInputStream(file).readLong() != expected) {
+        throw new IOException("контрольная сумма не совпадает");
+      }
+      tracker.restore(buckets);
+      return savedAt;
+    }
+  }
+
+  // исключение в задаче по расписанию отменило бы все следующие запуски
+  private void checkpointQuietly() {
+    try {
+      checkpoint();
+    } catch (IOException | RuntimeException e) {
+      log.warn("Ошибка записи контрольной точки трендов: {}", e.getMessage());
+    }
+  }
+}
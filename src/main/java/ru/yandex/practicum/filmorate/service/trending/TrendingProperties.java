@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.service.trending;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки трендов (префикс {@code filmorate.trending}).
+ *
+ * @param checkpointInterval период записи контрольной точки; {@code 0} — только при остановке
+ */
+@ConfigurationProperties(prefix = "filmorate.trending")
+public record TrendingProperties(
+    @DefaultValue("./db/trending.checkpoint") Path checkpointPath,
+    @DefaultValue("5m") Duration checkpointInterval) {
+}
@@ -0,0 +1,180 @@
+package ru.yandex.practicum.filmorate.service.trending;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Счётчики лайков по времени для трендов.
+ *
+ * <p>Время делится на корзины по {@link #BUCKET} (5 минут); кольцо хранит корзины за самое
+ * длинное окно (7 дней), каждая корзина — разреженная карта filmId → лайки за этот интервал.
+ * Для каждого окна поддерживается сумма по входящим в него корзинам: лайк увеличивает
+ * текущую корзину и суммы всех окон, а при смене корзины из сумм вычитается корзина,
+ * вышедшая за границу окна. Поэтому топ окна считается по уже готовым суммам, без прохода
+ * по лайкам, а запись лайка стоит O(число окон).
+ *
+ * <p>Снятый лайк уменьшает текущую корзину: тренд — это прирост лайков за окно.
+ */
+public class TrendingTracker {
+
+  public static final Duration BUCKET = Duration.ofMinutes(5);
+
+  private static final long BUCKET_MS = BUCKET.toMillis();
+  private static final int RING_SIZE = (int) (TrendingWindow.WEEK.length().toMillis() / BUCKET_MS);
+
+  private static final Comparator<Map.Entry<Long, Integer>> RANKING =
+      Map.Entry.<Long, Integer>comparingByValue().reversed()
+          .thenComparing(Map.Entry.comparingByKey());
+
+  private final Clock clock;
+  private final long[] slotBucket = new long[RING_SIZE];
+  @SuppressWarnings("unchecked")
+  private final Map<Long, Integer>[] slots = new Map[RING_SIZE];
+  private final Map<TrendingWindow, Map<Long, Integer>> totals = new EnumMap<>(TrendingWindow.class);
+  private long currentBucket;
+
+  public TrendingTracker(Clock clock) {
+    this.clock = clock;
+    this.currentBucket = bucketOf(clock.millis());
+    for (TrendingWindow window : TrendingWindow.values()) {
+      totals.put(window, new HashMap<>());
+    }
+  }
+
+  public void record(long filmId, int delta) {
+    recordAt(filmId, clock.instant(), delta);
+  }
+
+  /** Учитывает лайк с известным временем (догрузка из БД); старше 7 дней — игнорируется. */
+  public synchronized void recordAt(long filmId, Instant at, int delta) {
+    advance(clock.millis());
+    final long bucket = bucketOf(at.toEpochMilli());
+    if (bucket > currentBucket) {
+      advance(at.toEpochMilli());
+    }
+    add(bucket, filmId, delta);
+  }
+
+  /** Фильмы окна по убыванию прироста лайков (при равенстве — по id); без лайков в окне не попадают. */
+  public synchronized List<Long> top(TrendingWindow window, int limit) {
+    advance(clock.millis());
+    final PriorityQueue<Map.Entry<Long, Integer>> heap = new PriorityQueue<>(limit + 1, RANKING.reversed());
+    for (Map.Entry<Long, Integer> entry : totals.get(window).entrySet()) {
+      if (entry.getValue() <= 0) {
+        continue;
+      }
+      heap.offer(entry);
+      if (heap.size() > limit) {
+        heap.poll();
+      }
+    }
+    final List<Map.Entry<Long, Integer>> best = new ArrayList<>(heap);
+    best.sort(RANKING);
+    return best.stream().map(Map.Entry::getKey).toList();
+  }
+
+  public synchronized void remove(long filmId) {
+    for (Map<Long, Integer> slot : slots) {
+      if (slot != null) {
+        slot.remove(filmId);
+      }
+    }
+    totals.values().forEach(windowTotals -> windowTotals.remove(filmId));
+  }
+
+  // ----------- контрольные точки (см. TrendingCheckpointer) -----------
+
+  /** Копия непустых корзин: номер корзины → (filmId → лайки). */
+  public synchronized Map<Long, Map<Long, Integer>> buckets() {
+    advance(clock.millis());
+    final Map<Long, Map<Long, Integer>> copy = new TreeMap<>();
+    for (int i = 0; i < RING_SIZE; i++) {
+      if (slots[i] != null && !slots[i].isEmpty()) {
+        copy.put(slotBucket[i], new HashMap<>(slots[i]));
+      }
+    }
+    return copy;
+  }
+
+  /** Добавляет корзины из контрольной точки к текущим счётчикам; устаревшие пропускаются. */
+  public synchronized void restore(Map<Long, Map<Long, Integer>> buckets) {
+    advance(clock.millis());
+    buckets.forEach((bucket, counts) -> {
+      if (bucket <= currentBucket) {
+        counts.forEach((filmId, count) -> add(bucket, filmId, count));
+      }
+    });
+  }
+
+  public static long bucketOf(long epochMillis) {
+    return Math.floorDiv(epochMillis, BUCKET_MS);
+  }
+
+  private void add(long bucket, long filmId, int delta) {
+    if (bucket <= currentBucket - RING_SIZE) {
+      return;
+    }
+    final int slot = slotOf(bucket);
+    if (slots[slot] == null || slotBucket[slot] != bucket) {
+      slots[slot] = new HashMap<>();
+      slotBucket[slot] = bucket;
+    }
+    slots[slot].merge(filmId, delta, TrendingTracker::sumOrRemove);
+    for (TrendingWindow window : TrendingWindow.values()) {
+      if (bucket > currentBucket - bucketsIn(window)) {
+        totals.get(window).merge(filmId, delta, TrendingTracker::sumOrRemove);
+      }
+    }
+  }
+
+  // Сдвигает текущую корзину; корзины, вышедшие за окно, вычитаются из его суммы
+  private void advance(long nowMillis) {
+    final long target = bucketOf(nowMillis);
+    if (target <= currentBucket) {
+      return;
+    }
+    if (target - currentBucket >= RING_SIZE) {
+      // простой дольше самого длинного окна — все счётчики устарели
+      Arrays.fill(slots, null);
+      totals.values().forEach(Map::clear);
+      currentBucket = target;
+      return;
+    }
+    while (currentBucket < target) {
+      currentBucket++;
+      for (TrendingWindow window : TrendingWindow.values()) {
+        final long expired = currentBucket - bucketsIn(window);
+        final Map<Long, Integer> slot = slots[slotOf(expired)];
+        if (slot != null && slotBucket[slotOf(expired)] == expired) {
+          final Map<Long, Integer> windowTotals = totals.get(window);
+          slot.forEach((filmId, count) -> windowTotals.merge(filmId, -count, TrendingTracker::sumOrRemove));
+        }
+      }
+      // слот самой старой корзины недели освобождается под новую
+      slots[slotOf(currentBucket)] = null;
+    }
+  }
+
+  private static int bucketsIn(TrendingWindow window) {
+    return (int) (window.length().toMillis() / BUCKET_MS);
+  }
+
+  private static int slotOf(long bucket) {
+    return (int) Math.floorMod(bucket, (long) RING_SIZE);
+  }
+
+  private static Integer sumOrRemove(Integer current, Integer delta) {
+    final int sum = current + delta;
+    return sum == 0 ? null : sum;
+  }
+}
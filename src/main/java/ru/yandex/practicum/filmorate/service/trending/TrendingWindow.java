@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.service.trending;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/** Окна трендов: 1h, 24h, 7d. */
+public enum TrendingWindow {
+  HOUR("1h", Duration.ofHours(1)),
+  DAY("24h", Duration.ofHours(24)),
+  WEEK("7d", Duration.ofDays(7));
+
+  private final String label;
+  private final Duration length;
+
+  TrendingWindow(String label, Duration length) {
+    this.label = label;
+    this.length = length;
+  }
+
+  public String label() {
+    return label;
+  }
+
+  public Duration length() {
+    return length;
+  }
+
+  public static Optional<TrendingWindow> fromLabel(String label) {
+    return Arrays.stream(values())
+        .filter(window -> window.label.equalsIgnoreCase(label))
+        .findFirst();
+  }
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Параллельная догрузка связанных данных пачки сущностей: один запрос {@link #fork уходит}
+ * в отдельный поток (со своим соединением), пока вызывающий поток выполняет другой, —
+ * задержка списка становится максимумом двух запросов, а не суммой.
+ *
+ * <p>Пул ограничен и по потокам, и по очереди; если очередь полна, а также внутри транзакции
+ * (отдельное соединение не увидит её незафиксированных изменений) задача выполняется
+ * в вызывающем потоке при {@link Forked#join}. Ожидание ограничено таймаутом от момента fork:
+ * по истечении вызывающий получает {@link QueryTimeoutException}, а задача отменяется без
+ * прерывания потока — прерывание посреди JDBC-вызова может закрыть соединение или файл БД.
+ * Сам запрос ограничивает таймаут выражения JDBC ({@link #withQueryTimeout}).
+ * {@link #SEQUENTIAL} всё выполняет в вызывающем потоке.
+ */
+@Slf4j
+public final class EnrichmentExecutor implements AutoCloseable {
+
+  public static final EnrichmentExecutor SEQUENTIAL = new EnrichmentExecutor(null, Duration.ZERO);
+
+  private final ThreadPoolExecutor executor;
+  private final Duration timeout;
+
+  private EnrichmentExecutor(ThreadPoolExecutor executor, Duration timeout) {
+    this.executor = executor;
+    this.timeout = timeout;
+  }
+
+  public static EnrichmentExecutor bounded(int threads, int queueCapacity, Duration timeout) {
+    final AtomicInteger counter = new AtomicInteger();
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), r -> {
+          final Thread thread = new Thread(r, "enrichment-" + counter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    return new EnrichmentExecutor(executor, timeout);
+  }
+
+  public <T> Forked<T> fork(Supplier<T> task) {
+    if (executor == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+      return new Forked<>(task, null, 0L);
+    }
+    try {
+      return new Forked<>(task, executor.submit(task::get), System.nanoTime() + timeout.toNanos());
+    } catch (RejectedExecutionException e) {
+      log.debug("Очередь догрузки заполнена — выполняем в потоке запроса");
+      return new Forked<>(task, null, 0L);
+    }
+  }
+
+  /**
+   * Шаблон для запросов задач fork: таймаут выражения JDBC равен таймауту ожидания (с округлением
+   * вверх до секунды), поэтому брошенный по таймауту запрос завершает сама БД и поток пула
+   * освобождается. Транзакции шаблон разделяет с исходным — источник данных тот же.
+   */
+  public JdbcTemplate withQueryTimeout(JdbcTemplate jdbcTemplate) {
+    if (executor == null || jdbcTemplate.getDataSource() == null) {
+      return jdbcTemplate;
+    }
+    final JdbcTemplate bounded = new JdbcTemplate(jdbcTemplate.getDataSource());
+    bounded.setFetchSize(jdbcTemplate.getFetchSize());
+    bounded.setMaxRows(jdbcTemplate.getMaxRows());
+    bounded.setQueryTimeout((int) Math.max(1L, (timeout.toMillis() + 999) / 1000));
+    return bounded;
+  }
+
+  // Запущенные задачи дорабатывают (их ограничивает таймаут запроса), новые не принимаются
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Запущенная задача. {@link #close} отменяет её, если результат так и не понадобился
+   * (например, параллельный запрос упал), — удобно в try-with-resources. Ещё не начатая задача
+   * так и не выполнится, начатая дорабатывает без прерывания.
+   */
+  public final class Forked<T> implements AutoCloseable {
+
+    private final Supplier<T> task;
+    private final Future<T> future;
+    private final long deadline;
+
+    private Forked(Supplier<T> task, Future<T> future, long deadline) {
+      this.task = task;
+      this.future = future;
+      this.deadline = deadline;
+    }
+
+    public T join() {
+      if (future == null) {
+        return task.get();
+      }
+      try {
+        return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        future.cancel(false);
+        throw new QueryTimeoutException("Догрузка не уложилась в " + timeout.toMillis() + " мс");
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        if (e.getCause() instanceof Error cause) {
+          throw cause;
+        }
+        throw new IllegalStateException(e.getCause());
+      } catch (InterruptedException e) {
+        future.cancel(false);
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Ожидание догрузки прервано", e);
+      }
+    }
+
+    @Override
+    public void close() {
+      if (future != null) {
+        future.cancel(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки параллельной догрузки (префикс {@code filmorate.storage.parallel-enrichment}).
+ *
+ * @param enabled       false — жанры и лайки догружаются последовательно в потоке запроса
+ * @param threads       потоков (и одновременно занятых ими соединений пула)
+ * @param queueCapacity задач в очереди; сверх неё догрузка идёт в потоке запроса
+ * @param timeout       сколько ждать параллельный запрос, считая время в очереди
+ */
+@ConfigurationProperties(prefix = "filmorate.storage.parallel-enrichment")
+public record EnrichmentProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("4") int threads,
+    @DefaultValue("32") int queueCapacity,
+    @DefaultValue("5s") Duration timeout) {
+}
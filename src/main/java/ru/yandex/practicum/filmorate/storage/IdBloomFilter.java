@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума по id: {@code false} — id точно не добавлялся, {@code true} — возможно добавлялся
+ * (ложноположительный ответ с вероятностью около заданной при числе id не больше ёмкости).
+ *
+ * <p>k позиций считаются двойным хешированием от одного 64-битного хеша id. Биты лежат
+ * в {@link AtomicLongArray}, поэтому добавление и проверка безопасны без блокировок.
+ */
+public final class IdBloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+
+  private IdBloomFilter(long bitCount, int hashCount) {
+    this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+    this.bitCount = (long) words.length() << 6;
+    this.hashCount = hashCount;
+  }
+
+  /** m = -n·ln(p)/ln²2 бит, k = m/n·ln2 хешей. */
+  public static IdBloomFilter forCapacity(long expectedIds, double falsePositiveRate) {
+    final long n = Math.max(1, expectedIds);
+    final long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    final int hashes = (int) Math.max(1, Math.round((double) bits / n * Math.log(2)));
+    return new IdBloomFilter(Math.max(64, bits), hashes);
+  }
+
+  public void add(long id) {
+    final long hash = mix(id);
+    final long h1 = hash;
+    final long h2 = (hash >>> 32) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      final long bit = Math.floorMod(h1 + i * h2, bitCount);
+      final int word = (int) (bit >>> 6);
+      final long mask = 1L << bit;
+      if ((words.get(word) & mask) == 0) {
+        words.getAndAccumulate(word, mask, (a, b) -> a | b);
+      }
+    }
+  }
+
+  public boolean mightContain(long id) {
+    final long hash = mix(id);
+    final long h1 = hash;
+    final long h2 = (hash >>> 32) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      final long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long bitCount() {
+    return bitCount;
+  }
+
+  // Финализатор MurmurHash3: последовательные id дают независимые позиции
+  private static long mix(long value) {
+    long h = value;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Проверка существования id без загрузки сущности: фильтр Блума отсекает заведомо
+ * несуществующие id, остальные подтверждаются точной проверкой в хранилище.
+ *
+ * <p>Фильтр строится один раз при старте по всем id ({@link #build}); до этого отвечает
+ * только точная проверка. Созданные id добавляются в фильтр ({@link #add}); id, созданные
+ * до публикации фильтра, копятся отдельно и попадают в него при сборке. Удаление фильтр
+ * не меняет — для удалённого id ответ «возможно», и его отсекает точная проверка.
+ * Ёмкость — двойное число id при старте; если id станет больше, растёт лишь доля точных
+ * проверок, до следующего рестарта.
+ *
+ * <p>Фильтр отвечает только за id не больше максимального на момент сборки: более поздние
+ * строки могли появиться в обход этого узла (на другом узле, прямым SQL), и для id выше
+ * этой отметки всегда выполняется точная проверка. Строку со «старым» id, вставленную
+ * в обход приложения уже после сборки, фильтр не увидит до рестарта.
+ */
+@Slf4j
+public final class IdExistenceIndex {
+
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+  private static final long MIN_CAPACITY = 1024;
+
+  private final String name;
+  private volatile IdBloomFilter filter;
+  // пишется до публикации filter и читается после него
+  private long highWater;
+  private List<Long> pending = new ArrayList<>();
+  private boolean building;
+
+  public IdExistenceIndex(String name) {
+    this.name = name;
+  }
+
+  public boolean exists(long id, LongPredicate exact) {
+    return mightExist(id) && exact.test(id);
+  }
+
+  /** {@code false} — id точно нет; {@code true} — нужна точная проверка. */
+  public boolean mightExist(long id) {
+    final IdBloomFilter current = filter;
+    return current == null || id > highWater || current.mightContain(id);
+  }
+
+  public void add(long id) {
+    final IdBloomFilter current = filter;
+    if (current != null) {
+      current.add(id);
+      return;
+    }
+    synchronized (this) {
+      if (filter == null) {
+        pending.add(id);
+        return;
+      }
+    }
+    filter.add(id);
+  }
+
+  /**
+   * Строит фильтр по всем существующим id; повторный или параллельный вызов ничего не делает.
+   * Запрос всех id идёт без монитора — {@link #add} на это время не блокируется, а его id копятся
+   * в pending и попадают в фильтр при публикации. Отметка — максимум из запроса, а не из pending:
+   * строка другого узла, вставленная после запроса, но с id меньше локально созданного,
+   * иначе оказалась бы под отметкой без бита в фильтре.
+   */
+  public void build(Supplier<long[]> allIds) {
+    synchronized (this) {
+      if (filter != null || building) {
+        return;
+      }
+      building = true;
+    }
+    final long[] ids;
+    try {
+      ids = allIds.get();
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        building = false;
+      }
+      throw e;
+    }
+    final IdBloomFilter built = IdBloomFilter.forCapacity(Math.max(MIN_CAPACITY, 2L * ids.length),
+        FALSE_POSITIVE_RATE);
+    long max = 0;
+    for (long id : ids) {
+      built.add(id);
+      max = Math.max(max, id);
+    }
+    synchronized (this) {
+      for (Long id : pending) {
+        built.add(id);
+      }
+      pending = null;
+      highWater = max;
+      filter = built;
+    }
+    log.info("Индекс существования {}: {} id до {}, {} бит", name, ids.length, max, built.bitCount());
+  }
+}
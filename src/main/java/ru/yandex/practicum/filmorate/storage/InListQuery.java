@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Запрос со списком id в {@code IN (...)} фиксированной длины.
+ *
+ * <p>Список (без повторов) режется на части не длиннее {@value #MAX_CHUNK}, и каждая часть
+ * дополняется повтором своего последнего id до ближайшего размера из {@link #BUCKETS}. Поэтому у
+ * запроса всего три варианта текста: подготовленные выражения и кэш разбора в БД
+ * переиспользуются, а число параметров ограничено при любой длине списка. Очень длинный
+ * список уходит несколькими запросами подряд. Все строки одного id приходят в одной части,
+ * так что ORDER BY внутри id сохраняется.
+ */
+public final class InListQuery {
+
+  /** Место списка в шаблоне: {@code ... WHERE id IN (:ids)}. */
+  public static final String IDS = ":ids";
+
+  static final int[] BUCKETS = {16, 64, 256};
+  static final int MAX_CHUNK = 256;
+
+  private final String[] sqlByBucket = new String[BUCKETS.length];
+
+  public InListQuery(String template) {
+    if (!template.contains(IDS)) {
+      throw new IllegalArgumentException("В шаблоне нет " + IDS + ": " + template);
+    }
+    for (int i = 0; i < BUCKETS.length; i++) {
+      sqlByBucket[i] = template.replace(IDS, String.join(", ", Collections.nCopies(BUCKETS[i], "?")));
+    }
+  }
+
+  public void query(JdbcTemplate jdbcTemplate, Collection<Long> ids, RowCallbackHandler handler) {
+    forEachChunk(ids, (sql, args) -> jdbcTemplate.query(sql, handler, args));
+  }
+
+  public <T> List<T> query(JdbcTemplate jdbcTemplate, Collection<Long> ids, RowMapper<T> mapper) {
+    final List<T> result = new ArrayList<>(ids.size());
+    forEachChunk(ids, (sql, args) -> result.addAll(jdbcTemplate.query(sql, mapper, args)));
+    return result;
+  }
+
+  public int update(JdbcTemplate jdbcTemplate, Collection<Long> ids) {
+    final int[] updated = {0};
+    forEachChunk(ids, (sql, args) -> updated[0] += jdbcTemplate.update(sql, args));
+    return updated[0];
+  }
+
+  void forEachChunk(Collection<Long> ids, BiConsumer<String, Object[]> action) {
+    final Long[] distinct = new LinkedHashSet<>(ids).toArray(Long[]::new);
+    for (int from = 0; from < distinct.length; from += MAX_CHUNK) {
+      final int size = Math.min(MAX_CHUNK, distinct.length - from);
+      int bucket = 0;
+      while (BUCKETS[bucket] < size) {
+        bucket++;
+      }
+      final Object[] args = new Object[BUCKETS[bucket]];
+      System.arraycopy(distinct, from, args, 0, size);
+      Arrays.fill(args, size, args.length, distinct[from + size - 1]);
+      action.accept(sqlByBucket[bucket], args);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Карта идентичности в пределах одного HTTP-запроса: повторное чтение того же id отдаёт
+ * экземпляр, загруженный первым, а запись обновляет его вместо перечитывания из БД.
+ *
+ * <p>Карта живёт в атрибутах текущего запроса ({@link RequestContextHolder}) и исчезает вместе
+ * с ним. Вне запроса (фоновые задачи, старт, тесты хранилищ) все методы прозрачны: чтение идёт
+ * в загрузчик, запись ничего не делает. Экземпляры из карты принадлежат запросу — сервисы их
+ * не меняют, а хранилище меняет только вместе с записью в БД. Другим потокам они не отдаются:
+ * результат, общий для нескольких запросов (SingleFlight), читается мимо карты.
+ */
+public final class RequestIdentityMap<T> {
+
+  private final String attribute;
+
+  public RequestIdentityMap(String name) {
+    this.attribute = RequestIdentityMap.class.getName() + "." + name;
+  }
+
+  public Optional<T> find(long id, LongFunction<Optional<T>> loader) {
+    final Map<Long, T> loaded = current(true);
+    if (loaded == null) {
+      return loader.apply(id);
+    }
+    final T cached = loaded.get(id);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    final Optional<T> result = loader.apply(id);
+    result.ifPresent(entity -> loaded.put(id, entity));
+    return result;
+  }
+
+  /** Отдаёт найденные в карте, остальные догружает одним вызовом загрузчика и запоминает. */
+  public List<T> findAll(Collection<Long> ids, Function<List<Long>, List<T>> loader, ToLongFunction<T> idOf) {
+    final Map<Long, T> loaded = current(true);
+    if (loaded == null) {
+      return loader.apply(List.copyOf(new LinkedHashSet<>(ids)));
+    }
+    final List<T> result = new ArrayList<>(ids.size());
+    final List<Long> missing = new ArrayList<>();
+    for (Long id : new LinkedHashSet<>(ids)) {
+      final T cached = loaded.get(id);
+      if (cached != null) {
+        result.add(cached);
+      } else {
+        missing.add(id);
+      }
+    }
+    if (!missing.isEmpty()) {
+      for (T entity : loader.apply(missing)) {
+        loaded.put(idOf.applyAsLong(entity), entity);
+        result.add(entity);
+      }
+    }
+    return result;
+  }
+
+  public boolean contains(long id) {
+    final Map<Long, T> loaded = current(false);
+    return loaded != null && loaded.containsKey(id);
+  }
+
+  public void put(long id, T entity) {
+    final Map<Long, T> loaded = current(true);
+    if (loaded != null) {
+      loaded.put(id, entity);
+    }
+  }
+
+  /** Применяет изменение к экземпляру в карте, если он уже загружен в этом запросе. */
+  public void update(long id, Consumer<T> change) {
+    final Map<Long, T> loaded = current(false);
+    final T cached = loaded == null ? null : loaded.get(id);
+    if (cached != null) {
+      change.accept(cached);
+    }
+  }
+
+  public void evict(long id) {
+    final Map<Long, T> loaded = current(false);
+    if (loaded != null) {
+      loaded.remove(id);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<Long, T> current(boolean create) {
+    final RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (request == null) {
+      return null;
+    }
+    Map<Long, T> loaded = (Map<Long, T>) request.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+    if (loaded == null && create) {
+      loaded = new HashMap<>();
+      request.setAttribute(attribute, loaded, RequestAttributes.SCOPE_REQUEST);
+    }
+    return loaded;
+  }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.storage.card;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.FilmCard;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.InListQuery;
+
+/**
+ * Карточки в таблице film_cards: одна строка на фильм с уже собранными именем рейтинга,
+ * жанрами (id и имена через запятую, по возрастанию id) и числом лайков. Любая страница
+ * списка — один запрос по первичному ключу или индексу idx_film_cards_popular.
+ */
+@Repository
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "db", matchIfMissing = true)
+@RequiredArgsConstructor
+public class FilmCardDbStorage implements FilmCardStorage {
+
+  private static final String CARD_SELECT =
+      "SELECT id, name, mpa_name, genre_ids, genre_names, likes_count, release_year FROM film_cards ";
+
+  private static final String CARD_COLUMNS = "id, name, mpa_name, genre_ids, genre_names, likes_count, release_year";
+
+  // Карточка целиком из исходных таблиц; жанры и лайки — коррелированными подзапросами по индексам
+  private static final String PROJECTION_SQL = "SELECT f.id, f.name, m.name, "
+      + "(SELECT LISTAGG(CAST(g.id AS VARCHAR), ',') WITHIN GROUP (ORDER BY g.id) "
+      + "FROM film_genres fg JOIN genres g ON g.id = fg.genre_id WHERE fg.film_id = f.id), "
+      + "(SELECT LISTAGG(g.name, ',') WITHIN GROUP (ORDER BY g.id) "
+      + "FROM film_genres fg JOIN genres g ON g.id = fg.genre_id WHERE fg.film_id = f.id), "
+      + "(SELECT COUNT(*) FROM film_likes l WHERE l.film_id = f.id), "
+      + "EXTRACT(YEAR FROM f.release_date) "
+      + "FROM films f JOIN mpa_ratings m ON m.id = f.mpa_id ";
+
+  private static final String PROJECT_SQL = "INSERT INTO film_cards (" + CARD_COLUMNS + ") " + PROJECTION_SQL;
+
+  // Расхождение в любую сторону: нет карточки, лишняя карточка или карточка с устаревшими данными
+  private static final String STALE_SQL = "SELECT EXISTS (" + PROJECTION_SQL
+      + "EXCEPT SELECT " + CARD_COLUMNS + " FROM film_cards) "
+      + "OR EXISTS (SELECT " + CARD_COLUMNS + " FROM film_cards EXCEPT " + PROJECTION_SQL + ")";
+
+  // Списки id — частями фиксированной длины (см. InListQuery)
+  private static final InListQuery CARDS_BY_IDS = new InListQuery(CARD_SELECT + "WHERE id IN (:ids)");
+
+  private static final InListQuery DELETE_CARDS = new InListQuery("DELETE FROM film_cards WHERE id IN (:ids)");
+
+  private static final InListQuery PROJECT_CARDS = new InListQuery(PROJECT_SQL + "WHERE f.id IN (:ids)");
+
+  private static final RowMapper<FilmCard> CARD_MAPPER = (rs, rowNum) -> new FilmCard(
+      rs.getLong("id"),
+      rs.getString("name"),
+      rs.getString("mpa_name"),
+      genres(rs.getString("genre_ids"), rs.getString("genre_names")),
+      rs.getInt("likes_count"),
+      rs.getObject("release_year", Integer.class));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public List<FilmCard> findPage(long afterId, int limit) {
+    return jdbcTemplate.query(CARD_SELECT + "WHERE id > ? ORDER BY id LIMIT ?", CARD_MAPPER, afterId, limit);
+  }
+
+  @Override
+  public List<FilmCard> findMostPopular(int limit) {
+    return jdbcTemplate.query(CARD_SELECT + "ORDER BY likes_count DESC, id LIMIT ?", CARD_MAPPER, limit);
+  }
+
+  @Override
+  public List<FilmCard> findByIds(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return CARDS_BY_IDS.query(jdbcTemplate, ids, CARD_MAPPER);
+  }
+
+  @Override
+  @Transactional
+  public void refresh(Collection<Long> filmIds) {
+    if (filmIds.isEmpty()) {
+      return;
+    }
+    DELETE_CARDS.update(jdbcTemplate, filmIds);
+    PROJECT_CARDS.update(jdbcTemplate, filmIds);
+  }
+
+  @Override
+  @Transactional
+  public int rebuild() {
+    jdbcTemplate.update("DELETE FROM film_cards");
+    return jdbcTemplate.update(PROJECT_SQL);
+  }
+
+  @Override
+  public boolean isStale() {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject(STALE_SQL, Boolean.class));
+  }
+
+  // Имена жанров не содержат запятых: справочник задаётся в data.sql
+  private static List<Genre> genres(String ids, String names) {
+    if (ids == null || ids.isEmpty()) {
+      return List.of();
+    }
+    final String[] idParts = ids.split(",");
+    final String[] nameParts = names == null ? new String[0] : names.split(",");
+    final List<Genre> genres = new ArrayList<>(idParts.length);
+    for (int i = 0; i < idParts.length; i++) {
+      genres.add(new Genre(Integer.parseInt(idParts[i]), i < nameParts.length ? nameParts[i] : null));
+    }
+    return genres;
+  }
+}
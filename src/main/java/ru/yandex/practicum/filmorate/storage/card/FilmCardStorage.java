@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage.card;
+
+import java.util.Collection;
+import java.util.List;
+import ru.yandex.practicum.filmorate.model.FilmCard;
+
+/** Хранилище карточек фильмов — модели чтения для списков. */
+public interface FilmCardStorage {
+
+  /** Карточки с id больше {@code afterId} по возрастанию id (постраничный обход по ключу). */
+  List<FilmCard> findPage(long afterId, int limit);
+
+  /** Карточки по убыванию числа лайков, при равенстве — по id. */
+  List<FilmCard> findMostPopular(int limit);
+
+  /** Карточки найденных id в произвольном порядке; отсутствующие пропускаются. */
+  List<FilmCard> findByIds(Collection<Long> ids);
+
+  /** Пересчитывает карточки фильмов по текущему состоянию; карточки удалённых фильмов убирает. */
+  void refresh(Collection<Long> filmIds);
+
+  /** Пересобирает все карточки; возвращает их число. */
+  int rebuild();
+
+  /**
+   * {@code true}, если карточки расходятся с исходными таблицами: не хватает карточек, есть лишние
+   * или устарели имя, жанры, лайки (новая таблица, очередь, потерянная при остановке или сбое).
+   * Читает все фильмы и лайки — вызывать при старте, а не на каждом запросе.
+   */
+  boolean isStale();
+}
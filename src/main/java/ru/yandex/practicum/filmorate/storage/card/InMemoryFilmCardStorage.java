@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.storage.card;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCard;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+/**
+ * Карточки для in-memory режима: собираются из фильмов при чтении — отдельная модель
+ * чтения не нужна, фильмы и так в памяти. Обновлять и пересобирать нечего.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryFilmCardStorage implements FilmCardStorage {
+
+  private final FilmStorage filmStorage;
+
+  @Override
+  public List<FilmCard> findPage(long afterId, int limit) {
+    return filmStorage.findAll().stream()
+        .filter(film -> film.getId() > afterId)
+        .sorted(Comparator.comparing(Film::getId))
+        .limit(limit)
+        .map(FilmCard::from)
+        .toList();
+  }
+
+  @Override
+  public List<FilmCard> findMostPopular(int limit) {
+    return filmStorage.findMostPopular(limit).stream().map(FilmCard::from).toList();
+  }
+
+  @Override
+  public List<FilmCard> findByIds(Collection<Long> ids) {
+    return filmStorage.findByIds(ids).stream().map(FilmCard::from).toList();
+  }
+
+  @Override
+  public void refresh(Collection<Long> filmIds) {
+  }
+
+  @Override
+  public int rebuild() {
+    return 0;
+  }
+
+  @Override
+  public boolean isStale() {
+    return false;
+  }
+}
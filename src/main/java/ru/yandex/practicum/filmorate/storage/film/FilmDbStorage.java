@@ -1,35 +1,78 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import java.sql.Date;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Primary;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.invalidation.EntityChangedEvent;
+import ru.yandex.practicum.filmorate.invalidation.EntityType;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LongSet;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.EnrichmentExecutor;
+import ru.yandex.practicum.filmorate.storage.IdExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.InListQuery;
+import ru.yandex.practicum.filmorate.storage.RequestIdentityMap;
 
 /** JDBC implementation of {@link FilmStorage}. */
 @Repository
-@Primary
-@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "db", matchIfMissing = true)
 public class FilmDbStorage implements FilmStorage {
 
   private static final String FILM_SELECT = "SELECT f.id, f.name, f.description, f.release_date, "
       + "f.duration, f.mpa_id, m.name AS mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_id = m.id ";
+
+  // Списки id — частями фиксированной длины (см. InListQuery)
+  private static final InListQuery FILMS_BY_IDS = new InListQuery(FILM_SELECT + "WHERE f.id IN (:ids)");
+
+  private static final InListQuery EXISTING_IDS = new InListQuery("SELECT id FROM films WHERE id IN (:ids)");
+
+  private static final InListQuery GENRES_BY_FILMS = new InListQuery("SELECT fg.film_id, g.id, g.name "
+      + "FROM film_genres fg JOIN genres g ON fg.genre_id = g.id "
+      + "WHERE fg.film_id IN (:ids) ORDER BY fg.film_id, g.id");
+
+  private static final InListQuery LIKES_BY_FILMS = new InListQuery(
+      "SELECT film_id, user_id FROM film_likes WHERE film_id IN (:ids) ORDER BY film_id, user_id");
+
+  private static final String POPULAR_SQL = FILM_SELECT
+      + "LEFT JOIN (SELECT film_id, COUNT(*) AS likes_count FROM film_likes GROUP BY film_id) fl "
+      + "ON f.id = fl.film_id "
+      + "ORDER BY COALESCE(fl.likes_count, 0) DESC, f.id ASC LIMIT ?";
+
+  // вставка без исключения на дубликате: счётчик строк батча показывает, добавился ли лайк
+  private static final String INSERT_LIKE_IF_ABSENT_SQL = "INSERT INTO film_likes (film_id, user_id) "
+      + "SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)";
+
+  private static final String DELETE_LIKE_SQL = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
 
   private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> {
     final Film film = new Film();
@@ -46,6 +89,55 @@ public class FilmDbStorage implements FilmStorage {
   };
 
   private final JdbcTemplate jdbcTemplate;
+  // лайки догружаются через fork: запрос ограничен таймаутом догрузки
+  private final JdbcTemplate forkedJdbcTemplate;
+  private final ApplicationEventPublisher events;
+  private final SimpleJdbcInsert filmInsert;
+  // вложенная транзакция: внутри внешней — точка сохранения, откат не задевает остальное
+  private final TransactionTemplate nested;
+  private final EnrichmentExecutor enrichment;
+  private final IdExistenceIndex idIndex = new IdExistenceIndex("films");
+  private final RequestIdentityMap<Film> identityMap = new RequestIdentityMap<>("films");
+  private final Map<String, Map<Integer, String>> referenceNames = new ConcurrentHashMap<>();
+
+  // Метаданные вставки (столбцы, ключ) читаются один раз при первом create, а не на каждый вызов
+  public FilmDbStorage(JdbcTemplate jdbcTemplate, ApplicationEventPublisher events, EnrichmentExecutor enrichment) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.events = events;
+    this.enrichment = enrichment;
+    this.forkedJdbcTemplate = enrichment.withQueryTimeout(jdbcTemplate);
+    this.filmInsert = new SimpleJdbcInsert(jdbcTemplate)
+        .withTableName("films")
+        .usingGeneratedKeyColumns("id");
+    this.nested = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    nested.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+  }
+
+  // Без бина EnrichmentExecutor (по умолчанию и в срезах @JdbcTest) догрузка последовательная
+  @Autowired
+  public FilmDbStorage(JdbcTemplate jdbcTemplate, ApplicationEventPublisher events,
+      ObjectProvider<EnrichmentExecutor> enrichment) {
+    this(jdbcTemplate, events, enrichment.getIfAvailable(() -> EnrichmentExecutor.SEQUENTIAL));
+  }
+
+  // Фильтр id строится после старта; до этого exists отвечает точным запросом
+  @EventListener(ApplicationReadyEvent.class)
+  public void buildIdIndex() {
+    idIndex.build(() -> {
+      final LongSet ids = new LongSet();
+      jdbcTemplate.query("SELECT id FROM films ORDER BY id", (RowCallbackHandler) rs -> ids.add(rs.getLong(1)));
+      return ids.toLongArray();
+    });
+  }
+
+  // Изменения с других узлов (см. invalidation.InvalidationBus): фильм, созданный там,
+  // должен пройти фильтр существования и здесь
+  @EventListener(condition = "#event.remote()")
+  public void onRemoteChange(EntityChangedEvent event) {
+    if (event.type() == EntityType.FILM) {
+      idIndex.add(event.id());
+    }
+  }
 
   @Override
   public List<Film> findAll() {
@@ -54,21 +146,67 @@ public class FilmDbStorage implements FilmStorage {
     return films;
   }
 
+  // Повторное чтение в том же запросе отдаёт уже загруженный фильм
+  @Override
+  public Optional<Film> findById(long id) {
+    return identityMap.find(id, this::loadById);
+  }
+
+  @Override
+  public Optional<Film> findDetached(long id) {
+    return loadById(id);
+  }
+
   @Override
-  public Film getById(long id) {
-    final List<Film> films = jdbcTemplate.query(FILM_SELECT + "WHERE f.id = ?", FILM_MAPPER, id);
+  public List<Film> findByIds(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return identityMap.findAll(ids, this::loadByIds, Film::getId);
+  }
+
+  private Optional<Film> loadById(long id) {
+    // заведомо несуществующий id (перебор случайных id) не доходит до БД
+    if (!idIndex.mightExist(id)) {
+      return Optional.empty();
+    }
+    final List<Film> films = jdbcTemplate.query(FILM_SELECT + "WHERE f.id = ?", FILM_MAPPER, id);
     if (films.isEmpty()) {
-      throw new NotFoundException("Фильм с id=" + id + " не найден.");
+      return Optional.empty();
     }
-    enrichFilms(films);
-    return films.get(0);
+    enrichFilms(films);
+    return Optional.of(films.get(0));
+  }
+
+  private List<Film> loadByIds(List<Long> distinctIds) {
+    final List<Film> films = FILMS_BY_IDS.query(jdbcTemplate, distinctIds, FILM_MAPPER);
+    enrichFilms(films);
+    return films;
+  }
+
+  @Override
+  public Set<Long> findExistingIds(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return new HashSet<>();
+    }
+    // заведомо несуществующие id в запрос не попадают
+    final List<Long> distinctIds = ids.stream().distinct().filter(idIndex::mightExist).toList();
+    if (distinctIds.isEmpty()) {
+      return new HashSet<>();
+    }
+    return new HashSet<>(EXISTING_IDS.query(jdbcTemplate, distinctIds, (rs, rowNum) -> rs.getLong(1)));
+  }
+
+  // Заведомо несуществующие id отсекает фильтр Блума, остальные подтверждаются запросом
+  @Override
+  public boolean exists(long id) {
+    return identityMap.contains(id) || idIndex.exists(id, this::existsInDb);
   }
 
+  // Одна транзакция на запись; результат собирается из записанного, без повторного чтения
   @Override
+  @Transactional
   public Film create(Film film) {
-    final SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate)
-        .withTableName("films")
-        .usingGeneratedKeyColumns("id");
     final Map<String, Object> values = new LinkedHashMap<>(5);
     values.put("name", film.getName());
     values.put("description", film.getDescription());
@@ -76,14 +214,17 @@ public class FilmDbStorage implements FilmStorage {
         film.getReleaseDate() == null ? null : Date.valueOf(film.getReleaseDate()));
     values.put("duration", film.getDuration());
     values.put("mpa_id", film.getMpa().getId());
-    final Number id = insert.executeAndReturnKey(values);
+    final Number id = filmInsert.executeAndReturnKey(values);
     film.setId(id.longValue());
-    updateGenres(film);
-    updateLikes(film);
-    return getById(film.getId());
+    idIndex.add(film.getId());
+    insertGenres(film);
+    insertLikes(film);
+    events.publishEvent(EntityChangedEvent.local(EntityType.FILM, film.getId()));
+    return assembled(film);
   }
 
   @Override
+  @Transactional
   public Film update(Film film) {
     final String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, "
         + "mpa_id = ? WHERE id = ?";
@@ -97,9 +238,11 @@ public class FilmDbStorage implements FilmStorage {
     if (updated == 0) {
       throw new NotFoundException("Фильм с id=" + film.getId() + " не найден.");
     }
-    updateGenres(film);
-    updateLikes(film);
-    return getById(film.getId());
+    jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
+    insertGenres(film);
+    syncLikes(film);
+    events.publishEvent(EntityChangedEvent.local(EntityType.FILM, film.getId()));
+    return assembled(film);
   }
 
   @Override
@@ -108,21 +251,142 @@ public class FilmDbStorage implements FilmStorage {
     if (deleted == 0) {
       throw new NotFoundException("Фильм с id=" + id + " не найден.");
     }
+    identityMap.evict(id);
+    events.publishEvent(EntityChangedEvent.local(EntityType.FILM, id));
+  }
+
+  @Override
+  public boolean addLike(long filmId, long userId) {
+    try {
+      final boolean added =
+          jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", filmId, userId) > 0;
+      if (added) {
+        identityMap.update(filmId, film -> film.getLikes().add(userId));
+        events.publishEvent(EntityChangedEvent.local(EntityType.LIKE, filmId));
+      }
+      return added;
+    } catch (DuplicateKeyException e) {
+      // лайк уже стоит (в том числе гонка двух одновременных запросов)
+      return false;
+    }
+  }
+
+  @Override
+  public boolean removeLike(long filmId, long userId) {
+    final boolean removed = jdbcTemplate.update(DELETE_LIKE_SQL, filmId, userId) > 0;
+    if (removed) {
+      identityMap.update(filmId, film -> film.getLikes().remove(userId));
+      events.publishEvent(EntityChangedEvent.local(EntityType.LIKE, filmId));
+    }
+    return removed;
+  }
+
+  // Весь пакет — одной транзакцией. Если её сорвал параллельный запрос (тот же лайк уже вставлен
+  // другим пакетом или фильм удалён после проверки), пакет откатывается целиком и повторяется
+  // по одному лайку: сорвавшийся лайк получает UNCHANGED или FILM_NOT_FOUND, а не 500 на весь пакет
+  @Override
+  public LikeChanges applyLikes(long userId, Collection<Long> add, Collection<Long> remove) {
+    final List<Long> toAdd = add.stream().distinct().toList();
+    final List<Long> toRemove = remove.stream().distinct().toList();
+    final Set<Long> added = new LinkedHashSet<>();
+    final Set<Long> removed = new LinkedHashSet<>();
+    final Set<Long> missing = new LinkedHashSet<>();
+    try {
+      nested.executeWithoutResult(status -> applyBatch(userId, toAdd, toRemove, added, removed));
+    } catch (DataIntegrityViolationException e) {
+      added.clear();
+      removed.clear();
+      for (Long filmId : toAdd) {
+        try {
+          if (Boolean.TRUE.equals(nested.execute(status ->
+              jdbcTemplate.update(INSERT_LIKE_IF_ABSENT_SQL, filmId, userId, filmId, userId) > 0))) {
+            added.add(filmId);
+          }
+        } catch (DuplicateKeyException duplicate) {
+          // тот же лайк только что поставил параллельный запрос
+        } catch (DataIntegrityViolationException deleted) {
+          missing.add(filmId);
+        }
+      }
+      for (Long filmId : toRemove) {
+        if (jdbcTemplate.update(DELETE_LIKE_SQL, filmId, userId) > 0) {
+          removed.add(filmId);
+        }
+      }
+    }
+    added.forEach(filmId -> identityMap.update(filmId, film -> film.getLikes().add(userId)));
+    removed.forEach(filmId -> identityMap.update(filmId, film -> film.getLikes().remove(userId)));
+    added.forEach(filmId -> events.publishEvent(EntityChangedEvent.local(EntityType.LIKE, filmId)));
+    removed.forEach(filmId -> events.publishEvent(EntityChangedEvent.local(EntityType.LIKE, filmId)));
+    return new LikeChanges(added, removed, missing);
+  }
+
+  private void applyBatch(long userId, List<Long> toAdd, List<Long> toRemove, Set<Long> added,
+      Set<Long> removed) {
+    if (!toAdd.isEmpty()) {
+      final int[] counts = jdbcTemplate.batchUpdate(INSERT_LIKE_IF_ABSENT_SQL,
+          toAdd.stream().map(filmId -> new Object[]{filmId, userId, filmId, userId}).toList());
+      collectChanged(toAdd, counts, added);
+    }
+    if (!toRemove.isEmpty()) {
+      final int[] counts = jdbcTemplate.batchUpdate(DELETE_LIKE_SQL,
+          toRemove.stream().map(filmId -> new Object[]{filmId, userId}).toList());
+      collectChanged(toRemove, counts, removed);
+    }
+  }
+
+  private static void collectChanged(List<Long> filmIds, int[] counts, Set<Long> changed) {
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        changed.add(filmIds.get(i));
+      }
+    }
   }
 
   @Override
-  public List<Film> findMostPopular(int limit) {
+  public List<Film> findMostPopular(PopularQuery query) {
     final int normalizedLimit =
-        limit <= 0 ? FilmStorage.DEFAULT_POPULAR_LIMIT : limit;
-    final String sql = FILM_SELECT
-        + "LEFT JOIN (SELECT film_id, COUNT(*) AS likes_count FROM film_likes GROUP BY film_id) fl "
-        + "ON f.id = fl.film_id "
-        + "ORDER BY COALESCE(fl.likes_count, 0) DESC, f.id ASC LIMIT ?";
-    final List<Film> films = jdbcTemplate.query(sql, FILM_MAPPER, normalizedLimit);
+        query.limit() <= 0 ? FilmStorage.DEFAULT_POPULAR_LIMIT : query.limit();
+    final List<Film> films = query.isFiltered()
+        ? findMostPopularFiltered(query, normalizedLimit)
+        : jdbcTemplate.query(POPULAR_SQL, FILM_MAPPER, normalizedLimit);
     enrichFilms(films);
     return films;
   }
 
+  // Сначала сужаем множество фильмов по индексам фильтров (film_genres(genre_id, film_id),
+  // films(release_date), films(mpa_id)), и только для кандидатов считаем лайки коррелированным
+  // подзапросом по первичному ключу film_likes(film_id, user_id) — без полного прохода по лайкам.
+  private List<Film> findMostPopularFiltered(PopularQuery query, int limit) {
+    final StringBuilder sql = new StringBuilder(
+        "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name AS mpa_name, "
+            + "(SELECT COUNT(*) FROM film_likes l WHERE l.film_id = f.id) AS likes_count ");
+    final List<Object> args = new ArrayList<>(5);
+    if (query.genreId() != null) {
+      sql.append("FROM film_genres fg JOIN films f ON f.id = fg.film_id ");
+    } else {
+      sql.append("FROM films f ");
+    }
+    sql.append("JOIN mpa_ratings m ON f.mpa_id = m.id WHERE 1 = 1 ");
+    if (query.genreId() != null) {
+      sql.append("AND fg.genre_id = ? ");
+      args.add(query.genreId());
+    }
+    if (query.year() != null) {
+      // диапазон по дате, а не EXTRACT(YEAR ...), чтобы работал индекс по release_date
+      sql.append("AND f.release_date >= ? AND f.release_date < ? ");
+      args.add(Date.valueOf(LocalDate.of(query.year(), 1, 1)));
+      args.add(Date.valueOf(LocalDate.of(query.year() + 1, 1, 1)));
+    }
+    if (query.mpaId() != null) {
+      sql.append("AND f.mpa_id = ? ");
+      args.add(query.mpaId());
+    }
+    sql.append("ORDER BY likes_count DESC, f.id ASC LIMIT ?");
+    args.add(limit);
+    return jdbcTemplate.query(sql.toString(), FILM_MAPPER, args.toArray());
+  }
+
   private void enrichFilms(List<Film> films) {
     if (films.isEmpty()) {
       return;
@@ -131,14 +395,22 @@ public class FilmDbStorage implements FilmStorage {
         .map(Film::getId)
         .distinct()
         .toList();
-    final Map<Long, Set<Genre>> genresByFilm = loadGenres(filmIds);
-    final Map<Long, Set<Long>> likesByFilm = loadLikes(filmIds);
+    // лайки — параллельно в отдельном соединении, если включено (filmorate.storage.parallel-enrichment)
+    final Map<Long, Set<Genre>> genresByFilm;
+    final Map<Long, LongSet> likesByFilm;
+    try (EnrichmentExecutor.Forked<Map<Long, LongSet>> likes = enrichment.fork(() -> loadLikes(filmIds))) {
+      genresByFilm = loadGenres(filmIds);
+      likesByFilm = likes.join();
+    }
     for (Film film : films) {
       final long filmId = film.getId();
       film.setGenres(genresByFilm.getOrDefault(filmId, Collections.emptySet()));
 
       film.getLikes().clear();
-      film.getLikes().addAll(likesByFilm.getOrDefault(filmId, Collections.emptySet()));
+      final LongSet likes = likesByFilm.get(filmId);
+      if (likes != null) {
+        film.getLikes().addAll(likes);
+      }
     }
   }
 
@@ -146,50 +418,62 @@ public class FilmDbStorage implements FilmStorage {
     if (filmIds.isEmpty()) {
       return Collections.emptyMap();
     }
-    final String placeholders = buildPlaceholders(filmIds.size());
-    final String sql =
-        "SELECT fg.film_id, g.id, g.name FROM film_genres fg "
-            + "JOIN genres g ON fg.genre_id = g.id "
-            + "WHERE fg.film_id IN (" + placeholders + ") ORDER BY fg.film_id, g.id";
-    return jdbcTemplate.query(sql, this::extractGenres, filmIds.toArray(Object[]::new));
+    final Map<Long, Set<Genre>> result = new HashMap<>();
+    GENRES_BY_FILMS.query(jdbcTemplate, filmIds, (RowCallbackHandler) rs -> result
+        .computeIfAbsent(rs.getLong("film_id"), key -> new LinkedHashSet<>())
+        .add(new Genre(rs.getInt("id"), rs.getString("name"))));
+    return result;
   }
 
-  private Map<Long, Set<Long>> loadLikes(List<Long> filmIds) {
+  private Map<Long, LongSet> loadLikes(List<Long> filmIds) {
     if (filmIds.isEmpty()) {
       return Collections.emptyMap();
     }
-    final String placeholders = buildPlaceholders(filmIds.size());
-    final String sql = "SELECT film_id, user_id FROM film_likes WHERE film_id IN ("
-        + placeholders + ") ORDER BY film_id, user_id";
-    return jdbcTemplate.query(sql, this::extractLikes, filmIds.toArray(Object[]::new));
-  }
-
-  private Map<Long, Set<Genre>> extractGenres(ResultSet rs) throws SQLException {
-    final Map<Long, Set<Genre>> result = new LinkedHashMap<>();
-    while (rs.next()) {
-      final long filmId = rs.getLong("film_id");
-      result.computeIfAbsent(filmId, key -> new LinkedHashSet<>())
-          .add(new Genre(rs.getInt("id"), rs.getString("name")));
-    }
+    // ORDER BY user_id: id приходят по возрастанию и дописываются в конец LongSet без сдвигов
+    final Map<Long, LongSet> result = new HashMap<>();
+    LIKES_BY_FILMS.query(forkedJdbcTemplate, filmIds, (RowCallbackHandler) rs -> result
+        .computeIfAbsent(rs.getLong("film_id"), key -> new LongSet())
+        .add(rs.getLong("user_id")));
     return result;
   }
 
-  private Map<Long, Set<Long>> extractLikes(ResultSet rs) throws SQLException {
-    final Map<Long, Set<Long>> result = new LinkedHashMap<>();
-    while (rs.next()) {
-      final long filmId = rs.getLong("film_id");
-      result.computeIfAbsent(filmId, key -> new LinkedHashSet<>())
-          .add(rs.getLong("user_id"));
-    }
-    return result;
+  private boolean existsInDb(long id) {
+    return Boolean.TRUE.equals(
+        jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM films WHERE id = ?)", Boolean.class, id));
   }
 
-  private String buildPlaceholders(int size) {
-    return String.join(", ", Collections.nCopies(size, "?"));
+  // Записанный фильм в том виде, в каком его вернуло бы чтение: жанры по id с именами,
+  // имя рейтинга — из справочников; попадает в карту идентичности запроса
+  private Film assembled(Film film) {
+    final Map<Integer, String> genreNames = referenceNames("genres");
+    final Set<Genre> genres = new LinkedHashSet<>();
+    if (film.getGenres() != null) {
+      film.getGenres().stream()
+          .filter(genre -> genre != null && genre.getId() != null)
+          .map(Genre::getId)
+          .distinct()
+          .sorted()
+          .forEach(genreId -> genres.add(new Genre(genreId, genreNames.get(genreId))));
+    }
+    film.setGenres(genres);
+    final Integer mpaId = film.getMpa().getId();
+    film.setMpa(new Mpa(mpaId, referenceNames("mpa_ratings").get(mpaId)));
+    identityMap.put(film.getId(), film);
+    return film;
   }
 
-  private void updateGenres(Film film) {
-    jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
+  // Справочники жанров и рейтингов заполняются при инициализации схемы и не меняются;
+  // внешние ключи film_genres и films.mpa_id не дают записать id не из справочника
+  private Map<Integer, String> referenceNames(String table) {
+    return referenceNames.computeIfAbsent(table, key -> {
+      final Map<Integer, String> names = new HashMap<>();
+      jdbcTemplate.query("SELECT id, name FROM " + key,
+          (RowCallbackHandler) rs -> names.put(rs.getInt("id"), rs.getString("name")));
+      return Map.copyOf(names);
+    });
+  }
+
+  private void insertGenres(Film film) {
     final Set<Genre> genres = film.getGenres();
     if (genres == null || genres.isEmpty()) {
       return;
@@ -210,21 +494,42 @@ public class FilmDbStorage implements FilmStorage {
     }
   }
 
-  private void updateLikes(Film film) {
-    jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ?", film.getId());
-    final Set<Long> likes = film.getLikes();
-    if (likes == null || likes.isEmpty()) {
+  // Лайки обновляемого фильма сверяются с сохранёнными: удаляются только снятые и вставляются
+  // только новые, — у оставшихся сохраняется created_at, по которому тренды догружаются после рестарта
+  private void syncLikes(Film film) {
+    final LongSet stored = new LongSet(jdbcTemplate.queryForList(
+        "SELECT user_id FROM film_likes WHERE film_id = ? ORDER BY user_id", Long.class, film.getId()));
+    final LongSet likes = film.getLikes();
+    final List<Object[]> removed = new ArrayList<>();
+    for (long userId : stored.toLongArray()) {
+      if (!likes.contains(userId)) {
+        removed.add(new Object[]{film.getId(), userId});
+      }
+    }
+    final List<Object[]> added = new ArrayList<>();
+    for (long userId : likes.toLongArray()) {
+      if (!stored.contains(userId)) {
+        added.add(new Object[]{film.getId(), userId});
+      }
+    }
+    if (!removed.isEmpty()) {
+      jdbcTemplate.batchUpdate(DELETE_LIKE_SQL, removed);
+    }
+    if (!added.isEmpty()) {
+      jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", added);
+    }
+  }
+
+  private void insertLikes(Film film) {
+    final LongSet likes = film.getLikes();
+    if (likes.isEmpty()) {
       return;
     }
-    final int expectedSize = Math.max(likes.size(), 1);
-    final Set<Long> processed = new HashSet<>(expectedSize);
-    final List<Object[]> batchArgs = new ArrayList<>(expectedSize);
+    // LongSet уже без повторов и null
+    final List<Object[]> batchArgs = new ArrayList<>(likes.size());
     final String sql =
         "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
-    for (Long userId : likes) {
-      if (userId == null || !processed.add(userId)) {
-        continue;
-      }
+    for (long userId : likes.toLongArray()) {
       batchArgs.add(new Object[]{film.getId(), userId});
     }
     if (!batchArgs.isEmpty()) {
@@ -1,6 +1,10 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 
 /**
@@ -16,11 +20,31 @@ import ru.yandex.practicum.filmorate.model.Film;
  */
 public interface FilmStorage {
 
-  int DEFAULT_POPULAR_LIMIT = 10;
-
+  int DEFAULT_POPULAR_LIMIT = 10;
+
   List<Film> findAll();
 
-  Film getById(long id);
+  // Промах — пустой Optional, без исключения
+  Optional<Film> findById(long id);
+
+  // Чтение мимо карты идентичности запроса: экземпляр не принадлежит ни одному запросу,
+  // его можно отдать нескольким потокам (SingleFlight) — и поэтому его никто не меняет
+  default Optional<Film> findDetached(long id) {
+    return findById(id);
+  }
+
+  default Film getById(long id) {
+    return findById(id).orElseThrow(() -> new NotFoundException("Фильм с id=" + id + " не найден."));
+  }
+
+  // Пакетная загрузка: отсутствующие id пропускаются, порядок результата не гарантируется
+  List<Film> findByIds(Collection<Long> ids);
+
+  // Какие из переданных id существуют — одним запросом, без загрузки фильмов
+  Set<Long> findExistingIds(Collection<Long> ids);
+
+  // Проверка существования без загрузки фильма, жанров и лайков
+  boolean exists(long id);
 
   Film create(Film film);
 
@@ -28,6 +52,19 @@ public interface FilmStorage {
 
   void delete(long id);
 
+  // Атомарные операции с лайками: true, если состояние изменилось
+  boolean addLike(long filmId, long userId);
+
+  boolean removeLike(long filmId, long userId);
+
+  // Пакет лайков одного пользователя; в БД — одна транзакция с batch-вставкой и batch-удалением
+  LikeChanges applyLikes(long userId, Collection<Long> add, Collection<Long> remove);
+
   // SPRINT 11 FIX: запрос популярных фильмов делается на уровне хранилища
-  List<Film> findMostPopular(int limit);
+  default List<Film> findMostPopular(int limit) {
+    return findMostPopular(PopularQuery.of(limit));
+  }
+
+  // Популярные фильмы с фильтрами по жанру/году/рейтингу
+  List<Film> findMostPopular(PopularQuery query);
 }
@@ -1,13 +1,25 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
 
 /**
  * SPRINT 11:
@@ -16,64 +28,281 @@ import ru.yandex.practicum.filmorate.model.Film;
  *
  * SPRINT 11 FIX:
  * - реализация выборки популярных фильмов с сортировкой и лимитом.
+ *
+ * Потокобезопасность:
+ * - ConcurrentHashMap + AtomicLong для id.
+ * - хранимые экземпляры наружу не отдаются: чтение возвращает копию, снятую под монитором
+ *   хранимого фильма (блокировка на уровне id), изменения выполняются под тем же монитором.
+ *
+ * Рейтинг популярности:
+ * - skip-list записей (лайки desc, id asc) обновляется при каждом лайке/удалении лайка
+ *   под монитором фильма, поэтому топ-N читается за O(N) в том же порядке, что и в FilmDbStorage.
  */
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "memory")
 public class InMemoryFilmStorage implements FilmStorage {
 
-  private final Map<Long, Film> films = new HashMap<>();
-  private long idSeq = 0L;
+  private final Map<Long, Film> films = new ConcurrentHashMap<>();
+  private final AtomicLong idSeq = new AtomicLong();
+  private final NavigableSet<Rank> ranking = new ConcurrentSkipListSet<>(Rank.ORDER);
 
   @Override
   public List<Film> findAll() {
-    return new ArrayList<>(films.values());
+    final List<Film> result = new ArrayList<>(films.size());
+    for (Film stored : films.values()) {
+      result.add(snapshot(stored));
+    }
+    return result;
   }
 
   @Override
-  public Film getById(long id) {
-    Film film = films.get(id);
-    if (film == null) {
-      throw new NotFoundException("Фильм с id=" + id + " не найден.");
+  public Optional<Film> findById(long id) {
+    final Film stored = films.get(id);
+    return stored == null ? Optional.empty() : Optional.of(snapshot(stored));
+  }
+
+  @Override
+  public List<Film> findByIds(Collection<Long> ids) {
+    final List<Film> result = new ArrayList<>(ids.size());
+    for (Long id : new LinkedHashSet<>(ids)) {
+      final Film stored = films.get(id);
+      if (stored != null) {
+        result.add(snapshot(stored));
+      }
     }
-    return film;
+    return result;
+  }
+
+  @Override
+  public Set<Long> findExistingIds(Collection<Long> ids) {
+    final Set<Long> result = new HashSet<>();
+    for (Long id : ids) {
+      if (films.containsKey(id)) {
+        result.add(id);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean exists(long id) {
+    return films.containsKey(id);
   }
 
   @Override
   public Film create(Film film) {
-    film.setId(++idSeq); // SPRINT 11
-    films.put(film.getId(), film);
+    film.setId(idSeq.incrementAndGet()); // SPRINT 11
+    final Film stored = new Film();
+    copyState(film, stored);
+    synchronized (stored) {
+      films.put(stored.getId(), stored);
+      ranking.add(new Rank(stored.getId(), stored.getLikes().size()));
+    }
     return film;
   }
 
   @Override
   public Film update(Film film) {
-    if (film.getId() == null || !films.containsKey(film.getId())) {
+    if (film.getId() == null) {
       throw new NotFoundException("Фильм с id=" + film.getId() + " не найден.");
     }
-    films.put(film.getId(), film);
+    final Film stored = stored(film.getId());
+    synchronized (stored) {
+      ensureAlive(stored);
+      final int before = stored.getLikes().size();
+      copyState(film, stored);
+      rerank(stored.getId(), before, stored.getLikes().size());
+    }
     return film;
   }
 
   @Override
   public void delete(long id) {
-    if (!films.containsKey(id)) {
-      throw new NotFoundException("Фильм с id=" + id + " не найден.");
+    final Film stored = stored(id);
+    synchronized (stored) {
+      if (!films.remove(id, stored)) {
+        throw new NotFoundException("Фильм с id=" + id + " не найден.");
+      }
+      ranking.remove(new Rank(id, stored.getLikes().size()));
+    }
+  }
+
+  @Override
+  public boolean addLike(long filmId, long userId) {
+    final Film stored = stored(filmId);
+    synchronized (stored) {
+      ensureAlive(stored);
+      final int before = stored.getLikes().size();
+      if (!stored.getLikes().add(userId)) {
+        return false;
+      }
+      rerank(filmId, before, before + 1);
+      return true;
+    }
+  }
+
+  @Override
+  public boolean removeLike(long filmId, long userId) {
+    final Film stored = stored(filmId);
+    synchronized (stored) {
+      ensureAlive(stored);
+      final int before = stored.getLikes().size();
+      if (!stored.getLikes().remove(userId)) {
+        return false;
+      }
+      rerank(filmId, before, before - 1);
+      return true;
     }
-    films.remove(id);
   }
 
+  // Транзакции здесь нет: каждый лайк атомарен сам по себе, как и одиночные addLike/removeLike
   @Override
-  public List<Film> findMostPopular(int limit) {
+  public LikeChanges applyLikes(long userId, Collection<Long> add, Collection<Long> remove) {
+    final Set<Long> added = new LinkedHashSet<>();
+    final Set<Long> removed = new LinkedHashSet<>();
+    final Set<Long> missing = new LinkedHashSet<>();
+    for (Long filmId : add) {
+      if (applyIfPresent(filmId, () -> addLike(filmId, userId))) {
+        added.add(filmId);
+      } else if (!films.containsKey(filmId)) {
+        missing.add(filmId);
+      }
+    }
+    for (Long filmId : remove) {
+      if (applyIfPresent(filmId, () -> removeLike(filmId, userId))) {
+        removed.add(filmId);
+      } else if (!films.containsKey(filmId)) {
+        missing.add(filmId);
+      }
+    }
+    return new LikeChanges(added, removed, missing);
+  }
+
+  // фильм, удалённый параллельно, не прерывает пакет — просто ничего не меняется
+  private boolean applyIfPresent(long filmId, BooleanSupplier change) {
+    if (!films.containsKey(filmId)) {
+      return false;
+    }
+    try {
+      return change.getAsBoolean();
+    } catch (NotFoundException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public List<Film> findMostPopular(PopularQuery query) {
     // SPRINT 11 FIX: выполняем сортировку и лимитирование на стороне хранилища
-    if (limit <= 0) {
-      limit = 10;
-    }
-    return films
-        .values()
-        .stream()
-        .sorted(
-            Comparator.comparingInt((Film f) -> f.getLikes().size())
-                .reversed())
-        .limit(limit)
-        .toList();
+    final int limit = query.limit() <= 0 ? DEFAULT_POPULAR_LIMIT : query.limit();
+    final List<Film> result = new ArrayList<>(Math.min(limit, films.size()));
+    // во время перестановки фильм может на мгновение встретиться дважды — отсекаем повтор по id
+    final Set<Long> seen = new HashSet<>();
+    for (Rank rank : ranking) {
+      if (result.size() >= limit) {
+        break;
+      }
+      final Film stored = films.get(rank.filmId());
+      if (stored == null || !seen.add(rank.filmId())) {
+        continue;
+      }
+      // фильтр проверяется на самом фильме под его монитором — копируются только подошедшие
+      synchronized (stored) {
+        if (matches(stored, query)) {
+          final Film copy = new Film();
+          copyState(stored, copy);
+          result.add(copy);
+        }
+      }
+    }
+    return result;
+  }
+
+  // ----------- снимки (см. storage.snapshot) -----------
+
+  public long lastId() {
+    return idSeq.get();
+  }
+
+  // Полная замена содержимого при старте узла; вызывается до обработки запросов
+  public void restore(Collection<Film> restored, long lastId) {
+    films.clear();
+    ranking.clear();
+    for (Film film : restored) {
+      final Film stored = new Film();
+      copyState(film, stored);
+      films.put(stored.getId(), stored);
+      ranking.add(new Rank(stored.getId(), stored.getLikes().size()));
+    }
+    idSeq.set(lastId);
+  }
+
+  // Новая позиция добавляется раньше, чем снимается старая: читатель не «теряет» фильм из топа
+  private void rerank(long filmId, int before, int after) {
+    if (before == after) {
+      return;
+    }
+    ranking.add(new Rank(filmId, after));
+    ranking.remove(new Rank(filmId, before));
+  }
+
+  private void ensureAlive(Film stored) {
+    if (films.get(stored.getId()) != stored) {
+      throw new NotFoundException("Фильм с id=" + stored.getId() + " не найден.");
+    }
+  }
+
+  private Film stored(long id) {
+    final Film film = films.get(id);
+    if (film == null) {
+      throw new NotFoundException("Фильм с id=" + id + " не найден.");
+    }
+    return film;
+  }
+
+  private static Film snapshot(Film stored) {
+    final Film copy = new Film();
+    synchronized (stored) {
+      copyState(stored, copy);
+    }
+    return copy;
+  }
+
+  private static void copyState(Film from, Film to) {
+    to.setId(from.getId());
+    to.setName(from.getName());
+    to.setDescription(from.getDescription());
+    to.setReleaseDate(from.getReleaseDate());
+    to.setDuration(from.getDuration());
+    final Mpa mpa = from.getMpa();
+    to.setMpa(mpa == null ? null : new Mpa(mpa.getId(), mpa.getName()));
+    final LinkedHashSet<Genre> genres = new LinkedHashSet<>();
+    for (Genre genre : from.getGenres()) {
+      genres.add(new Genre(genre.getId(), genre.getName()));
+    }
+    to.setGenres(genres);
+    if (from.getLikes() != to.getLikes()) {
+      to.getLikes().clear();
+      to.getLikes().addAll(from.getLikes());
+    }
+  }
+
+  private static boolean matches(Film film, PopularQuery query) {
+    if (query.genreId() != null && film.getGenres().stream()
+        .noneMatch(g -> query.genreId().equals(g.getId()))) {
+      return false;
+    }
+    if (query.year() != null
+        && (film.getReleaseDate() == null || film.getReleaseDate().getYear() != query.year())) {
+      return false;
+    }
+    return query.mpaId() == null
+        || (film.getMpa() != null && query.mpaId().equals(film.getMpa().getId()));
+  }
+
+  private record Rank(long filmId, int likes) {
+
+    private static final Comparator<Rank> ORDER = Comparator
+        .comparingInt(Rank::likes).reversed()
+        .thenComparingLong(Rank::filmId);
   }
 }
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.Set;
+
+/**
+ * Итог пакетного применения лайков: фильмы, у которых лайк действительно добавился или снялся,
+ * и фильмы, удалённые параллельно уже во время пакета.
+ */
+public record LikeChanges(Set<Long> added, Set<Long> removed, Set<Long> missing) {
+
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty();
+  }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+/**
+ * Параметры выборки популярных фильмов: размер топа и необязательные фильтры
+ * по жанру, году релиза и рейтингу MPA ({@code null} — фильтр не задан).
+ */
+public record PopularQuery(int limit, Integer genreId, Integer year, Integer mpaId) {
+
+  public static PopularQuery of(int limit) {
+    return new PopularQuery(limit, null, null, null);
+  }
+
+  public boolean isFiltered() {
+    return genreId != null || year != null || mpaId != null;
+  }
+}
@@ -1,11 +1,11 @@
 package ru.yandex.practicum.filmorate.storage.genre;
 
 import java.util.List;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 /** JDBC-based implementation of {@link GenreStorage}. */
@@ -25,12 +25,8 @@ public class GenreDbStorage implements GenreStorage {
   }
 
   @Override
-  public Genre getById(int id) {
+  public Optional<Genre> findById(int id) {
     final String sql = "SELECT id, name FROM genres WHERE id = ?";
-    final List<Genre> genres = jdbcTemplate.query(sql, GENRE_MAPPER, id);
-    if (genres.isEmpty()) {
-      throw new NotFoundException("Жанр с id=" + id + " не найден.");
-    }
-    return genres.get(0);
+    return jdbcTemplate.query(sql, GENRE_MAPPER, id).stream().findFirst();
   }
 }
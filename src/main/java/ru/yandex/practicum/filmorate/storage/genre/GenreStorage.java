@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.storage.genre;
 
 import java.util.List;
+import java.util.Optional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 /** Storage abstraction for film genres. */
@@ -8,5 +10,9 @@ public interface GenreStorage {
 
   List<Genre> findAll();
 
-  Genre getById(int id);
+  Optional<Genre> findById(int id);
+
+  default Genre getById(int id) {
+    return findById(id).orElseThrow(() -> new NotFoundException("Жанр с id=" + id + " не найден."));
+  }
 }
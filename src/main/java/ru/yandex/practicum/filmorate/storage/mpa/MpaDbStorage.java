@@ -1,11 +1,11 @@
 package ru.yandex.practicum.filmorate.storage.mpa;
 
 import java.util.List;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
 /** JDBC-based implementation of {@link MpaStorage}. */
@@ -25,12 +25,8 @@ public class MpaDbStorage implements MpaStorage {
   }
 
   @Override
-  public Mpa getById(int id) {
+  public Optional<Mpa> findById(int id) {
     final String sql = "SELECT id, name FROM mpa_ratings WHERE id = ?";
-    final List<Mpa> ratings = jdbcTemplate.query(sql, MPA_MAPPER, id);
-    if (ratings.isEmpty()) {
-      throw new NotFoundException("Рейтинг с id=" + id + " не найден.");
-    }
-    return ratings.get(0);
+    return jdbcTemplate.query(sql, MPA_MAPPER, id).stream().findFirst();
   }
 }
@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.storage.mpa;
 
 import java.util.List;
+import java.util.Optional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
 /** Storage abstraction for MPA ratings. */
@@ -8,5 +10,9 @@ public interface MpaStorage {
 
   List<Mpa> findAll();
 
-  Mpa getById(int id);
+  Optional<Mpa> findById(int id);
+
+  default Mpa getById(int id) {
+    return findById(id).orElseThrow(() -> new NotFoundException("Рейтинг с id=" + id + " не найден."));
+  }
 }
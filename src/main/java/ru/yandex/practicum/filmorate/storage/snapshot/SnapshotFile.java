@@ -0,0 +1,239 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LongSet;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Бинарный формат снимка in-memory хранилищ.
+ *
+ * <p>[magic:4][version:2][filmLastId:8][userLastId:8][films:4][users:4] далее фильмы, пользователи
+ * и в конце CRC32 всего предшествующего содержимого. Строки — длина в байтах UTF-8 (-1 для null)
+ * и сами байты; даты — epochDay ({@link Long#MIN_VALUE} для null).
+ *
+ * <p>Запись идёт во временный файл, который после fsync атомарно подменяет прежний снимок,
+ * поэтому на диске всегда лежит либо старая, либо новая полная версия. Чтение идёт потоком
+ * через буфер с подсчётом CRC на лету: размер снимка не ограничен одним отображением файла
+ * в память (2 ГБ). Длины и счётчики проверяются по размеру файла до выделения памяти, так что
+ * повреждённый снимок отклоняется, а не исчерпывает кучу.
+ */
+final class SnapshotFile {
+
+  static final int MAGIC = 0x46534E50; // "FSNP"
+  static final short VERSION = 1;
+
+  private static final long NULL_DATE = Long.MIN_VALUE;
+
+  private SnapshotFile() {
+  }
+
+  record Contents(long filmLastId, List<Film> films, long userLastId, List<User> users) {
+  }
+
+  static void write(Path target, Contents contents) throws IOException {
+    final Path parent = target.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    final Path tmp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+      final CRC32 crc = new CRC32();
+      final OutputStream raw = Channels.newOutputStream(channel);
+      final DataOutputStream out = new DataOutputStream(
+          new CheckedOutputStream(new BufferedOutputStream(raw, 1 << 16), crc));
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+      out.writeLong(contents.filmLastId());
+      out.writeLong(contents.userLastId());
+      out.writeInt(contents.films().size());
+      out.writeInt(contents.users().size());
+      for (Film film : contents.films()) {
+        writeFilm(out, film);
+      }
+      for (User user : contents.users()) {
+        writeUser(out, user);
+      }
+      out.flush();
+      // CRC пишем мимо CheckedOutputStream — он не входит в контрольную сумму
+      final DataOutputStream trailer = new DataOutputStream(new BufferedOutputStream(raw, 8));
+      trailer.writeLong(crc.getValue());
+      trailer.flush();
+      channel.force(true);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  static Contents read(Path source) throws IOException {
+    final CRC32 crc = new CRC32();
+    try (InputStream file = new BufferedInputStream(Files.newInputStream(source), 1 << 16)) {
+      final Reader in = new Reader(new DataInputStream(new CheckedInputStream(file, crc)), Files.size(source));
+      if (in.data.readInt() != MAGIC || in.data.readShort() != VERSION) {
+        throw new IOException("Файл не является снимком хранилища: " + source);
+      }
+      final long filmLastId = in.data.readLong();
+      final long userLastId = in.data.readLong();
+      final int filmCount = in.count();
+      final int userCount = in.count();
+      final List<Film> films = new ArrayList<>(filmCount);
+      for (int i = 0; i < filmCount; i++) {
+        films.add(readFilm(in));
+      }
+      final List<User> users = new ArrayList<>(userCount);
+      for (int i = 0; i < userCount; i++) {
+        users.add(readUser(in));
+      }
+      // CRC читаем мимо CheckedInputStream — он не входит в контрольную сумму
+      final long expected = crc.getValue();
+      final DataInputStream trailer = new DataInputStream(file);
+      if (trailer.readLong() != expected || trailer.read() != -1) {
+        throw new IOException("Контрольная сумма снимка не совпадает: " + source);
+      }
+      return new Contents(filmLastId, films, userLastId, users);
+    }
+  }
+
+  private static void writeFilm(DataOutputStream out, Film film) throws IOException {
+    out.writeLong(film.getId());
+    writeString(out, film.getName());
+    writeString(out, film.getDescription());
+    writeDate(out, film.getReleaseDate());
+    out.writeInt(film.getDuration() == null ? 0 : film.getDuration());
+    final Mpa mpa = film.getMpa();
+    out.writeInt(mpa == null || mpa.getId() == null ? -1 : mpa.getId());
+    writeString(out, mpa == null ? null : mpa.getName());
+    out.writeInt(film.getGenres().size());
+    for (Genre genre : film.getGenres()) {
+      out.writeInt(genre.getId());
+      writeString(out, genre.getName());
+    }
+    writeIds(out, film.getLikes());
+  }
+
+  private static Film readFilm(Reader in) throws IOException {
+    final Film film = new Film();
+    film.setId(in.data.readLong());
+    film.setName(readString(in));
+    film.setDescription(readString(in));
+    film.setReleaseDate(readDate(in));
+    film.setDuration(in.data.readInt());
+    final int mpaId = in.data.readInt();
+    final String mpaName = readString(in);
+    film.setMpa(mpaId < 0 ? null : new Mpa(mpaId, mpaName));
+    final int genreCount = in.count();
+    final Set<Genre> genres = new LinkedHashSet<>(genreCount);
+    for (int i = 0; i < genreCount; i++) {
+      genres.add(new Genre(in.data.readInt(), readString(in)));
+    }
+    film.setGenres(genres);
+    readIds(in, film.getLikes());
+    return film;
+  }
+
+  private static void writeUser(DataOutputStream out, User user) throws IOException {
+    out.writeLong(user.getId());
+    writeString(out, user.getEmail());
+    writeString(out, user.getLogin());
+    writeString(out, user.getName());
+    writeDate(out, user.getBirthday());
+    writeIds(out, user.getFriends());
+  }
+
+  private static User readUser(Reader in) throws IOException {
+    final User user = new User();
+    user.setId(in.data.readLong());
+    user.setEmail(readString(in));
+    user.setLogin(readString(in));
+    user.setName(readString(in));
+    user.setBirthday(readDate(in));
+    readIds(in, user.getFriends());
+    return user;
+  }
+
+  private static void writeIds(DataOutputStream out, LongSet ids) throws IOException {
+    out.writeInt(ids.size());
+    for (long id : ids.toLongArray()) {
+      out.writeLong(id);
+    }
+  }
+
+  // id записаны по возрастанию — LongSet дописывает их в конец без сдвигов
+  private static void readIds(Reader in, LongSet target) throws IOException {
+    final int count = in.count();
+    for (int i = 0; i < count; i++) {
+      target.add(in.data.readLong());
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(Reader in) throws IOException {
+    final int length = in.data.readInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[in.bounded(length)];
+    in.data.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+    out.writeLong(date == null ? NULL_DATE : date.toEpochDay());
+  }
+
+  private static LocalDate readDate(Reader in) throws IOException {
+    final long epochDay = in.data.readLong();
+    return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+  }
+
+  // Поток снимка и его размер: ни длина строки, ни число элементов не могут превышать размер файла
+  private record Reader(DataInputStream data, long fileSize) {
+
+    int count() throws IOException {
+      final int count = data.readInt();
+      if (count < 0) {
+        throw new IOException("Повреждённый снимок: отрицательное число элементов " + count);
+      }
+      return bounded(count);
+    }
+
+    int bounded(int length) throws IOException {
+      if (length > fileSize) {
+        throw new IOException("Повреждённый снимок: длина " + length + " больше файла (" + fileSize + " байт)");
+      }
+      return length;
+    }
+  }
+}
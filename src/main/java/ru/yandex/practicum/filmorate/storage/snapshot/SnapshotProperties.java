@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки снимков in-memory хранилищ (префикс {@code filmorate.snapshot}).
+ *
+ * @param interval период записи снимка; {@code 0} — только при остановке приложения
+ */
+@ConfigurationProperties(prefix = "filmorate.snapshot")
+public record SnapshotProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("./db/memory.snapshot") Path path,
+    @DefaultValue("60s") Duration interval) {
+}
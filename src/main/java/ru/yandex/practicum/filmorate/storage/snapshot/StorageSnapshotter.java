@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+/**
+ * Периодические снимки in-memory хранилищ на диск и восстановление из снимка при старте,
+ * чтобы режим {@code filmorate.storage.mode=memory} переживал перезапуск без долгого прогрева.
+ */
+@Slf4j
+public class StorageSnapshotter implements Closeable {
+
+  private final InMemoryFilmStorage filmStorage;
+  private final InMemoryUserStorage userStorage;
+  private final Path path;
+  private final Duration interval;
+
+  private ScheduledExecutorService scheduler;
+
+  public StorageSnapshotter(InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage,
+      Path path, Duration interval) {
+    this.filmStorage = filmStorage;
+    this.userStorage = userStorage;
+    this.path = path;
+    this.interval = interval;
+  }
+
+  /** Восстанавливает хранилища из снимка (если он есть) и запускает периодическую запись. */
+  public void start() {
+    restore();
+    if (interval.isZero()) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      final Thread thread = new Thread(r, "storage-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long periodMs = Math.max(1L, interval.toMillis());
+    scheduler.scheduleWithFixedDelay(this::snapshotQuietly, periodMs, periodMs, TimeUnit.MILLISECONDS);
+  }
+
+  /** Загружает снимок; возвращает false, если файла ещё нет. */
+  public boolean restore() {
+    if (!Files.exists(path)) {
+      log.info("Снимок хранилищ {} не найден — стартуем с пустыми хранилищами", path);
+      return false;
+    }
+    final long started = System.nanoTime();
+    final SnapshotFile.Contents contents;
+    try {
+      contents = SnapshotFile.read(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Не удалось прочитать снимок хранилищ " + path, e);
+    }
+    filmStorage.restore(contents.films(), contents.filmLastId());
+    userStorage.restore(contents.users(), contents.userLastId());
+    log.info("Снимок хранилищ {} загружен за {} мс: фильмов {}, пользователей {}", path,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+        contents.films().size(), contents.users().size());
+    return true;
+  }
+
+  /** Записывает текущее состояние хранилищ; файл подменяется атомарно. */
+  public synchronized void snapshot() {
+    // lastId читаем после копирования, чтобы он был не меньше любого попавшего в снимок id
+    final List<Film> films = filmStorage.findAll();
+    final long filmLastId = filmStorage.lastId();
+    final List<User> users = userStorage.findAll();
+    final long userLastId = userStorage.lastId();
+    try {
+      SnapshotFile.write(path, new SnapshotFile.Contents(filmLastId, films, userLastId, users));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Не удалось записать снимок хранилищ " + path, e);
+    }
+    log.debug("Снимок хранилищ записан: фильмов {}, пользователей {}", films.size(), users.size());
+  }
+
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    snapshot();
+  }
+
+  // исключение в задаче по расписанию отменило бы все следующие запуски
+  private void snapshotQuietly() {
+    try {
+      snapshot();
+    } catch (RuntimeException e) {
+      log.warn("Ошибка записи снимка хранилищ: {}", e.getMessage());
+    }
+  }
+}
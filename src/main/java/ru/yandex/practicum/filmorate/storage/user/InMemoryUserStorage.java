@@ -1,9 +1,14 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
@@ -12,48 +17,152 @@ import ru.yandex.practicum.filmorate.model.User;
  * SPRINT 11:
  * - перенос хранения пользователей из сервиса в компонент-хранилище.
  * - генерация id внутри хранилища.
+ *
+ * Потокобезопасность — как в InMemoryFilmStorage: ConcurrentHashMap, AtomicLong для id,
+ * копии наружу и изменения под монитором хранимого пользователя.
  */
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "memory")
 public class InMemoryUserStorage implements UserStorage {
 
-  private final Map<Long, User> users = new HashMap<>();
-  private long idSeq = 0L;
+  private final Map<Long, User> users = new ConcurrentHashMap<>();
+  private final AtomicLong idSeq = new AtomicLong();
 
   @Override
   public List<User> findAll() {
-    return new ArrayList<>(users.values());
+    final List<User> result = new ArrayList<>(users.size());
+    for (User stored : users.values()) {
+      result.add(snapshot(stored));
+    }
+    return result;
   }
 
   @Override
-  public User getById(long id) {
-    User user = users.get(id);
-    if (user == null) {
-      throw new NotFoundException("Пользователь с id=" + id + " не найден.");
+  public Optional<User> findById(long id) {
+    final User stored = users.get(id);
+    return stored == null ? Optional.empty() : Optional.of(snapshot(stored));
+  }
+
+  @Override
+  public List<User> findByIds(Collection<Long> ids) {
+    final List<User> result = new ArrayList<>(ids.size());
+    for (Long id : new LinkedHashSet<>(ids)) {
+      final User stored = users.get(id);
+      if (stored != null) {
+        result.add(snapshot(stored));
+      }
     }
-    return user;
+    return result;
+  }
+
+  @Override
+  public boolean exists(long id) {
+    return users.containsKey(id);
   }
 
   @Override
   public User create(User user) {
-    user.setId(++idSeq);              // SPRINT 11
-    users.put(user.getId(), user);
+    user.setId(idSeq.incrementAndGet());              // SPRINT 11
+    final User stored = new User();
+    copyState(user, stored);
+    users.put(stored.getId(), stored);
     return user;
   }
 
   @Override
   public User update(User user) {
-    if (user.getId() == null || !users.containsKey(user.getId())) {
+    if (user.getId() == null) {
       throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден.");
     }
-    users.put(user.getId(), user);
+    final User stored = stored(user.getId());
+    synchronized (stored) {
+      copyState(user, stored);
+    }
     return user;
   }
 
   @Override
   public void delete(long id) {
-    if (!users.containsKey(id)) {
+    if (users.remove(id) == null) {
       throw new NotFoundException("Пользователь с id=" + id + " не найден.");
     }
-    users.remove(id);
+  }
+
+  @Override
+  public boolean addFriend(long userId, long friendId) {
+    final User stored = stored(userId);
+    synchronized (stored) {
+      return stored.getFriends().add(friendId);
+    }
+  }
+
+  @Override
+  public boolean removeFriend(long userId, long friendId) {
+    final User stored = stored(userId);
+    synchronized (stored) {
+      return stored.getFriends().remove(friendId);
+    }
+  }
+
+  // Обратного индекса нет — полный проход; in-memory режим рассчитан на небольшие объёмы
+  @Override
+  public List<Long> findFollowerIds(long userId, int limit) {
+    final List<Long> result = new ArrayList<>();
+    for (User stored : users.values()) {
+      if (result.size() >= limit) {
+        break;
+      }
+      synchronized (stored) {
+        if (stored.getFriends().contains(userId)) {
+          result.add(stored.getId());
+        }
+      }
+    }
+    return result;
+  }
+
+  // ----------- снимки (см. storage.snapshot) -----------
+
+  public long lastId() {
+    return idSeq.get();
+  }
+
+  // Полная замена содержимого при старте узла; вызывается до обработки запросов
+  public void restore(Collection<User> restored, long lastId) {
+    users.clear();
+    for (User user : restored) {
+      final User stored = new User();
+      copyState(user, stored);
+      users.put(stored.getId(), stored);
+    }
+    idSeq.set(lastId);
+  }
+
+  private User stored(long id) {
+    final User user = users.get(id);
+    if (user == null) {
+      throw new NotFoundException("Пользователь с id=" + id + " не найден.");
+    }
+    return user;
+  }
+
+  private static User snapshot(User stored) {
+    final User copy = new User();
+    synchronized (stored) {
+      copyState(stored, copy);
+    }
+    return copy;
+  }
+
+  private static void copyState(User from, User to) {
+    to.setId(from.getId());
+    to.setEmail(from.getEmail());
+    to.setLogin(from.getLogin());
+    to.setName(from.getName());
+    to.setBirthday(from.getBirthday());
+    if (from.getFriends() != to.getFriends()) {
+      to.getFriends().clear();
+      to.getFriends().addAll(from.getFriends());
+    }
   }
 }
@@ -1,29 +1,38 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import java.sql.Date;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Primary;
+import java.util.Optional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.invalidation.EntityChangedEvent;
+import ru.yandex.practicum.filmorate.invalidation.EntityType;
+import ru.yandex.practicum.filmorate.model.LongSet;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.InListQuery;
+import ru.yandex.practicum.filmorate.storage.RequestIdentityMap;
 
 /** JDBC implementation of {@link UserStorage}. */
 @Repository
-@Primary
-@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "db", matchIfMissing = true)
 public class UserDbStorage implements UserStorage {
 
   private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> {
@@ -39,7 +48,45 @@ public class UserDbStorage implements UserStorage {
     return user;
   };
 
+  // Списки id — частями фиксированной длины (см. InListQuery)
+  private static final InListQuery USERS_BY_IDS =
+      new InListQuery("SELECT id, email, login, name, birthday FROM users WHERE id IN (:ids)");
+
+  private static final InListQuery FRIENDS_BY_USERS = new InListQuery(
+      "SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids) ORDER BY user_id, friend_id");
+
   private final JdbcTemplate jdbcTemplate;
+  private final ApplicationEventPublisher events;
+  private final SimpleJdbcInsert userInsert;
+  private final IdExistenceIndex idIndex = new IdExistenceIndex("users");
+  private final RequestIdentityMap<User> identityMap = new RequestIdentityMap<>("users");
+
+  // Метаданные вставки (столбцы, ключ) читаются один раз при первом create, а не на каждый вызов
+  public UserDbStorage(JdbcTemplate jdbcTemplate, ApplicationEventPublisher events) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.events = events;
+    this.userInsert = new SimpleJdbcInsert(jdbcTemplate)
+        .withTableName("users")
+        .usingGeneratedKeyColumns("id");
+  }
+
+  // Фильтр id строится после старта; до этого exists отвечает точным запросом
+  @EventListener(ApplicationReadyEvent.class)
+  public void buildIdIndex() {
+    idIndex.build(() -> {
+      final LongSet ids = new LongSet();
+      jdbcTemplate.query("SELECT id FROM users ORDER BY id", (RowCallbackHandler) rs -> ids.add(rs.getLong(1)));
+      return ids.toLongArray();
+    });
+  }
+
+  // Пользователь, созданный на другом узле, должен пройти фильтр существования и здесь
+  @EventListener(condition = "#event.remote()")
+  public void onRemoteChange(EntityChangedEvent event) {
+    if (event.type() == EntityType.USER) {
+      idIndex.add(event.id());
+    }
+  }
 
   @Override
   public List<User> findAll() {
@@ -49,35 +96,71 @@ public class UserDbStorage implements UserStorage {
     return users;
   }
 
+  // Повторное чтение в том же запросе отдаёт уже загруженного пользователя
+  @Override
+  public Optional<User> findById(long id) {
+    return identityMap.find(id, this::loadById);
+  }
+
   @Override
-  public User getById(long id) {
+  public Optional<User> findDetached(long id) {
+    return loadById(id);
+  }
+
+  @Override
+  public List<User> findByIds(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return identityMap.findAll(ids, this::loadByIds, User::getId);
+  }
+
+  private Optional<User> loadById(long id) {
+    // заведомо несуществующий id (перебор случайных id) не доходит до БД
+    if (!idIndex.mightExist(id)) {
+      return Optional.empty();
+    }
     final String sql = "SELECT id, email, login, name, birthday FROM users WHERE id = ?";
     final List<User> users = jdbcTemplate.query(sql, USER_MAPPER, id);
     if (users.isEmpty()) {
-      throw new NotFoundException("Пользователь с id=" + id + " не найден.");
+      return Optional.empty();
     }
     enrichUsers(users);
-    return users.get(0);
+    return Optional.of(users.get(0));
+  }
+
+  private List<User> loadByIds(List<Long> distinctIds) {
+    final List<User> users = USERS_BY_IDS.query(jdbcTemplate, distinctIds, USER_MAPPER);
+    enrichUsers(users);
+    return users;
+  }
+
+  // Заведомо несуществующие id отсекает фильтр Блума, остальные подтверждаются запросом
+  @Override
+  public boolean exists(long id) {
+    return identityMap.contains(id) || idIndex.exists(id, this::existsInDb);
   }
 
+  // Одна транзакция на запись; результат — сам записанный пользователь, без повторного чтения
   @Override
+  @Transactional
   public User create(User user) {
-    final SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate)
-        .withTableName("users")
-        .usingGeneratedKeyColumns("id");
     final LocalDate birthday = user.getBirthday();
     final Map<String, Object> values = new LinkedHashMap<>(4);
     values.put("email", user.getEmail());
     values.put("login", user.getLogin());
     values.put("name", user.getName());
     values.put("birthday", birthday == null ? null : Date.valueOf(birthday));
-    final Number id = insert.executeAndReturnKey(values);
+    final Number id = userInsert.executeAndReturnKey(values);
     user.setId(id.longValue());
-    updateFriends(user);
-    return getById(user.getId());
+    idIndex.add(user.getId());
+    insertFriends(user);
+    events.publishEvent(EntityChangedEvent.local(EntityType.USER, user.getId()));
+    return assembled(user);
   }
 
   @Override
+  @Transactional
   public User update(User user) {
     final String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
     final int updated = jdbcTemplate.update(sql,
@@ -89,8 +172,10 @@ public class UserDbStorage implements UserStorage {
     if (updated == 0) {
       throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден.");
     }
-    updateFriends(user);
-    return getById(user.getId());
+    jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ?", user.getId());
+    insertFriends(user);
+    events.publishEvent(EntityChangedEvent.local(EntityType.USER, user.getId()));
+    return assembled(user);
   }
 
   @Override
@@ -99,6 +184,42 @@ public class UserDbStorage implements UserStorage {
     if (deleted == 0) {
       throw new NotFoundException("Пользователь с id=" + id + " не найден.");
     }
+    identityMap.evict(id);
+    events.publishEvent(EntityChangedEvent.local(EntityType.USER, id));
+  }
+
+  @Override
+  public boolean addFriend(long userId, long friendId) {
+    try {
+      final boolean added =
+          jdbcTemplate.update("INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)", userId, friendId) > 0;
+      if (added) {
+        identityMap.update(userId, user -> user.getFriends().add(friendId));
+        events.publishEvent(EntityChangedEvent.local(EntityType.FRIENDSHIP, userId));
+      }
+      return added;
+    } catch (DuplicateKeyException e) {
+      // связь уже есть (в том числе гонка двух одновременных запросов)
+      return false;
+    }
+  }
+
+  @Override
+  public boolean removeFriend(long userId, long friendId) {
+    final boolean removed =
+        jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ? AND friend_id = ?", userId, friendId) > 0;
+    if (removed) {
+      identityMap.update(userId, user -> user.getFriends().remove(friendId));
+      events.publishEvent(EntityChangedEvent.local(EntityType.FRIENDSHIP, userId));
+    }
+    return removed;
+  }
+
+  // Обратный поиск по индексу внешнего ключа friend_id
+  @Override
+  public List<Long> findFollowerIds(long userId, int limit) {
+    return jdbcTemplate.queryForList(
+        "SELECT user_id FROM friendships WHERE friend_id = ? ORDER BY user_id LIMIT ?", Long.class, userId, limit);
   }
 
   private void enrichUsers(List<User> users) {
@@ -109,51 +230,47 @@ public class UserDbStorage implements UserStorage {
         .map(User::getId)
         .distinct()
         .toList();
-    final Map<Long, Set<Long>> friendsByUser = loadFriends(userIds);
+    final Map<Long, LongSet> friendsByUser = loadFriends(userIds);
     for (User user : users) {
       user.getFriends().clear();
-      final Set<Long> friends = friendsByUser.get(user.getId());
+      final LongSet friends = friendsByUser.get(user.getId());
       if (friends != null) {
         user.getFriends().addAll(friends);
       }
     }
   }
 
-  private Map<Long, Set<Long>> loadFriends(List<Long> userIds) {
+  private Map<Long, LongSet> loadFriends(List<Long> userIds) {
     if (userIds.isEmpty()) {
       return Collections.emptyMap();
     }
-    final String placeholders = buildPlaceholders(userIds.size());
-    final String sql = "SELECT user_id, friend_id FROM friendships WHERE user_id IN ("
-        + placeholders + ") ORDER BY user_id, friend_id";
-    return jdbcTemplate.query(sql, this::extractFriends, userIds.toArray(Object[]::new));
-  }
-
-  private String buildPlaceholders(int size) {
-    return String.join(", ", Collections.nCopies(size, "?"));
-  }
-
-  private Map<Long, Set<Long>> extractFriends(ResultSet rs) throws SQLException {
-    final Map<Long, Set<Long>> result = new LinkedHashMap<>();
-    while (rs.next()) {
-      final long userId = rs.getLong("user_id");
-      result.computeIfAbsent(userId, key -> new LinkedHashSet<>())
-          .add(rs.getLong("friend_id"));
-    }
+    // ORDER BY friend_id: id приходят по возрастанию и дописываются в конец LongSet без сдвигов
+    final Map<Long, LongSet> result = new HashMap<>();
+    FRIENDS_BY_USERS.query(jdbcTemplate, userIds, (RowCallbackHandler) rs -> result
+        .computeIfAbsent(rs.getLong("user_id"), key -> new LongSet())
+        .add(rs.getLong("friend_id")));
     return result;
   }
 
-  private void updateFriends(User user) {
-    if (user.getId() == null) {
-      return;
-    }
-    jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ?", user.getId());
-    final Set<Long> friendIds = new LinkedHashSet<>(user.getFriends());
-    final List<Object[]> batchArgs = new ArrayList<>(friendIds.size());
+  private boolean existsInDb(long id) {
+    return Boolean.TRUE.equals(
+        jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM users WHERE id = ?)", Boolean.class, id));
+  }
+
+  // Себя в друзья не записываем — и в собранном пользователе такой связи тоже нет
+  private User assembled(User user) {
+    user.getFriends().remove(user.getId().longValue());
+    identityMap.put(user.getId(), user);
+    return user;
+  }
+
+  private void insertFriends(User user) {
+    final long[] friendIds = user.getFriends().toLongArray();
+    final List<Object[]> batchArgs = new ArrayList<>(friendIds.length);
     final String sql =
         "INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)";
-    for (Long friendId : friendIds) {
-      if (friendId == null || friendId.equals(user.getId())) {
+    for (long friendId : friendIds) {
+      if (friendId == user.getId()) {
         continue;
       }
       batchArgs.add(new Object[]{user.getId(), friendId});
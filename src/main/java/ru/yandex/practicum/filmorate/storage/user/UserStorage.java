@@ -1,6 +1,9 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
 /**
@@ -14,11 +17,36 @@ public interface UserStorage {
 
   List<User> findAll();
 
-  User getById(long id);
+  // Промах — пустой Optional, без исключения
+  Optional<User> findById(long id);
+
+  // Чтение мимо карты идентичности запроса: экземпляр не принадлежит ни одному запросу,
+  // его можно отдать нескольким потокам (SingleFlight) — и поэтому его никто не меняет
+  default Optional<User> findDetached(long id) {
+    return findById(id);
+  }
+
+  default User getById(long id) {
+    return findById(id).orElseThrow(() -> new NotFoundException("Пользователь с id=" + id + " не найден."));
+  }
+
+  // Пакетная загрузка: отсутствующие id пропускаются, порядок результата не гарантируется
+  List<User> findByIds(Collection<Long> ids);
+
+  // Проверка существования одним запросом, без загрузки друзей
+  boolean exists(long id);
 
   User create(User user);
 
   User update(User user);
 
   void delete(long id);
+
+  // Атомарные операции с дружбой (односторонняя связь userId -> friendId): true, если состояние изменилось
+  boolean addFriend(long userId, long friendId);
+
+  boolean removeFriend(long userId, long friendId);
+
+  // Подписчики: те, у кого userId в друзьях; не больше limit (для ленты активности)
+  List<Long> findFollowerIds(long userId, int limit);
 }
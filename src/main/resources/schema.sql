@@ -39,6 +39,7 @@ CREATE TABLE IF NOT EXISTS friendships (
 CREATE TABLE IF NOT EXISTS film_likes (
     film_id BIGINT NOT NULL,
     user_id BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
     CONSTRAINT pk_film_likes PRIMARY KEY (film_id, user_id),
     CONSTRAINT fk_film_likes_film FOREIGN KEY (film_id) REFERENCES films (id) ON DELETE CASCADE,
     CONSTRAINT fk_film_likes_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
@@ -52,6 +53,25 @@ CREATE TABLE IF NOT EXISTS film_genres (
     CONSTRAINT fk_film_genres_genre FOREIGN KEY (genre_id) REFERENCES genres (id)
 );
 
-CREATE INDEX IF NOT EXISTS idx_film_genres_genre ON film_genres (genre_id);
-CREATE INDEX IF NOT EXISTS idx_film_likes_user ON film_likes (user_id);
-CREATE INDEX IF NOT EXISTS idx_friendships_friend ON friendships (friend_id);
+-- (genre_id, film_id): выборка фильмов жанра читается целиком из индекса
+DROP INDEX IF EXISTS idx_film_genres_genre;
+CREATE INDEX IF NOT EXISTS idx_film_genres_genre_film ON film_genres (genre_id, film_id);
+CREATE INDEX IF NOT EXISTS idx_films_release_date ON films (release_date);
+-- Столбцы внешних ключей H2 индексирует сам (FK_*_INDEX); свои индексы на них дублировали те же данные
+DROP INDEX IF EXISTS idx_films_mpa;
+DROP INDEX IF EXISTS idx_film_likes_user;
+DROP INDEX IF EXISTS idx_friendships_friend;
+-- время лайка для трендов; у лайков, поставленных до появления колонки, — время миграции
+ALTER TABLE film_likes ADD COLUMN IF NOT EXISTS created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_film_likes_created ON film_likes (created_at);
+-- Модель чтения для списков (?view=card): карточка фильма одной строкой, обновляется асинхронно
+CREATE TABLE IF NOT EXISTS film_cards (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    mpa_name VARCHAR(16),
+    genre_ids VARCHAR(255),
+    genre_names VARCHAR(1024),
+    likes_count INTEGER NOT NULL,
+    release_year INTEGER
+);
+CREATE INDEX IF NOT EXISTS idx_film_cards_popular ON film_cards (likes_count DESC, id);
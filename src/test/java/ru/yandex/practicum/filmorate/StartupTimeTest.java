@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Время до первого ответа: запуск контекста на свободном порту и первый GET /genres.
+ * Первый старт — на пустой файловой БД (скрипты выполняются), второй — на той же БД
+ * (скрипты не изменились и пропускаются). Бюджет задаётся -Dfilmorate.startup.budget-ms.
+ * Запуск: {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@Slf4j
+class StartupTimeTest {
+
+    private static final long BUDGET_MS = Long.getLong("filmorate.startup.budget-ms", 60_000L);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldServeFirstRequestWithinBudget() throws Exception {
+        final String url = "jdbc:h2:file:" + directory.resolve("filmorate").toAbsolutePath();
+
+        final long cold = timeToFirstRequest(url, 2);
+        final long warm = timeToFirstRequest(url, 2);
+
+        log.info("Время до первого ответа: холодный старт {} мс, повторный {} мс", cold, warm);
+        assertThat(cold).isLessThan(BUDGET_MS);
+        assertThat(warm).isLessThan(BUDGET_MS);
+    }
+
+    private long timeToFirstRequest(String url, int expectedHistoryRows) throws Exception {
+        final long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.org.zalando.logbook=INFO",
+                        "spring.datasource.url=" + url)
+                .run()) {
+            final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            final HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/genres"))
+                            .timeout(Duration.ofSeconds(30))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            final long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).contains("Комедия");
+            final Integer historyRows = context.getBean(JdbcTemplate.class)
+                    .queryForObject("SELECT COUNT(*) FROM schema_history", Integer.class);
+            assertThat(historyRows).isEqualTo(expectedHistoryRows);
+            return elapsedMs;
+        }
+    }
+}
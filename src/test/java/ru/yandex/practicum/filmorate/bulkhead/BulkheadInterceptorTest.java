@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+class BulkheadInterceptorTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private long now;
+
+  @Test
+  void rejectsOverLimitWith429AndReleasesSlotOnCompletion() throws Exception {
+    final BulkheadInterceptor interceptor = new BulkheadInterceptor(
+        new BulkheadProperties(true, 1, 1, 1, 2.0, Duration.ofMillis(1500), Map.of()), registry);
+    final HandlerMethod handler = handler("heavy");
+
+    final MockHttpServletRequest first = new MockHttpServletRequest();
+    assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), handler)).isTrue();
+
+    final MockHttpServletResponse rejected = new MockHttpServletResponse();
+    assertThat(interceptor.preHandle(new MockHttpServletRequest(), rejected, handler)).isFalse();
+    assertThat(rejected.getStatus()).isEqualTo(429);
+    assertThat(rejected.getHeader("Retry-After")).isEqualTo("2");
+    assertThat(rejected.getContentAsString()).contains("message");
+    assertThat(registry.get("filmorate.bulkhead.rejected").tag("name", "heavy").counter().count()).isEqualTo(1.0);
+
+    // обработчики без @Bulkhead не ограничиваются
+    assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(),
+        handler("cheap"))).isTrue();
+
+    interceptor.afterCompletion(first, new MockHttpServletResponse(), handler, null);
+    assertThat(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler))
+        .isTrue();
+  }
+
+  @Test
+  void limitShrinksOnSlowResponsesAndGrowsBackWhenFast() {
+    final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 20, 2.0);
+    final long fast = TimeUnit.MILLISECONDS.toNanos(5);
+
+    occupyAndRelease(limiter, 10, fast);
+    final int warmed = limiter.limit();
+    assertThat(warmed).isGreaterThanOrEqualTo(10);
+
+    occupyAndRelease(limiter, warmed, fast * 10);
+    assertThat(limiter.limit()).isLessThan(warmed).isGreaterThanOrEqualTo(2);
+
+    final int shrunk = limiter.limit();
+    for (int i = 0; i < 20; i++) {
+      occupyAndRelease(limiter, limiter.limit(), fast);
+    }
+    assertThat(limiter.limit()).isGreaterThan(shrunk).isLessThanOrEqualTo(20);
+    assertThat(limiter.inFlight()).isZero();
+  }
+
+  @Test
+  void slowRequestsAtLowConcurrencyDoNotShrinkLimit() {
+    final AdaptiveLimiter limiter = new AdaptiveLimiter(8, 2, 20, 2.0);
+    final long fast = TimeUnit.MILLISECONDS.toNanos(5);
+
+    // дешёвые и дорогие запросы по одному: медленный ответ — не признак очереди
+    for (int i = 0; i < 100; i++) {
+      occupyAndRelease(limiter, 1, i % 2 == 0 ? fast : fast * 10);
+    }
+    assertThat(limiter.limit()).isEqualTo(8);
+
+    // при полной загрузке лимит снижается, но один раз за круг, а не на каждый медленный ответ
+    occupyAndRelease(limiter, 8, fast * 10);
+    assertThat(limiter.limit()).isEqualTo(7);
+    occupyAndRelease(limiter, 7, fast * 10);
+    assertThat(limiter.limit()).isEqualTo(6);
+  }
+
+  // Все запросы пачки начинаются одновременно и завершаются через latencyNanos по часам теста
+  private void occupyAndRelease(AdaptiveLimiter limiter, int count, long latencyNanos) {
+    int acquired = 0;
+    while (acquired < count && limiter.tryAcquire()) {
+      acquired++;
+    }
+    final long started = now;
+    now += latencyNanos;
+    for (int i = 0; i < acquired; i++) {
+      limiter.release(started, now);
+    }
+  }
+
+  private static HandlerMethod handler(String method) throws NoSuchMethodException {
+    return new HandlerMethod(new Routes(), Routes.class.getMethod(method));
+  }
+
+  static class Routes {
+
+    @Bulkhead("heavy")
+    public void heavy() {
+    }
+
+    public void cheap() {
+    }
+  }
+}
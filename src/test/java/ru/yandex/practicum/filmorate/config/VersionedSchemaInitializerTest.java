@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import(SchemaInitConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class VersionedSchemaInitializerTest {
+
+  private static final String GENRE_COUNT_SQL = "SELECT COUNT(*) FROM genres";
+
+  private final DataSource dataSource;
+  private final SqlInitializationProperties properties;
+  private final JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void restoreReferenceData() {
+    jdbcTemplate.update("DELETE FROM schema_history WHERE script = 'data.sql'");
+    new VersionedSchemaInitializer(dataSource, properties).initializeDatabase();
+  }
+
+  @Test
+  void skipsUnchangedScriptsAndReappliesChangedOnes() {
+    assertThat(jdbcTemplate.queryForList("SELECT script FROM schema_history ORDER BY script", String.class))
+        .containsExactly("data.sql", "schema.sql");
+    final int genres = jdbcTemplate.queryForObject(GENRE_COUNT_SQL, Integer.class);
+    jdbcTemplate.update("DELETE FROM genres WHERE id = 6");
+
+    // скрипты не менялись — data.sql не выполняется, удалённый жанр не возвращается
+    new VersionedSchemaInitializer(dataSource, properties).initializeDatabase();
+    assertThat(jdbcTemplate.queryForObject(GENRE_COUNT_SQL, Integer.class)).isEqualTo(genres - 1);
+
+    // другая контрольная сумма = скрипт изменился — выполняется снова
+    jdbcTemplate.update("UPDATE schema_history SET checksum = 'outdated' WHERE script = 'data.sql'");
+    new VersionedSchemaInitializer(dataSource, properties).initializeDatabase();
+    assertThat(jdbcTemplate.queryForObject(GENRE_COUNT_SQL, Integer.class)).isEqualTo(genres);
+  }
+}
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(classes = ru.yandex.practicum.filmorate.FilmorateApplication.class)
+@AutoConfigureMockMvc
+class FilmControllerPopularTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldReflectNewLikeInCachedPopularList() throws Exception {
+        long filmId = createFilm();
+        long userId = createUser();
+
+        // прогреваем кэш до лайка
+        mockMvc.perform(get("/films/popular").param("count", "1"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+
+        byte[] body = mockMvc.perform(get("/films/popular").param("count", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode top = objectMapper.readTree(body);
+        assertThat(top).hasSize(1);
+        assertThat(top.get(0).get("likes").size()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void shouldServeGzipVariantWithSameContent() throws Exception {
+        createFilm();
+
+        byte[] plain = mockMvc.perform(get("/films/popular").param("count", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        byte[] compressed = mockMvc.perform(get("/films/popular").param("count", "5")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void shouldNotGzipWhenClientRefusesIt() throws Exception {
+        createFilm();
+
+        for (String refusal : new String[]{"gzip;q=0", "deflate, gzip; q=0.0", "*;q=1, gzip;q=0"}) {
+            mockMvc.perform(get("/films/popular").param("count", "5")
+                            .header(HttpHeaders.ACCEPT_ENCODING, refusal))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        }
+        mockMvc.perform(get("/films/popular").param("count", "5")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1, *;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    void shouldServeCardsFromReadModelOnceProjected() throws Exception {
+        long filmId = createFilm();
+        long userId = createUser();
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+
+        // карточки обновляются асинхронно — ждём, пока очередь дойдёт до фильма
+        JsonNode card = null;
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            byte[] body = mockMvc.perform(get("/films").param("view", "card")
+                            .param("after", String.valueOf(filmId - 1)).param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsByteArray();
+            JsonNode page = objectMapper.readTree(body);
+            if (page.size() == 1 && page.get(0).get("id").asLong() == filmId
+                    && page.get(0).get("likes").asInt() == 1) {
+                card = page.get(0);
+                break;
+            }
+            Thread.sleep(20);
+        }
+
+        assertThat(card).isNotNull();
+        assertThat(card.get("mpa").asText()).isEqualTo("G");
+        assertThat(card.get("releaseYear").asInt()).isEqualTo(2000);
+        assertThat(card.has("description")).isFalse();
+    }
+
+    private long createFilm() throws Exception {
+        Map<String, Object> payload = Map.of(
+                "name", "Popular " + System.nanoTime(),
+                "description", "Ok",
+                "releaseDate", "2000-01-01",
+                "duration", 100,
+                "mpa", Map.of("id", 1)
+        );
+        byte[] body = mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(payload)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private long createUser() throws Exception {
+        // уникальные логин/email, чтобы не ловить UNIQUE-ошибку из БД
+        String login = "fan_" + System.nanoTime();
+        Map<String, Object> payload = Map.of(
+                "email", login + "@example.com",
+                "login", login,
+                "name", "Fan",
+                "birthday", "1990-01-01"
+        );
+        byte[] body = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(payload)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
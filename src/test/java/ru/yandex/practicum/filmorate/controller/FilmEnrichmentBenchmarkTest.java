@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+
+/**
+ * Задержка GET /films и GET /films/popular с последовательной и параллельной догрузкой жанров
+ * и лайков (filmorate.storage.parallel-enrichment). Каждый режим — своя in-memory БД с теми же
+ * данными; кэш популярных сбрасывается перед каждым запросом, чтобы мерить хранилище.
+ *
+ * <p>Встроенной H2 параллельность почти ничего не даёт: запросы упираются в CPU, сетевого
+ * круга нет. Поэтому замер повторяется с задержкой {@link #ROUND_TRIP_MS} на каждый запрос
+ * к БД — как у отдельного сервера БД в сети. Запуск: {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+class FilmEnrichmentBenchmarkTest {
+
+    private static final int FILMS = 1_000;
+    private static final int USERS = 1_000;
+    private static final int LIKES_PER_FILM = 20;
+    private static final int POPULAR_COUNT = 100;
+    private static final int REQUESTS = 200;
+    private static final long ROUND_TRIP_MS = 5;
+
+    private static volatile long roundTripMs;
+
+    @Nested
+    @SpringBootTest(classes = ru.yandex.practicum.filmorate.FilmorateApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:enrichment-sequential;DB_CLOSE_DELAY=-1",
+        "filmorate.storage.parallel-enrichment.enabled=false"})
+    @AutoConfigureMockMvc
+    @Import(RoundTripDelay.class)
+    class Sequential extends Mode {
+
+        @Test
+        void listLatency() throws Exception {
+            run("sequential");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(classes = ru.yandex.practicum.filmorate.FilmorateApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:enrichment-parallel;DB_CLOSE_DELAY=-1",
+        "filmorate.storage.parallel-enrichment.enabled=true"})
+    @AutoConfigureMockMvc
+    @Import(RoundTripDelay.class)
+    class Parallel extends Mode {
+
+        @Test
+        void listLatency() throws Exception {
+            run("parallel");
+        }
+    }
+
+    abstract static class Mode {
+
+        @Autowired
+        private MockMvc mockMvc;
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+        @Autowired
+        private PopularFilmsCache popularCache;
+
+        void run(String mode) throws Exception {
+            seed();
+            for (int i = 0; i < REQUESTS / 5; i++) {
+                requestAll();
+                requestPopular();
+            }
+            roundTripMs = 0;
+            measure(mode + ", embedded H2");
+            roundTripMs = ROUND_TRIP_MS;
+            try {
+                measure(mode + ", round trip " + ROUND_TRIP_MS + " ms");
+            } finally {
+                roundTripMs = 0;
+            }
+        }
+
+        private void measure(String mode) throws Exception {
+            final long[] all = new long[REQUESTS];
+            final long[] popular = new long[REQUESTS];
+            for (int i = 0; i < REQUESTS; i++) {
+                final long allStart = System.nanoTime();
+                requestAll();
+                all[i] = System.nanoTime() - allStart;
+                final long popularStart = System.nanoTime();
+                requestPopular();
+                popular[i] = System.nanoTime() - popularStart;
+            }
+            System.out.printf("%s: GET /films (%d films) p50 %.2f ms, GET /films/popular?count=%d p50 %.2f ms%n",
+                mode, FILMS, median(all), POPULAR_COUNT, median(popular));
+        }
+
+        private static double median(long[] nanos) {
+            Arrays.sort(nanos);
+            return nanos[nanos.length / 2] / 1e6;
+        }
+
+        private void requestAll() throws Exception {
+            mockMvc.perform(get("/films")).andExpect(status().isOk());
+        }
+
+        private void requestPopular() throws Exception {
+            popularCache.invalidate();
+            mockMvc.perform(get("/films/popular").param("count", String.valueOf(POPULAR_COUNT)))
+                .andExpect(status().isOk());
+        }
+
+        private void seed() {
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) "
+                + "SELECT 'b' || x || '@example.com', 'b' || x, 'B', DATE '1990-01-01' FROM SYSTEM_RANGE(1, ?)", USERS);
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) "
+                + "SELECT 'Film ' || x, 'D', DATEADD(DAY, x, DATE '1990-01-01'), 100, MOD(x, 5) + 1 "
+                + "FROM SYSTEM_RANGE(1, ?)", FILMS);
+            jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) "
+                + "SELECT id, MOD(id, 6) + 1 FROM films UNION SELECT id, MOD(id + 2, 6) + 1 FROM films");
+            jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) SELECT f.id, u.id FROM films f "
+                + "JOIN users u ON MOD(f.id * 31 + u.id, ?) = 0", USERS / LIKES_PER_FILM);
+        }
+    }
+
+    // Задержка перед каждым выполнением запроса — имитация сетевого круга до сервера БД
+    static class RoundTripDelay implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean instanceof DataSource dataSource ? new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return delayed(Connection.class, super.getConnection());
+                }
+            } : bean;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T delayed(Class<T> type, T target) {
+            return (T) Proxy.newProxyInstance(RoundTripDelay.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute") && roundTripMs > 0) {
+                        TimeUnit.MILLISECONDS.sleep(roundTripMs);
+                    }
+                    final Object result = invoke(target, method, args);
+                    return result instanceof PreparedStatement statement && type == Connection.class
+                        ? delayed(PreparedStatement.class, statement) : result;
+                });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.invalidation.EntityType;
+import ru.yandex.practicum.filmorate.invalidation.HttpPeerTransport;
+import ru.yandex.practicum.filmorate.invalidation.InvalidationBatch;
+
+@SpringBootTest(classes = ru.yandex.practicum.filmorate.FilmorateApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.datasource.url=jdbc:h2:mem:invalidation-peers;DB_CLOSE_DELAY=-1",
+            "filmorate.invalidation.transport=http",
+            "filmorate.invalidation.token=peer-secret"})
+@AutoConfigureMockMvc
+class InvalidationControllerTest {
+
+    private static final String BATCH = "{\"node\": \"other\", \"changes\": [{\"type\": \"FILM\", \"id\": 1}]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void shouldRejectBatchWithoutPeerToken() throws Exception {
+        final double before = received();
+
+        mockMvc.perform(post(HttpPeerTransport.PATH).contentType(MediaType.APPLICATION_JSON).content(BATCH))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(HttpPeerTransport.PATH).contentType(MediaType.APPLICATION_JSON).content(BATCH)
+                        .header(HttpPeerTransport.TOKEN_HEADER, "guess"))
+                .andExpect(status().isUnauthorized());
+        assertThat(received()).isEqualTo(before);
+
+        mockMvc.perform(post(HttpPeerTransport.PATH).contentType(MediaType.APPLICATION_JSON).content(BATCH)
+                        .header(HttpPeerTransport.TOKEN_HEADER, "peer-secret"))
+                .andExpect(status().isNoContent());
+        assertThat(received()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void shouldAcceptBatchFromPeerTransportWithSameToken() {
+        final double before = received();
+        final InvalidationBatch batch = new InvalidationBatch("other",
+                List.of(new InvalidationBatch.Change(EntityType.USER, 5), new InvalidationBatch.Change(EntityType.FILM, 6)));
+
+        new HttpPeerTransport(List.of(URI.create("http://localhost:" + port)), Duration.ofSeconds(2), "peer-secret")
+                .send(batch);
+        assertThat(received()).isEqualTo(before + 2);
+
+        // чужой токен — пачка не доходит до шины (транспорт только пишет предупреждение)
+        new HttpPeerTransport(List.of(URI.create("http://localhost:" + port)), Duration.ofSeconds(2), "other")
+                .send(batch);
+        assertThat(received()).isEqualTo(before + 2);
+    }
+
+    private double received() {
+        return meterRegistry.counter("filmorate.invalidation.received").count();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(classes = ru.yandex.practicum.filmorate.FilmorateApplication.class)
+@AutoConfigureMockMvc
+class MultiGetControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldReturnFilmsInRequestOrderAndReportMissing() throws Exception {
+        long first = create("/films", film());
+        long second = create("/films", film());
+        long missing = second + 1_000_000;
+
+        mockMvc.perform(get("/films").param("ids", second + "," + missing + "," + first + "," + second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(second))
+                .andExpect(jsonPath("$.items[1].id").value(first))
+                .andExpect(jsonPath("$.items[1].mpa.name").value("G"))
+                .andExpect(jsonPath("$.missing[0]").value(missing));
+    }
+
+    @Test
+    void shouldReturnUsersInRequestOrder() throws Exception {
+        long first = create("/users", user());
+        long second = create("/users", user());
+
+        mockMvc.perform(get("/users").param("ids", second + "," + first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(second))
+                .andExpect(jsonPath("$.items[1].id").value(first))
+                .andExpect(jsonPath("$.missing.length()").value(0));
+    }
+
+    @Test
+    void shouldRejectTooManyIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, 101)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/films").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long create(String path, Map<String, Object> payload) throws Exception {
+        byte[] body = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(payload)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private static Map<String, Object> film() {
+        return Map.of(
+                "name", "Card " + System.nanoTime(),
+                "description", "Ok",
+                "releaseDate", "2000-01-01",
+                "duration", 100,
+                "mpa", Map.of("id", 1)
+        );
+    }
+
+    private static Map<String, Object> user() {
+        // уникальные логин/email, чтобы не ловить UNIQUE-ошибку из БД
+        String login = "card_" + System.nanoTime();
+        return Map.of(
+                "email", login + "@example.com",
+                "login", login,
+                "name", "Card",
+                "birthday", "1990-01-01"
+        );
+    }
+}
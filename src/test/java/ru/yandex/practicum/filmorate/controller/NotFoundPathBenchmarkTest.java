@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+/**
+ * Стоимость ответа 404 при переборе случайных id и стоимость самого исключения
+ * со стектрейсом и без. Запуск: {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = ru.yandex.practicum.filmorate.FilmorateApplication.class)
+@AutoConfigureMockMvc
+class NotFoundPathBenchmarkTest {
+
+    private static final int REQUESTS = 20_000;
+    private static final int EXCEPTIONS = 200_000;
+    // глубина стека примерно как у запроса, прошедшего фильтры, MVC и сервисы
+    private static final int STACK_DEPTH = 120;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void randomIdScan() throws Exception {
+        final Random random = new Random(1);
+        for (int i = 0; i < REQUESTS / 10; i++) {
+            requestMissing(random);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            requestMissing(random);
+        }
+        final double avgMicros = (System.nanoTime() - start) / 1_000.0 / REQUESTS;
+        System.out.printf("404 path: %.1f us per GET /films/{random id} or /users/{random id}%n", avgMicros);
+    }
+
+    @Test
+    void exceptionConstructionCost() {
+        final double stackful = nanosPerException(() -> new RuntimeException("Фильм с id=1 не найден."));
+        final double stackless = nanosPerException(() -> new NotFoundException("Фильм с id=1 не найден."));
+        System.out.printf("exception at depth %d: with stack %.0f ns, NotFoundException %.0f ns%n",
+            STACK_DEPTH, stackful, stackless);
+        assertThat(new NotFoundException("x").getStackTrace()).isEmpty();
+    }
+
+    private void requestMissing(Random random) throws Exception {
+        final long id = 1_000_000_000L + random.nextInt(1_000_000_000);
+        mockMvc.perform(get(random.nextBoolean() ? "/films/{id}" : "/users/{id}", id))
+            .andExpect(status().isNotFound());
+    }
+
+    private static double nanosPerException(Supplier<RuntimeException> factory) {
+        atDepth(STACK_DEPTH, factory, EXCEPTIONS / 10);
+        final long start = System.nanoTime();
+        final int created = atDepth(STACK_DEPTH, factory, EXCEPTIONS);
+        return (double) (System.nanoTime() - start) / created;
+    }
+
+    private static int atDepth(int depth, Supplier<RuntimeException> factory, int count) {
+        if (depth > 0) {
+            return atDepth(depth - 1, factory, count);
+        }
+        int created = 0;
+        for (int i = 0; i < count; i++) {
+            if (factory.get().getMessage() != null) {
+                created++;
+            }
+        }
+        return created;
+    }
+}
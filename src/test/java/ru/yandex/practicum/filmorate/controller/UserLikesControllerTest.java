@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(classes = ru.yandex.practicum.filmorate.FilmorateApplication.class)
+@AutoConfigureMockMvc
+class UserLikesControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldApplyBatchAndReportStatusPerItem() throws Exception {
+        long userId = createUser();
+        long liked = createFilm();
+        long fresh = createFilm();
+        long missing = fresh + 1_000_000;
+        mockMvc.perform(put("/films/{id}/like/{userId}", liked, userId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/users/{userId}/likes:batch", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "add", List.of(fresh, missing, fresh),
+                                "remove", List.of(liked)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(userId))
+                .andExpect(jsonPath("$.results.length()").value(4))
+                .andExpect(jsonPath("$.results[0].status").value("ADDED"))
+                .andExpect(jsonPath("$.results[1].status").value("FILM_NOT_FOUND"))
+                .andExpect(jsonPath("$.results[2].status").value("UNCHANGED"))
+                .andExpect(jsonPath("$.results[3].action").value("REMOVE"))
+                .andExpect(jsonPath("$.results[3].status").value("REMOVED"));
+
+        byte[] body = mockMvc.perform(get("/films/{id}", fresh))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(objectMapper.readTree(body).get("likes").get(0).asLong()).isEqualTo(userId);
+    }
+
+    @Test
+    void shouldRejectBatchForUnknownUserOrConflictingLists() throws Exception {
+        long filmId = createFilm();
+
+        mockMvc.perform(post("/users/{userId}/likes:batch", Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("add", List.of(filmId)))))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/users/{userId}/likes:batch", createUser())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "add", List.of(filmId),
+                                "remove", List.of(filmId)))))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long createFilm() throws Exception {
+        Map<String, Object> payload = Map.of(
+                "name", "Batch " + System.nanoTime(),
+                "description", "Ok",
+                "releaseDate", "2000-01-01",
+                "duration", 100,
+                "mpa", Map.of("id", 1)
+        );
+        byte[] body = mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(payload)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private long createUser() throws Exception {
+        // уникальные логин/email, чтобы не ловить UNIQUE-ошибку из БД
+        String login = "sync_" + System.nanoTime();
+        Map<String, Object> payload = Map.of(
+                "email", login + "@example.com",
+                "login", login,
+                "name", "Sync",
+                "birthday", "1990-01-01"
+        );
+        byte[] body = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(payload)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class InvalidationBusTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final LoopbackTransport transport = new LoopbackTransport();
+  private final List<InvalidationBatch> batches = new CopyOnWriteArrayList<>();
+  private final List<Object> eventsA = new CopyOnWriteArrayList<>();
+  private final List<Object> eventsB = new CopyOnWriteArrayList<>();
+  private InvalidationBus nodeA;
+  private InvalidationBus nodeB;
+
+  @AfterEach
+  void tearDown() {
+    nodeA.close();
+    nodeB.close();
+  }
+
+  @Test
+  void peersReceiveDeduplicatedChangesAsRemoteEvents() {
+    start(100);
+
+    nodeA.onLocalChange(EntityChangedEvent.local(EntityType.FILM, 1));
+    nodeA.onLocalChange(EntityChangedEvent.local(EntityType.LIKE, 1));
+    nodeA.onLocalChange(EntityChangedEvent.local(EntityType.LIKE, 1));
+    nodeA.onLocalChange(EntityChangedEvent.local(EntityType.FRIENDSHIP, 7));
+    nodeA.flush();
+
+    assertThat(batches).hasSize(1);
+    assertThat(eventsB).containsExactly(
+        new EntityChangedEvent(EntityType.FILM, 1, true),
+        new EntityChangedEvent(EntityType.LIKE, 1, true),
+        new EntityChangedEvent(EntityType.FRIENDSHIP, 7, true));
+    // отправитель свою пачку пропускает
+    assertThat(eventsA).isEmpty();
+    assertThat(registry.counter("filmorate.invalidation.sent").count()).isEqualTo(3.0);
+
+    // пришедшее с другого узла дальше не рассылается
+    for (Object event : eventsB) {
+      nodeB.onLocalChange((EntityChangedEvent) event);
+    }
+    nodeB.flush();
+    assertThat(batches).hasSize(1);
+  }
+
+  @Test
+  void fullBatchIsSentWithoutWaitingForInterval() throws InterruptedException {
+    start(2);
+
+    for (long id = 1; id <= 5; id++) {
+      nodeA.onLocalChange(EntityChangedEvent.local(EntityType.USER, id));
+    }
+    final long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (eventsB.size() < 4 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    nodeA.flush();
+
+    assertThat(eventsB).hasSize(5);
+    assertThat(batches).allSatisfy(batch -> assertThat(batch.changes()).hasSizeLessThanOrEqualTo(2));
+  }
+
+  // интервал большой — пачки уходят только по заполнению или явным flush()
+  private void start(int maxBatch) {
+    transport.bind(batches::add);
+    nodeA = new InvalidationBus("a", transport, eventsA::add, registry, Duration.ofHours(1), maxBatch);
+    nodeB = new InvalidationBus("b", transport, eventsB::add, new SimpleMeterRegistry(), Duration.ofHours(1), maxBatch);
+  }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import lombok.RequiredArgsConstructor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FilmDbStorage.class, UserDbStorage.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class JournalLikesRebuilderTest {
+
+  private final FilmDbStorage filmStorage;
+  private final UserDbStorage userStorage;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void appliesFinalLikeStateFromJournal() {
+    final long film = filmStorage.create(sampleFilm()).getId();
+    final long alice = userStorage.create(sampleUser("alice")).getId();
+    final long bob = userStorage.create(sampleUser("bob")).getId();
+    // у bob лайк есть в БД, но в журнале он снят
+    filmStorage.addLike(film, bob);
+
+    try (MappedFileJournal journal = new MappedFileJournal(directory, 4096, Duration.ZERO)) {
+      journal.append(JournalEventType.LIKE, alice, film);
+      journal.append(JournalEventType.LIKE, bob, film);
+      journal.append(JournalEventType.UNLIKE, bob, film);
+      journal.append(JournalEventType.LIKE, alice, film);
+      // фильм удалён — событие пропускается
+      journal.append(JournalEventType.LIKE, alice, film + 1000);
+      journal.append(JournalEventType.FRIEND_ADD, alice, bob);
+    }
+
+    final JournalLikesRebuilder.Result result =
+        new JournalLikesRebuilder(new JournalReader(directory), jdbcTemplate, transactionTemplate).rebuild();
+
+    assertThat(result.events()).isEqualTo(6);
+    assertThat(filmStorage.getById(film).getLikes()).containsExactly(alice);
+  }
+
+  private Film sampleFilm() {
+    final Film film = new Film();
+    film.setName("Journaled");
+    film.setReleaseDate(LocalDate.of(2000, 1, 1));
+    film.setDuration(100);
+    film.setMpa(new Mpa(1, null));
+    return film;
+  }
+
+  private User sampleUser(String login) {
+    final User user = new User();
+    user.setEmail(login + "@example.com");
+    user.setLogin(login);
+    user.setName(login);
+    user.setBirthday(LocalDate.of(1990, 1, 1));
+    return user;
+  }
+}
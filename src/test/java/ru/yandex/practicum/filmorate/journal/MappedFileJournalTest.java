@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFileJournalTest {
+
+  // заголовок + 4 записи на сегмент
+  private static final int SEGMENT_SIZE = JournalFormat.HEADER_SIZE + 4 * JournalFormat.RECORD_SIZE;
+  private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void rollsSegmentsAndReplaysEventsInOrder() throws Exception {
+    try (MappedFileJournal journal = new MappedFileJournal(directory, SEGMENT_SIZE, Duration.ZERO, CLOCK)) {
+      for (long i = 1; i <= 10; i++) {
+        journal.append(i % 2 == 0 ? JournalEventType.UNLIKE : JournalEventType.LIKE, i, 100 + i);
+      }
+    }
+
+    assertThat(JournalFormat.listSegments(directory)).hasSize(3);
+    final List<JournalEvent> events = replayAll();
+    assertThat(events).hasSize(10);
+    assertThat(events.get(0)).isEqualTo(
+        new JournalEvent(JournalEventType.LIKE, CLOCK.millis(), 1, 101));
+    assertThat(events.get(9)).isEqualTo(
+        new JournalEvent(JournalEventType.UNLIKE, CLOCK.millis(), 10, 110));
+  }
+
+  @Test
+  void continuesAfterLastRecordOnReopen() throws Exception {
+    try (MappedFileJournal journal = new MappedFileJournal(directory, SEGMENT_SIZE, Duration.ofMillis(10), CLOCK)) {
+      journal.append(JournalEventType.FRIEND_ADD, 1, 2);
+    }
+    try (MappedFileJournal journal = new MappedFileJournal(directory, SEGMENT_SIZE, Duration.ofMillis(10), CLOCK)) {
+      journal.append(JournalEventType.FRIEND_REMOVE, 1, 2);
+    }
+
+    assertThat(replayAll()).extracting(JournalEvent::type)
+        .containsExactly(JournalEventType.FRIEND_ADD, JournalEventType.FRIEND_REMOVE);
+  }
+
+  private List<JournalEvent> replayAll() {
+    final List<JournalEvent> events = new ArrayList<>();
+    new JournalReader(directory).replay(events::add);
+    return events;
+  }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Память под лайки фильма: HashSet&lt;Long&gt; (прежний тип поля) против LongSet.
+ * Запуск: {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+class LongSetMemoryBenchmarkTest {
+
+  private static final int IDS = 1_000_000;
+
+  @Test
+  void millionLikesFootprint() {
+    final long hashSetBytes = retainedBytes(() -> {
+      final Set<Long> set = new HashSet<>();
+      for (long id = 1; id <= IDS; id++) {
+        set.add(id * 7);
+      }
+      return set;
+    });
+    final long longSetBytes = retainedBytes(() -> {
+      final LongSet set = new LongSet();
+      for (long id = 1; id <= IDS; id++) {
+        set.add(id * 7);
+      }
+      return set;
+    });
+
+    System.out.printf("%,d ids: HashSet<Long> %,d bytes (%.1f/id), LongSet %,d bytes (%.1f/id)%n",
+        IDS, hashSetBytes, (double) hashSetBytes / IDS, longSetBytes, (double) longSetBytes / IDS);
+    assertThat(longSetBytes).isLessThan(hashSetBytes);
+  }
+
+  // Прирост занятой кучи после сборки мусора, пока построенный объект ещё достижим
+  private static long retainedBytes(Supplier<Object> factory) {
+    final long before = usedAfterGc();
+    final Object retained = factory.get();
+    final long after = usedAfterGc();
+    assertThat(retained).isNotNull();
+    return after - before;
+  }
+
+  private static long usedAfterGc() {
+    final Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
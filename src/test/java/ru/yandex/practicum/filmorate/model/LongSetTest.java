@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class LongSetTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  @Test
+  void behavesLikeSortedSetOfLongs() {
+    final Random random = new Random(7);
+    final LongSet set = new LongSet();
+    final TreeSet<Long> expected = new TreeSet<>();
+    for (int i = 0; i < 5_000; i++) {
+      final long id = random.nextInt(1_000);
+      if (random.nextInt(3) == 0) {
+        assertThat(set.remove(id)).isEqualTo(expected.remove(id));
+      } else {
+        assertThat(set.add(id)).isEqualTo(expected.add(id));
+      }
+    }
+
+    assertThat(set).containsExactlyElementsOf(expected);
+    assertThat(set).isEqualTo(new HashSet<>(expected));
+    assertThat(set.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(set.contains((Object) "1")).isFalse();
+  }
+
+  @Test
+  void addAllMergesAndIteratorRemoves() {
+    final LongSet set = new LongSet(List.of(5L, 1L, 3L));
+    assertThat(set.addAll(new LongSet(List.of(2L, 3L, 8L)))).isTrue();
+    assertThat(set.addAll(new LongSet(List.of(1L, 8L)))).isFalse();
+    assertThat(set.toLongArray()).containsExactly(1, 2, 3, 5, 8);
+
+    final Iterator<Long> iterator = set.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next() % 2 == 0) {
+        iterator.remove();
+      }
+    }
+    assertThat(set).containsExactly(1L, 3L, 5L);
+  }
+
+  @Test
+  void jsonIsPlainArrayBothWays() throws Exception {
+    final Film film = new Film();
+    film.getLikes().addAll(Set.of(3L, 1L, 2L));
+
+    final String json = objectMapper.writeValueAsString(film);
+    assertThat(json).contains("\"likes\":[1,2,3]");
+
+    final User user = objectMapper.readValue("{\"login\":\"u\",\"friends\":[9,4,9]}", User.class);
+    assertThat(user.getFriends()).containsExactly(4L, 9L);
+    assertThat(objectMapper.readValue("[2,1]", LongSet.class)).containsExactly(1L, 2L);
+  }
+}
@@ -0,0 +1,204 @@
+package ru.yandex.practicum.filmorate.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.journal.EventJournal;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.feed.ActivityFeed;
+import ru.yandex.practicum.filmorate.service.feed.FeedProperties;
+import ru.yandex.practicum.filmorate.service.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.trending.TrendingTracker;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+class PopularStreamPublisherTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+  private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+  private FilmService filmService;
+  private PopularStreamPublisher publisher;
+
+  @BeforeEach
+  void setUp() {
+    final SingleFlight singleFlight = new SingleFlight(registry, Duration.ofSeconds(2));
+    final PopularFilmsCache cache = new PopularFilmsCache(new ObjectMapper().findAndRegisterModules(), singleFlight);
+    filmService = new FilmService(filmStorage, userStorage, cache, new FilmSearchIndex(),
+        EventJournal.NOOP, singleFlight, new TrendingTracker(Clock.systemUTC()),
+        new ActivityFeed(userStorage, Clock.systemUTC(), new FeedProperties(100, 1000, 1000, 0)));
+    // тик вызываем вручную; один поток рассылки — чтобы медленный клиент был воспроизводим
+    publisher = new PopularStreamPublisher(cache, filmService, registry, Duration.ZERO, Duration.ofMinutes(1), 1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    publisher.shutdown();
+  }
+
+  @Test
+  void subscriberGetsCurrentTopThenOnlyChanges() throws Exception {
+    final long filmId = filmStorage.create(sampleFilm()).getId();
+    final long userId = userStorage.create(sampleUser(1)).getId();
+    final RecordingEmitter emitter = new RecordingEmitter();
+
+    publisher.register(10, emitter);
+    emitter.awaitEvents(1);
+
+    publisher.tick();
+    filmService.addLike(filmId, userId);
+    publisher.tick();
+    publisher.tick();
+    emitter.awaitEvents(2);
+
+    assertThat(emitter.events).hasSize(2);
+  }
+
+  @Test
+  void unchangedTopIsNotResentAfterUnrelatedUpdate() throws Exception {
+    final long leaderId = filmStorage.create(sampleFilm()).getId();
+    final long otherId = filmStorage.create(sampleFilm()).getId();
+    for (int i = 0; i < 3; i++) {
+      filmService.addLike(leaderId, userStorage.create(sampleUser(i)).getId());
+    }
+    final RecordingEmitter first = new RecordingEmitter();
+    final RecordingEmitter second = new RecordingEmitter();
+    publisher.register(1, first);
+    publisher.register(1, second);
+    first.awaitEvents(1);
+    second.awaitEvents(1);
+
+    // версия кэша меняется, но первое место то же — рассылать нечего
+    filmService.addLike(otherId, userStorage.create(sampleUser(10)).getId());
+    publisher.tick();
+    TimeUnit.MILLISECONDS.sleep(100);
+
+    assertThat(first.events).hasSize(1);
+    assertThat(second.events).hasSize(1);
+  }
+
+  @Test
+  void slowSubscriberSkipsIntermediateSnapshots() throws Exception {
+    final long filmId = filmStorage.create(sampleFilm()).getId();
+    final RecordingEmitter slow = new RecordingEmitter();
+    slow.blockNextSend();
+    publisher.register(10, slow);
+    slow.awaitBlocked();
+
+    for (int i = 0; i < 5; i++) {
+      filmService.addLike(filmId, userStorage.create(sampleUser(i)).getId());
+      publisher.tick();
+    }
+    slow.release();
+    slow.awaitEvents(2);
+    TimeUnit.MILLISECONDS.sleep(100);
+
+    // первый снимок и последний, промежуточные затёрты
+    assertThat(slow.events).hasSize(2);
+    assertThat(registry.counter("filmorate.popular.stream.dropped").count()).isEqualTo(4.0);
+  }
+
+  @Test
+  void completedSubscriberIsRemoved() throws Exception {
+    final RecordingEmitter emitter = new RecordingEmitter();
+    publisher.register(10, emitter);
+    emitter.awaitEvents(1);
+    assertThat(registry.get("filmorate.popular.stream.subscribers").gauge().value()).isEqualTo(1.0);
+
+    emitter.failNextSend();
+    final long filmId = filmStorage.create(sampleFilm()).getId();
+    filmService.addLike(filmId, userStorage.create(sampleUser(1)).getId());
+    publisher.tick();
+
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (registry.get("filmorate.popular.stream.subscribers").gauge().value() > 0
+        && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    assertThat(registry.get("filmorate.popular.stream.subscribers").gauge().value()).isZero();
+  }
+
+  private Film sampleFilm() {
+    final Film film = new Film();
+    film.setName("Film");
+    film.setReleaseDate(LocalDate.of(2000, 1, 1));
+    film.setDuration(100);
+    film.setMpa(new Mpa(1, "G"));
+    return film;
+  }
+
+  private User sampleUser(int n) {
+    final User user = new User();
+    user.setEmail("user" + n + "@example.com");
+    user.setLogin("user" + n);
+    user.setName("User " + n);
+    user.setBirthday(LocalDate.of(1990, 1, 1));
+    return user;
+  }
+
+  // Вместо HTTP-соединения запоминает отправленные события; может «зависнуть» или упасть на отправке
+  private static final class RecordingEmitter extends SseEmitter {
+
+    private final List<SseEventBuilder> events = new CopyOnWriteArrayList<>();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private volatile CountDownLatch gate;
+    private volatile boolean fail;
+
+    void blockNextSend() {
+      gate = new CountDownLatch(1);
+    }
+
+    void awaitBlocked() throws InterruptedException {
+      assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    void release() {
+      gate.countDown();
+    }
+
+    void failNextSend() {
+      fail = true;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (fail) {
+        throw new IOException("client gone");
+      }
+      final CountDownLatch current = gate;
+      if (current != null) {
+        entered.countDown();
+        try {
+          current.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        gate = null;
+      }
+      events.add(builder);
+    }
+
+    void awaitEvents(int expected) throws InterruptedException {
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (events.size() < expected && System.nanoTime() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+      assertThat(events).hasSizeGreaterThanOrEqualTo(expected);
+    }
+  }
+}
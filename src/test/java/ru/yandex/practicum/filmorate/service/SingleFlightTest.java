@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+class SingleFlightTest {
+
+  private static final int CALLERS = 32;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void concurrentCallersShareOneLoad() throws Exception {
+    final SingleFlight singleFlight = new SingleFlight(registry, Duration.ofSeconds(10));
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final List<Future<String>> results = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(executor.submit(() -> singleFlight.execute("film", 1L, () -> {
+        loads.incrementAndGet();
+        await(release);
+        return "film-1";
+      })));
+    }
+    // ждём, пока все ведомые встанут в ожидание, и только потом отпускаем загрузку
+    while (count("leader") + count("coalesced") < CALLERS) {
+      Thread.onSpinWait();
+    }
+    release.countDown();
+
+    for (Future<String> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("film-1");
+    }
+    assertThat(loads).hasValue(1);
+    assertThat(count("coalesced")).isEqualTo(CALLERS - 1);
+  }
+
+  @Test
+  void followerLoadsItselfAfterTimeout() throws Exception {
+    final SingleFlight singleFlight = new SingleFlight(registry, Duration.ofMillis(50));
+    final CountDownLatch release = new CountDownLatch(1);
+    final Future<String> leader = executor.submit(() -> singleFlight.execute("film", 1L, () -> {
+      await(release);
+      return "slow";
+    }));
+    while (count("leader") == 0) {
+      Thread.onSpinWait();
+    }
+
+    assertThat(singleFlight.execute("film", 1L, () -> "fast")).isEqualTo("fast");
+    assertThat(count("timeout")).isEqualTo(1);
+    release.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+  }
+
+  @Test
+  void leaderFailureIsRethrownAndNotRemembered() {
+    final SingleFlight singleFlight = new SingleFlight(registry, Duration.ofSeconds(1));
+
+    assertThatThrownBy(() -> singleFlight.execute("user", 7L, () -> {
+      throw new NotFoundException("Пользователь с id=7 не найден.");
+    })).isInstanceOf(NotFoundException.class);
+    assertThat(singleFlight.execute("user", 7L, () -> "user-7")).isEqualTo("user-7");
+  }
+
+  private double count(String outcome) {
+    return registry.find("filmorate.singleflight.calls").tag("outcome", outcome).counters().stream()
+        .mapToDouble(c -> c.count())
+        .sum();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.service.cards;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.invalidation.EntityChangedEvent;
+import ru.yandex.practicum.filmorate.invalidation.EntityType;
+import ru.yandex.practicum.filmorate.model.FilmCard;
+import ru.yandex.practicum.filmorate.storage.card.FilmCardStorage;
+
+class FilmCardProjectorTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final RecordingStorage storage = new RecordingStorage();
+  // интервал большой — очередь применяется только явным apply()
+  private final FilmCardProjector projector = new FilmCardProjector(storage, registry, Duration.ofHours(1), 2);
+
+  @AfterEach
+  void tearDown() {
+    storage.failing = false;
+    projector.close();
+  }
+
+  @Test
+  void changesAreDeduplicatedAndAppliedInBatches() throws InterruptedException {
+    projector.onChange(EntityChangedEvent.local(EntityType.FILM, 1));
+    projector.onChange(EntityChangedEvent.local(EntityType.LIKE, 1));
+    projector.onChange(EntityChangedEvent.local(EntityType.LIKE, 2));
+    projector.onChange(EntityChangedEvent.local(EntityType.LIKE, 3));
+    // пользователи и изменения с других узлов карточки не трогают
+    projector.onChange(EntityChangedEvent.local(EntityType.USER, 4));
+    projector.onChange(new EntityChangedEvent(EntityType.LIKE, 5, true));
+    Thread.sleep(5);
+
+    assertThat(projector.pendingCount()).isEqualTo(3);
+    assertThat(registry.get("filmorate.film-cards.lag").gauge().value()).isGreaterThan(0);
+
+    projector.apply();
+
+    assertThat(storage.refreshed).containsExactly(List.of(1L, 2L), List.of(3L));
+    assertThat(registry.get("filmorate.film-cards.pending").gauge().value()).isZero();
+    assertThat(registry.get("filmorate.film-cards.lag").gauge().value()).isZero();
+    assertThat(registry.get("filmorate.film-cards.applied").counter().count()).isEqualTo(3.0);
+  }
+
+  @Test
+  void failedBatchStaysQueuedUntilNextApply() {
+    projector.onChange(EntityChangedEvent.local(EntityType.FILM, 1));
+    storage.failing = true;
+
+    assertThatThrownBy(projector::apply).isInstanceOf(IllegalStateException.class);
+    assertThat(projector.pendingCount()).isEqualTo(1);
+
+    storage.failing = false;
+    projector.apply();
+
+    assertThat(storage.refreshed).containsExactly(List.of(1L));
+    assertThat(projector.pendingCount()).isZero();
+  }
+
+  private static final class RecordingStorage implements FilmCardStorage {
+
+    private final List<List<Long>> refreshed = new ArrayList<>();
+    private volatile boolean failing;
+
+    @Override
+    public List<FilmCard> findPage(long afterId, int limit) {
+      return List.of();
+    }
+
+    @Override
+    public List<FilmCard> findMostPopular(int limit) {
+      return List.of();
+    }
+
+    @Override
+    public List<FilmCard> findByIds(Collection<Long> ids) {
+      return List.of();
+    }
+
+    @Override
+    public void refresh(Collection<Long> filmIds) {
+      if (failing) {
+        throw new IllegalStateException("БД недоступна");
+      }
+      refreshed.add(List.copyOf(filmIds));
+    }
+
+    @Override
+    public int rebuild() {
+      return 0;
+    }
+
+    @Override
+    public boolean isStale() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.service.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.FeedPage;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+/**
+ * Задержка чтения ленты: обычные авторы раскладываются по лентам, трое «знаменитостей»
+ * (подписаны все) подмешиваются при чтении. Запуск: {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+class ActivityFeedBenchmarkTest {
+
+  private static final int USERS = 2_000;
+  private static final int FOLLOWS_PER_USER = 50;
+  private static final int CELEBRITIES = 3;
+  private static final int EVENTS = 20_000;
+  private static final int READS = 20_000;
+
+  @Test
+  void feedReadLatency() {
+    final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    final Random random = new Random(42);
+    final List<Long> ids = new ArrayList<>(USERS);
+    for (int i = 0; i < USERS; i++) {
+      ids.add(userStorage.create(user(i)).getId());
+    }
+    for (Long id : ids) {
+      for (int c = 0; c < CELEBRITIES; c++) {
+        if (!id.equals(ids.get(c))) {
+          userStorage.addFriend(id, ids.get(c));
+        }
+      }
+      for (int f = 0; f < FOLLOWS_PER_USER; f++) {
+        final long target = ids.get(random.nextInt(USERS));
+        if (target != id) {
+          userStorage.addFriend(id, target);
+        }
+      }
+    }
+    final ActivityFeed feed = new ActivityFeed(userStorage, Clock.systemUTC(), new FeedProperties(100, USERS, 500, 0));
+
+    final long publishStart = System.nanoTime();
+    for (int i = 0; i < EVENTS; i++) {
+      feed.publish(FeedEvent.Type.LIKE, ids.get(random.nextInt(USERS)), i);
+    }
+    final long publishNanos = System.nanoTime() - publishStart;
+
+    final long[] latencies = new long[READS];
+    long items = 0;
+    for (int i = 0; i < READS; i++) {
+      final long reader = ids.get(random.nextInt(USERS));
+      final long start = System.nanoTime();
+      final FeedPage page = feed.page(reader, null, 20);
+      latencies[i] = System.nanoTime() - start;
+      items += page.items().size();
+    }
+    Arrays.sort(latencies);
+
+    System.out.printf("feed: publish avg %.1f us, read p50 %.1f us, p99 %.1f us, max %.1f us, avg page %.1f%n",
+        publishNanos / 1_000.0 / EVENTS,
+        latencies[READS / 2] / 1_000.0,
+        latencies[READS * 99 / 100] / 1_000.0,
+        latencies[READS - 1] / 1_000.0,
+        (double) items / READS);
+    assertThat(items).isPositive();
+  }
+
+  private static User user(int n) {
+    final User user = new User();
+    user.setEmail("bench" + n + "@example.com");
+    user.setLogin("bench" + n);
+    user.setName("Bench " + n);
+    user.setBirthday(LocalDate.of(1990, 1, 1));
+    return user;
+  }
+}
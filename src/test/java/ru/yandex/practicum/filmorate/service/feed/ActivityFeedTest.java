@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.service.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.FeedPage;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+class ActivityFeedTest {
+
+  private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+
+  @Test
+  void followerSeesEventsNewestFirst() {
+    final ActivityFeed feed = feed(new FeedProperties(100, 1000, 1000, 0));
+    final long author = user();
+    final long reader = user();
+    userStorage.addFriend(reader, author);
+
+    feed.publish(FeedEvent.Type.LIKE, author, 10);
+    feed.publish(FeedEvent.Type.FRIEND, author, reader);
+
+    final FeedPage page = feed.page(reader, null, 10);
+    assertThat(page.items()).extracting(FeedEvent::type).containsExactly(FeedEvent.Type.FRIEND, FeedEvent.Type.LIKE);
+    assertThat(page.nextCursor()).isNull();
+    assertThat(feed.page(author, null, 10).items()).isEmpty();
+  }
+
+  @Test
+  void cursorPagesThroughFanOutAndCelebrityEvents() {
+    // порог 2: у star трое подписчиков — его события читаются из его же кольца
+    final ActivityFeed feed = feed(new FeedProperties(100, 1000, 2, 0));
+    final long star = user();
+    final long friend = user();
+    final long reader = user();
+    userStorage.addFriend(reader, star);
+    userStorage.addFriend(reader, friend);
+    userStorage.addFriend(user(), star);
+    userStorage.addFriend(user(), star);
+
+    for (int i = 0; i < 5; i++) {
+      feed.publish(FeedEvent.Type.LIKE, star, i);
+      feed.publish(FeedEvent.Type.LIKE, friend, 100 + i);
+    }
+
+    final List<FeedEvent> all = new ArrayList<>();
+    Long cursor = null;
+    do {
+      final FeedPage page = feed.page(reader, cursor, 3);
+      assertThat(page.items()).hasSizeLessThanOrEqualTo(3);
+      all.addAll(page.items());
+      cursor = page.nextCursor();
+    } while (cursor != null);
+
+    assertThat(all).hasSize(10);
+    assertThat(all).extracting(FeedEvent::id).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    assertThat(all).extracting(FeedEvent::userId).containsOnly(star, friend);
+  }
+
+  @Test
+  void ringKeepsOnlyLatestEventsAndFeedsAreEvicted() {
+    final ActivityFeed feed = feed(new FeedProperties(3, 2, 1000, 0));
+    final long author = user();
+    final long first = user();
+    final long second = user();
+    final long third = user();
+    userStorage.addFriend(first, author);
+    for (int i = 0; i < 5; i++) {
+      feed.publish(FeedEvent.Type.LIKE, author, i);
+    }
+    assertThat(feed.page(first, null, 10).items()).extracting(FeedEvent::targetId).containsExactly(4L, 3L, 2L);
+
+    userStorage.addFriend(second, author);
+    userStorage.addFriend(third, author);
+    feed.publish(FeedEvent.Type.LIKE, author, 5);
+
+    assertThat(feed.inboxCount()).isEqualTo(2);
+  }
+
+  @Test
+  void fanOutRunsOffThePublishingThreadAndDropsOverflow() throws Exception {
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final InMemoryUserStorage slowStorage = new InMemoryUserStorage() {
+      @Override
+      public List<Long> findFollowerIds(long userId, int limit) {
+        entered.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.findFollowerIds(userId, limit);
+      }
+    };
+    final long author = slowStorage.create(sampleUser()).getId();
+    final long reader = slowStorage.create(sampleUser()).getId();
+    slowStorage.addFriend(reader, author);
+
+    try (ActivityFeed feed = new ActivityFeed(slowStorage, Clock.systemUTC(), new FeedProperties(100, 1000, 1000, 1))) {
+      // первая публикация занимает поток раскладки, вторая ждёт в очереди, третьей места нет
+      feed.publish(FeedEvent.Type.LIKE, author, 1);
+      assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+      feed.publish(FeedEvent.Type.LIKE, author, 2);
+      feed.publish(FeedEvent.Type.LIKE, author, 3);
+      assertThat(feed.droppedCount()).isEqualTo(1);
+      assertThat(feed.page(reader, null, 10).items()).isEmpty();
+
+      release.countDown();
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (feed.page(reader, null, 10).items().size() < 2 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(feed.page(reader, null, 10).items()).extracting(FeedEvent::targetId).containsExactly(2L, 1L);
+    }
+  }
+
+  @Test
+  void invalidRequestsAreRejected() {
+    final ActivityFeed feed = feed(new FeedProperties(10, 10, 10, 0));
+    final long reader = user();
+
+    assertThatThrownBy(() -> feed.page(reader, null, 0)).isInstanceOf(ValidationException.class);
+    assertThatThrownBy(() -> feed.page(reader, null, ActivityFeed.MAX_PAGE + 1))
+        .isInstanceOf(ValidationException.class);
+    assertThatThrownBy(() -> feed.page(9999, null, 10)).isInstanceOf(NotFoundException.class);
+  }
+
+  private ActivityFeed feed(FeedProperties properties) {
+    return new ActivityFeed(userStorage, Clock.systemUTC(), properties);
+  }
+
+  private long user() {
+    return userStorage.create(sampleUser()).getId();
+  }
+
+  private static User sampleUser() {
+    final User user = new User();
+    user.setEmail("feed@example.com");
+    user.setLogin("feed");
+    user.setName("Feed");
+    user.setBirthday(LocalDate.of(1990, 1, 1));
+    return user;
+  }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+class FilmSearchIndexTest {
+
+  private FilmSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new FilmSearchIndex();
+    index.rebuild(List.of(
+        film(1L, "Ёлки", "Новогодняя комедия", 0),
+        film(2L, "Interstellar", "Space travel through a wormhole", 5),
+        film(3L, "Космос", "Документальный фильм про interstellar travel", 1),
+        film(4L, "Interstellar 2", "Travel again", 1)));
+  }
+
+  @Test
+  void matchesCyrillicCaseInsensitiveAndNormalizesYo() {
+    assertThat(index.search("ЕЛКИ", 10)).containsExactly(1L);
+  }
+
+  @Test
+  void ranksNameMatchesAboveDescriptionMatches() {
+    assertThat(index.search("interstellar", 10)).containsExactly(2L, 4L, 3L);
+  }
+
+  @Test
+  void usesPopularityAsTieBreak() {
+    index.updatePopularity(4L, 10);
+
+    assertThat(index.search("interstellar", 2)).containsExactly(4L, 2L);
+  }
+
+  @Test
+  void supportsPrefixesAndRequiresAllTerms() {
+    assertThat(index.search("inter trav", 10)).containsExactlyInAnyOrder(2L, 3L, 4L);
+    assertThat(index.search("комед", 10)).containsExactly(1L);
+    assertThat(index.search("interstellar wormhole", 10)).containsExactly(2L);
+  }
+
+  @Test
+  void reflectsUpdatesAndRemovals() {
+    index.index(film(1L, "Ирония судьбы", "Новогодняя комедия", 0));
+    index.remove(2L);
+
+    assertThat(index.search("ёлки", 10)).isEmpty();
+    assertThat(index.search("ирония", 10)).containsExactly(1L);
+    assertThat(index.search("wormhole", 10)).isEmpty();
+  }
+
+  private Film film(long id, String name, String description, int likes) {
+    final Film film = new Film();
+    film.setId(id);
+    film.setName(name);
+    film.setDescription(description);
+    for (long userId = 1; userId <= likes; userId++) {
+      film.getLikes().add(userId);
+    }
+    return film;
+  }
+}
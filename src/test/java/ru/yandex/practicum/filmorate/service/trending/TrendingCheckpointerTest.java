@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.service.trending;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FilmDbStorage.class, UserDbStorage.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class TrendingCheckpointerTest {
+
+  private final FilmDbStorage filmStorage;
+  private final UserDbStorage userStorage;
+  private final JdbcTemplate jdbcTemplate;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void restoresFromCheckpointAndCatchesUpWithNewerLikes() throws Exception {
+    final Path path = directory.resolve("trending.checkpoint");
+    final Film old = filmStorage.create(sampleFilm("Old"));
+    final Film fresh = filmStorage.create(sampleFilm("Fresh"));
+    final Film ancient = filmStorage.create(sampleFilm("Ancient"));
+    final User first = userStorage.create(sampleUser("trend1"));
+    final User second = userStorage.create(sampleUser("trend2"));
+    filmStorage.addLike(old.getId(), first.getId());
+    filmStorage.addLike(ancient.getId(), first.getId());
+    // лайк старше недели в тренды не попадает
+    jdbcTemplate.update("UPDATE film_likes SET created_at = DATEADD('DAY', -8, CURRENT_TIMESTAMP) "
+        + "WHERE film_id = ?", ancient.getId());
+
+    final TrendingTracker tracker = new TrendingTracker(Clock.systemUTC());
+    final TrendingCheckpointer checkpointer =
+        new TrendingCheckpointer(tracker, jdbcTemplate, Clock.systemUTC(), path, Duration.ZERO);
+    checkpointer.restore();
+    assertThat(tracker.top(TrendingWindow.WEEK, 10)).containsExactly(old.getId());
+    checkpointer.checkpoint();
+
+    // после контрольной точки: лайки, которых в ней нет, догружаются из film_likes
+    // (CURRENT_TIMESTAMP в H2 фиксирован на время транзакции теста — время ставим явно)
+    filmStorage.addLike(fresh.getId(), first.getId());
+    filmStorage.addLike(fresh.getId(), second.getId());
+    jdbcTemplate.update("UPDATE film_likes SET created_at = ? WHERE film_id = ?",
+        Timestamp.from(Instant.now().plusMillis(1)), fresh.getId());
+    final TrendingTracker restored = new TrendingTracker(Clock.systemUTC());
+    new TrendingCheckpointer(restored, jdbcTemplate, Clock.systemUTC(), path, Duration.ZERO).restore();
+
+    assertThat(restored.top(TrendingWindow.DAY, 10)).containsExactly(fresh.getId(), old.getId());
+  }
+
+  @Test
+  void filmUpdateKeepsLikeTimestampsSoReplayDoesNotDoubleCount() throws Exception {
+    final Path path = directory.resolve("trending.checkpoint");
+    final Film film = filmStorage.create(sampleFilm("Updated"));
+    final User first = userStorage.create(sampleUser("keep1"));
+    final User second = userStorage.create(sampleUser("keep2"));
+    final User third = userStorage.create(sampleUser("keep3"));
+    filmStorage.addLike(film.getId(), first.getId());
+    filmStorage.addLike(film.getId(), second.getId());
+    final Timestamp likedAt = Timestamp.from(Instant.now().minus(Duration.ofHours(1)).truncatedTo(ChronoUnit.SECONDS));
+    jdbcTemplate.update("UPDATE film_likes SET created_at = ? WHERE film_id = ?", likedAt, film.getId());
+
+    final TrendingTracker tracker = new TrendingTracker(Clock.systemUTC());
+    final TrendingCheckpointer checkpointer =
+        new TrendingCheckpointer(tracker, jdbcTemplate, Clock.systemUTC(), path, Duration.ZERO);
+    checkpointer.restore();
+    checkpointer.checkpoint();
+
+    // обновление снимает лайк second и ставит third; лайк first остаётся прежней строкой
+    final Film changed = filmStorage.findById(film.getId()).orElseThrow();
+    changed.setDescription("Changed");
+    changed.getLikes().remove(second.getId());
+    changed.getLikes().add(third.getId());
+    filmStorage.update(changed);
+    jdbcTemplate.update("UPDATE film_likes SET created_at = ? WHERE film_id = ? AND user_id = ?",
+        Timestamp.from(Instant.now().plusMillis(1)), film.getId(), third.getId());
+
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT created_at FROM film_likes WHERE film_id = ? AND user_id = ?",
+        Timestamp.class, film.getId(), first.getId())).isEqualTo(likedAt);
+    assertThat(jdbcTemplate.queryForList("SELECT user_id FROM film_likes WHERE film_id = ?",
+        Long.class, film.getId())).containsExactlyInAnyOrder(first.getId(), third.getId());
+
+    // после рестарта догружается только лайк third: 2 из контрольной точки + 1
+    final TrendingTracker restored = new TrendingTracker(Clock.systemUTC());
+    new TrendingCheckpointer(restored, jdbcTemplate, Clock.systemUTC(), path, Duration.ZERO).restore();
+    assertThat(restored.buckets().values().stream()
+        .mapToInt(counts -> counts.getOrDefault(film.getId(), 0)).sum()).isEqualTo(3);
+  }
+
+  private Film sampleFilm(String name) {
+    final Film film = new Film();
+    film.setName(name);
+    film.setDescription("Trending");
+    film.setReleaseDate(LocalDate.of(2001, 1, 1));
+    film.setDuration(90);
+    film.setMpa(new Mpa(1, "G"));
+    film.setGenres(Set.of(new Genre(1, "Комедия")));
+    return film;
+  }
+
+  private User sampleUser(String login) {
+    final User user = new User();
+    user.setEmail(login + "@example.com");
+    user.setLogin(login);
+    user.setName(login);
+    user.setBirthday(LocalDate.of(1990, 1, 1));
+    return user;
+  }
+}
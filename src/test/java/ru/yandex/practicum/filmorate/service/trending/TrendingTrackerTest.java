@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.service.trending;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class TrendingTrackerTest {
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-03-01T12:00:00Z"));
+  private final TrendingTracker tracker = new TrendingTracker(clock);
+
+  @Test
+  void ranksFilmsByLikesGainedWithinWindow() {
+    tracker.record(1, 1);
+    clock.advance(Duration.ofHours(2));
+    tracker.record(2, 1);
+    tracker.record(2, 1);
+    tracker.record(3, 1);
+
+    assertThat(tracker.top(TrendingWindow.HOUR, 10)).containsExactly(2L, 3L);
+    assertThat(tracker.top(TrendingWindow.DAY, 10)).containsExactly(2L, 1L, 3L);
+    assertThat(tracker.top(TrendingWindow.DAY, 1)).containsExactly(2L);
+  }
+
+  @Test
+  void expiresBucketsThatLeaveWindow() {
+    tracker.record(1, 1);
+    clock.advance(Duration.ofHours(23));
+    tracker.record(2, 1);
+
+    clock.advance(Duration.ofHours(2));
+    assertThat(tracker.top(TrendingWindow.DAY, 10)).containsExactly(2L);
+    assertThat(tracker.top(TrendingWindow.WEEK, 10)).containsExactly(1L, 2L).hasSize(2);
+
+    clock.advance(Duration.ofDays(8));
+    assertThat(tracker.top(TrendingWindow.WEEK, 10)).isEmpty();
+  }
+
+  @Test
+  void unlikeReducesCurrentGain() {
+    tracker.record(1, 1);
+    tracker.record(2, 1);
+    tracker.record(2, 1);
+    tracker.record(2, -1);
+    tracker.record(2, -1);
+
+    assertThat(tracker.top(TrendingWindow.HOUR, 10)).containsExactly(1L);
+  }
+
+  @Test
+  void restoresBucketsFromCheckpoint() {
+    tracker.record(5, 1);
+    clock.advance(Duration.ofHours(3));
+    tracker.record(6, 1);
+    tracker.recordAt(7, clock.instant().minus(Duration.ofDays(10)), 1);
+
+    final TrendingTracker restored = new TrendingTracker(clock);
+    restored.restore(tracker.buckets());
+
+    assertThat(restored.top(TrendingWindow.HOUR, 10)).containsExactly(6L);
+    assertThat(restored.top(TrendingWindow.DAY, 10)).containsExactly(5L, 6L);
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class EnrichmentExecutorTest {
+
+  private final EnrichmentExecutor executor = EnrichmentExecutor.bounded(1, 1, Duration.ofMillis(500));
+
+  @AfterEach
+  void tearDown() {
+    executor.close();
+  }
+
+  @Test
+  void forkedTaskRunsOnPoolThreadAndFailuresReachCaller() {
+    try (EnrichmentExecutor.Forked<String> forked = executor.fork(() -> Thread.currentThread().getName())) {
+      assertThat(forked.join()).startsWith("enrichment-");
+    }
+    try (EnrichmentExecutor.Forked<String> failing = executor.fork(() -> {
+      throw new IllegalArgumentException("boom");
+    })) {
+      assertThatThrownBy(failing::join).isInstanceOf(IllegalArgumentException.class).hasMessage("boom");
+    }
+  }
+
+  @Test
+  void timeoutDoesNotInterruptRunningQuery() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch finished = new CountDownLatch(1);
+    final AtomicBoolean interrupted = new AtomicBoolean();
+    final AtomicBoolean queuedRan = new AtomicBoolean();
+    try (EnrichmentExecutor.Forked<String> slow = executor.fork(() -> {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        interrupted.set(true);
+      }
+      finished.countDown();
+      return "late";
+    });
+         EnrichmentExecutor.Forked<Boolean> queued = executor.fork(() -> queuedRan.getAndSet(true))) {
+      assertThatThrownBy(slow::join).isInstanceOf(QueryTimeoutException.class);
+    }
+    release.countDown();
+
+    // начатая задача дорабатывает без прерывания, не начатая — отменена
+    assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(interrupted).isFalse();
+    executor.close();
+    assertThat(executor.fork(() -> "after close").join()).isEqualTo("after close");
+    assertThat(queuedRan).isFalse();
+  }
+
+  @Test
+  void forkedQueriesGetStatementTimeout() {
+    final JdbcTemplate jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource());
+
+    assertThat(executor.withQueryTimeout(jdbcTemplate).getQueryTimeout()).isEqualTo(1);
+    assertThat(executor.withQueryTimeout(jdbcTemplate).getDataSource()).isSameAs(jdbcTemplate.getDataSource());
+    assertThat(EnrichmentExecutor.SEQUENTIAL.withQueryTimeout(jdbcTemplate)).isSameAs(jdbcTemplate);
+  }
+
+  // полная очередь и открытая транзакция — задача выполняется в вызывающем потоке при join
+  @Test
+  void runsInCallerWhenQueueIsFullOrInsideTransaction() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch(1);
+    final String caller = Thread.currentThread().getName();
+    try (EnrichmentExecutor.Forked<String> busy = executor.fork(() -> awaitAndName(release));
+         EnrichmentExecutor.Forked<String> queued = executor.fork(() -> Thread.currentThread().getName());
+         EnrichmentExecutor.Forked<String> rejected = executor.fork(() -> Thread.currentThread().getName())) {
+      assertThat(rejected.join()).isEqualTo(caller);
+      release.countDown();
+      assertThat(busy.join()).startsWith("enrichment-");
+      assertThat(queued.join()).startsWith("enrichment-");
+    }
+
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try (EnrichmentExecutor.Forked<String> inTx = executor.fork(() -> Thread.currentThread().getName())) {
+      assertThat(inTx.join()).isEqualTo(caller);
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+  }
+
+  private static String awaitAndName(CountDownLatch release) {
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return Thread.currentThread().getName();
+  }
+}
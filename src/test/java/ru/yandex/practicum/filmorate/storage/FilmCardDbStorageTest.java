@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import lombok.RequiredArgsConstructor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCard;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.card.FilmCardDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FilmDbStorage.class, UserDbStorage.class, FilmCardDbStorage.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmCardDbStorageTest {
+
+  private final FilmDbStorage filmStorage;
+  private final UserDbStorage userStorage;
+  private final FilmCardDbStorage cardStorage;
+
+  @Test
+  void rebuildProjectsFilmsIntoCards() {
+    final Film film = filmStorage.create(sampleFilm("Alien", 1979));
+    final Film plain = sampleFilm("Plain", 1990);
+    plain.setGenres(new LinkedHashSet<>());
+    filmStorage.create(plain);
+    assertThat(cardStorage.isStale()).isTrue();
+
+    assertThat(cardStorage.rebuild()).isEqualTo(2);
+
+    assertThat(cardStorage.isStale()).isFalse();
+    final List<FilmCard> page = cardStorage.findPage(0, 10);
+    assertThat(page).extracting(FilmCard::name).containsExactly("Alien", "Plain");
+    assertThat(page.get(0)).isEqualTo(new FilmCard(film.getId(), "Alien", "G",
+        List.of(new Genre(1, "Комедия"), new Genre(4, "Триллер")), 0, 1979));
+    assertThat(page.get(1).genres()).isEmpty();
+    assertThat(cardStorage.findPage(film.getId(), 10)).extracting(FilmCard::name).containsExactly("Plain");
+  }
+
+  @Test
+  void refreshPicksUpLikesAndDeletions() {
+    final Film first = filmStorage.create(sampleFilm("First", 2001));
+    final Film second = filmStorage.create(sampleFilm("Second", 2002));
+    final User user = userStorage.create(sampleUser());
+    cardStorage.rebuild();
+
+    filmStorage.addLike(second.getId(), user.getId());
+    // до пересчёта карточка отстаёт
+    assertThat(cardStorage.findMostPopular(1)).extracting(FilmCard::id).containsExactly(first.getId());
+
+    cardStorage.refresh(List.of(second.getId()));
+    assertThat(cardStorage.findMostPopular(2)).extracting(FilmCard::id).containsExactly(second.getId(), first.getId());
+    assertThat(cardStorage.findByIds(List.of(second.getId(), -1L))).extracting(FilmCard::likes).containsExactly(1);
+
+    filmStorage.delete(first.getId());
+    cardStorage.refresh(List.of(first.getId()));
+    assertThat(cardStorage.findPage(0, 10)).extracting(FilmCard::id).containsExactly(second.getId());
+  }
+
+  @Test
+  void lostChangesMakeCardsStale() {
+    final Film film = filmStorage.create(sampleFilm("Lost", 2003));
+    final User user = userStorage.create(sampleUser());
+    cardStorage.rebuild();
+    assertThat(cardStorage.isStale()).isFalse();
+
+    // лайк записан, а его изменение до карточки не дошло
+    filmStorage.addLike(film.getId(), user.getId());
+    assertThat(cardStorage.isStale()).isTrue();
+    cardStorage.refresh(List.of(film.getId()));
+    assertThat(cardStorage.isStale()).isFalse();
+
+    film.setName("Renamed");
+    filmStorage.update(film);
+    assertThat(cardStorage.isStale()).isTrue();
+  }
+
+  private Film sampleFilm(String name, int year) {
+    final Film film = new Film();
+    film.setName(name);
+    film.setDescription("Test description");
+    film.setReleaseDate(LocalDate.of(year, 5, 25));
+    film.setDuration(117);
+    film.setMpa(new Mpa(1, null));
+    film.setGenres(new LinkedHashSet<>(List.of(new Genre(4, null), new Genre(1, null))));
+    return film;
+  }
+
+  private User sampleUser() {
+    final User user = new User();
+    user.setEmail("ripley@example.com");
+    user.setLogin("ripley");
+    user.setName("Ellen");
+    user.setBirthday(LocalDate.of(1949, 10, 8));
+    return user;
+  }
+}
@@ -3,21 +3,33 @@ package ru.yandex.practicum.filmorate.storage;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import lombok.RequiredArgsConstructor;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeChanges;
+import ru.yandex.practicum.filmorate.storage.film.PopularQuery;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 @JdbcTest
@@ -28,6 +40,7 @@ class FilmDbStorageTest {
 
   private final FilmDbStorage filmStorage;
   private final UserDbStorage userStorage;
+  private final JdbcTemplate jdbcTemplate;
 
   @Test
   void createAndFindById() {
@@ -57,6 +70,109 @@ class FilmDbStorageTest {
     assertThat(updated.getLikes()).containsExactly(user.getId());
   }
 
+  @Test
+  void existsUsesIdIndexWithoutLosingNewOrDeletedFilms() {
+    final Film before = filmStorage.create(sampleFilm("Before index"));
+    filmStorage.buildIdIndex();
+    final Film after = filmStorage.create(sampleFilm("After index"));
+
+    assertThat(filmStorage.exists(before.getId())).isTrue();
+    assertThat(filmStorage.exists(after.getId())).isTrue();
+    assertThat(filmStorage.exists(after.getId() + 1_000)).isFalse();
+
+    filmStorage.delete(before.getId());
+    assertThat(filmStorage.exists(before.getId())).isFalse();
+  }
+
+  @Test
+  void addAndRemoveLikeReportStateChange() {
+    final Film film = filmStorage.create(sampleFilm("Liked"));
+    final User user = userStorage.create(sampleUser("liker@example.com", "liker"));
+
+    assertThat(filmStorage.addLike(film.getId(), user.getId())).isTrue();
+    assertThat(filmStorage.addLike(film.getId(), user.getId())).isFalse();
+    assertThat(filmStorage.getById(film.getId()).getLikes()).containsExactly(user.getId());
+
+    assertThat(filmStorage.removeLike(film.getId(), user.getId())).isTrue();
+    assertThat(filmStorage.removeLike(film.getId(), user.getId())).isFalse();
+    assertThat(filmStorage.getById(film.getId()).getLikes()).isEmpty();
+  }
+
+  @Test
+  void applyLikesReportsOnlyChangedFilms() {
+    final Film first = filmStorage.create(sampleFilm("Batch liked A"));
+    final Film second = filmStorage.create(sampleFilm("Batch liked B"));
+    final Film third = filmStorage.create(sampleFilm("Batch liked C"));
+    final User user = userStorage.create(sampleUser("batch@example.com", "batcher"));
+    filmStorage.addLike(first.getId(), user.getId());
+    filmStorage.addLike(third.getId(), user.getId());
+
+    assertThat(filmStorage.findExistingIds(List.of(first.getId(), -1L, third.getId())))
+        .containsExactlyInAnyOrder(first.getId(), third.getId());
+    final LikeChanges changes = filmStorage.applyLikes(user.getId(),
+        List.of(first.getId(), second.getId(), second.getId()), List.of(third.getId(), second.getId() + 100));
+
+    assertThat(changes.added()).containsExactly(second.getId());
+    assertThat(changes.removed()).containsExactly(third.getId());
+    assertThat(filmStorage.getById(second.getId()).getLikes()).containsExactly(user.getId());
+    assertThat(filmStorage.getById(third.getId()).getLikes()).isEmpty();
+  }
+
+  @Test
+  void applyLikesReportsFilmDeletedDuringBatch() {
+    final Film kept = filmStorage.create(sampleFilm("Batch kept"));
+    final Film deleted = filmStorage.create(sampleFilm("Batch deleted"));
+    final User user = userStorage.create(sampleUser("race@example.com", "racer"));
+    // фильм удалён уже после проверки существования, которую делает сервис
+    filmStorage.delete(deleted.getId());
+
+    final LikeChanges changes = filmStorage.applyLikes(user.getId(),
+        List.of(kept.getId(), deleted.getId()), List.of());
+
+    assertThat(changes.added()).containsExactly(kept.getId());
+    assertThat(changes.missing()).containsExactly(deleted.getId());
+    assertThat(filmStorage.getById(kept.getId()).getLikes()).containsExactly(user.getId());
+  }
+
+  @Test
+  void singleFlightFollowerDoesNotGetLeaderRequestInstance() throws Exception {
+    final Film film = filmStorage.create(sampleFilm("Shared read"));
+    final User user = userStorage.create(sampleUser("shared@example.com", "sharer"));
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final SingleFlight singleFlight = new SingleFlight(registry, Duration.ofSeconds(5));
+
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    try {
+      final Film leaderOwn = filmStorage.getById(film.getId());
+      final CompletableFuture<Optional<Film>> follower = new CompletableFuture<>();
+      final Optional<Film> shared = singleFlight.execute("film", film.getId(), () -> {
+        // ведомый — другой запрос со своей картой; встаёт в ожидание, пока ведущий грузит
+        final Thread other = new Thread(() -> {
+          RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+          try {
+            follower.complete(singleFlight.execute("film", film.getId(), Optional::<Film>empty));
+          } finally {
+            RequestContextHolder.resetRequestAttributes();
+          }
+        });
+        other.start();
+        while (registry.find("filmorate.singleflight.calls").tag("outcome", "coalesced").counters().isEmpty()) {
+          Thread.onSpinWait();
+        }
+        return filmStorage.findDetached(film.getId());
+      });
+
+      assertThat(follower.get(5, TimeUnit.SECONDS)).containsSame(shared.orElseThrow());
+      assertThat(shared.get()).isNotSameAs(leaderOwn);
+      // лайк меняет только экземпляр из карты запроса, а не отданный ведомому
+      filmStorage.addLike(film.getId(), user.getId());
+      assertThat(leaderOwn.getLikes()).containsExactly(user.getId());
+      assertThat(shared.get().getLikes()).isEmpty();
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+
   @Test
   void findAllReturnsAllFilms() {
     final Film first = filmStorage.create(sampleFilm("Film A"));
@@ -67,6 +183,17 @@ class FilmDbStorageTest {
     assertThat(all).extracting(Film::getId).containsExactlyInAnyOrder(first.getId(), second.getId());
   }
 
+  @Test
+  void findByIdsSkipsMissingIds() {
+    final Film first = filmStorage.create(sampleFilm("Batch A"));
+    final Film second = filmStorage.create(sampleFilm("Batch B"));
+
+    final List<Film> found = filmStorage.findByIds(List.of(second.getId(), -1L, first.getId(), second.getId()));
+
+    assertThat(found).extracting(Film::getId).containsExactlyInAnyOrder(first.getId(), second.getId());
+    assertThat(found).allSatisfy(film -> assertThat(film.getGenres()).hasSize(2));
+  }
+
   @Test
   void findMostPopularReturnsFilmsOrderedByLikes() {
     final Film first = filmStorage.create(sampleFilm("Popular"));
@@ -88,6 +215,38 @@ class FilmDbStorageTest {
     assertThat(popular.get(0).getId()).isEqualTo(first.getId());
   }
 
+  @Test
+  void findMostPopularAppliesGenreYearAndMpaFilters() {
+    final Film drama = sampleFilm("Drama 2010");
+    drama.setReleaseDate(LocalDate.of(2010, 5, 1));
+    drama.setGenres(new LinkedHashSet<>(List.of(new Genre(2, null))));
+    final Film dramaPg = sampleFilm("Drama PG 2010");
+    dramaPg.setReleaseDate(LocalDate.of(2010, 12, 31));
+    dramaPg.setGenres(new LinkedHashSet<>(List.of(new Genre(2, null))));
+    dramaPg.setMpa(new Mpa(2, null));
+    final Film comedy = sampleFilm("Comedy 2010");
+    comedy.setReleaseDate(LocalDate.of(2010, 1, 1));
+    comedy.setGenres(new LinkedHashSet<>(List.of(new Genre(1, null))));
+    final Film dramaOld = sampleFilm("Drama 2009");
+    dramaOld.setReleaseDate(LocalDate.of(2009, 12, 31));
+    dramaOld.setGenres(new LinkedHashSet<>(List.of(new Genre(2, null))));
+    final Film first = filmStorage.create(drama);
+    final Film second = filmStorage.create(dramaPg);
+    filmStorage.create(comedy);
+    filmStorage.create(dramaOld);
+
+    final User fan = userStorage.create(sampleUser("fan@example.com", "fan"));
+    second.getLikes().add(fan.getId());
+    filmStorage.update(second);
+
+    assertThat(filmStorage.findMostPopular(new PopularQuery(10, 2, 2010, null)))
+        .extracting(Film::getId).containsExactly(second.getId(), first.getId());
+    assertThat(filmStorage.findMostPopular(new PopularQuery(10, 2, 2010, 1)))
+        .extracting(Film::getId).containsExactly(first.getId());
+    assertThat(filmStorage.findMostPopular(new PopularQuery(10, null, 2010, 2)))
+        .extracting(Film::getId).containsExactly(second.getId());
+  }
+
   @Test
   void deleteRemovesFilm() {
     final Film film = filmStorage.create(sampleFilm("To Delete"));
@@ -98,6 +257,44 @@ class FilmDbStorageTest {
         .isInstanceOf(NotFoundException.class);
   }
 
+  @Test
+  void writesReturnAssembledFilmEqualToStoredOne() {
+    final User user = userStorage.create(sampleUser("villeneuve@example.com", "denis"));
+    final Film draft = sampleFilm("Dune");
+    draft.setGenres(new LinkedHashSet<>(List.of(new Genre(6, null), new Genre(2, null), new Genre(6, null))));
+    draft.getLikes().add(user.getId());
+
+    final Film created = filmStorage.create(draft);
+
+    assertThat(created.getMpa()).isEqualTo(new Mpa(1, "G"));
+    assertThat(created.getGenres()).containsExactly(new Genre(2, "Драма"), new Genre(6, "Боевик"));
+    assertThat(created).isEqualTo(filmStorage.getById(created.getId()));
+
+    created.setMpa(new Mpa(4, null));
+    created.setGenres(new LinkedHashSet<>(List.of(new Genre(3, null))));
+    final Film updated = filmStorage.update(created);
+
+    assertThat(updated.getMpa().getName()).isEqualTo("R");
+    assertThat(updated).isEqualTo(filmStorage.getById(created.getId()));
+  }
+
+  @Test
+  void rowInsertedBypassingStorageIsFoundAfterIndexBuild() {
+    final Film film = filmStorage.create(sampleFilm("Indexed"));
+    filmStorage.buildIdIndex();
+
+    // строка от другого узла или из прямого SQL — мимо фильтра существования этого узла
+    jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) "
+        + "VALUES ('Plain JDBC', 'D', DATE '2000-01-01', 100, 1)");
+    final long plainId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Long.class);
+
+    assertThat(plainId).isGreaterThan(film.getId());
+    assertThat(filmStorage.exists(plainId)).isTrue();
+    assertThat(filmStorage.findById(plainId)).map(Film::getName).contains("Plain JDBC");
+    assertThat(filmStorage.findExistingIds(List.of(film.getId(), plainId)))
+        .containsExactlyInAnyOrder(film.getId(), plainId);
+  }
+
   private Film sampleFilm(String name) {
     final Film film = new Film();
     film.setName(name);
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class IdExistenceIndexTest {
+
+  @Test
+  void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+    final IdBloomFilter filter = IdBloomFilter.forCapacity(10_000, 0.01);
+    for (long id = 1; id <= 10_000; id++) {
+      filter.add(id);
+    }
+    int falsePositives = 0;
+    for (long id = 1; id <= 10_000; id++) {
+      assertThat(filter.mightContain(id)).isTrue();
+      if (filter.mightContain(id + 1_000_000)) {
+        falsePositives++;
+      }
+    }
+    // ожидаемо ~1%, с запасом на разброс
+    assertThat(falsePositives).isLessThan(300);
+  }
+
+  @Test
+  void absentIdsSkipExactCheckAfterBuild() {
+    final Set<Long> stored = new HashSet<>(Set.of(1L, 2L, 3L));
+    final AtomicInteger exactChecks = new AtomicInteger();
+    final IdExistenceIndex index = new IdExistenceIndex("test");
+
+    // до сборки фильтра — только точная проверка
+    assertThat(index.exists(42, id -> exactChecks.incrementAndGet() > 0 && stored.contains(id))).isFalse();
+    assertThat(exactChecks).hasValue(1);
+
+    stored.add(4L);
+    index.add(4);
+    stored.add(5_000L);
+    index.build(() -> new long[]{1, 2, 3, 5_000});
+    stored.add(5L);
+    index.add(5);
+
+    for (long id : new long[]{1, 2, 3, 4, 5, 5_000}) {
+      assertThat(index.exists(id, stored::contains)).as("id=%d", id).isTrue();
+    }
+    exactChecks.set(0);
+    int absent = 0;
+    for (long id = 1_000; id < 2_000; id++) {
+      if (!index.exists(id, other -> exactChecks.incrementAndGet() > 0 && stored.contains(other))) {
+        absent++;
+      }
+    }
+    assertThat(absent).isEqualTo(1_000);
+    assertThat(exactChecks.get()).isLessThan(50);
+  }
+
+  @Test
+  void idsAboveBuildMarkAlwaysReachExactCheck() {
+    final Set<Long> stored = new HashSet<>(Set.of(1L, 2L, 3L));
+    final IdExistenceIndex index = new IdExistenceIndex("test");
+    index.build(() -> new long[]{1, 2, 3});
+
+    // строки, добавленные в обход этого узла, фильтр не видел
+    stored.add(4L);
+    stored.add(1_000L);
+    assertThat(index.mightExist(4)).isTrue();
+    assertThat(index.exists(4, stored::contains)).isTrue();
+    assertThat(index.exists(1_000, stored::contains)).isTrue();
+    assertThat(index.exists(1_001, stored::contains)).isFalse();
+  }
+
+  @Test
+  void addDoesNotWaitForBuildQuery() throws Exception {
+    final IdExistenceIndex index = new IdExistenceIndex("test");
+    final CountDownLatch queried = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CompletableFuture<Void> build = CompletableFuture.runAsync(() -> index.build(() -> {
+      queried.countDown();
+      await(release);
+      return new long[]{1, 2, 3};
+    }));
+    assertThat(queried.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // создание во время полного прохода по таблице не ждёт его окончания
+    CompletableFuture.runAsync(() -> index.add(10)).get(1, TimeUnit.SECONDS);
+    release.countDown();
+    build.get(5, TimeUnit.SECONDS);
+
+    // отметка — по результату запроса: id 4..9 (возможно, чужие) идут на точную проверку
+    assertThat(index.exists(10, id -> true)).isTrue();
+    assertThat(index.exists(7, id -> id == 7)).isTrue();
+    assertThat(index.mightExist(2)).isTrue();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
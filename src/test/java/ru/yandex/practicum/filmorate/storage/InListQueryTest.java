@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class InListQueryTest {
+
+  private final InListQuery query = new InListQuery("SELECT id FROM films WHERE id IN (:ids)");
+
+  @Test
+  void anyListSizeMapsToThreeStatementTexts() {
+    final Set<String> statements = new HashSet<>();
+    for (int size : new int[]{1, 15, 16, 17, 64, 65, 255, 256, 257, 1000, 100_000}) {
+      final List<Long> ids = LongStream.rangeClosed(1, size).boxed().toList();
+      final Set<Object> covered = new LinkedHashSet<>();
+      query.forEachChunk(ids, (sql, args) -> {
+        statements.add(sql);
+        assertThat(args.length).isIn(16, 64, 256);
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(args.length);
+        covered.addAll(List.of(args));
+      });
+      // дополнение повторяет уже переданные id — лишних строк в результате нет
+      assertThat(covered).containsExactlyElementsOf(ids);
+    }
+
+    assertThat(statements).hasSize(3);
+  }
+
+  @Test
+  void duplicatesAreSentOnceAndLongListsAreSplit() {
+    final List<Long> ids = new ArrayList<>();
+    for (long id = 1; id <= 300; id++) {
+      ids.add(id);
+      ids.add(id);
+    }
+    final List<Integer> chunkSizes = new ArrayList<>();
+    query.forEachChunk(ids, (sql, args) -> chunkSizes.add(args.length));
+
+    assertThat(chunkSizes).containsExactly(256, 64);
+    query.forEachChunk(List.of(), (sql, args) -> chunkSizes.add(args.length));
+    assertThat(chunkSizes).hasSize(2);
+  }
+
+  @Test
+  void templateMustMarkTheList() {
+    assertThatThrownBy(() -> new InListQuery("SELECT id FROM films WHERE id IN (?)"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
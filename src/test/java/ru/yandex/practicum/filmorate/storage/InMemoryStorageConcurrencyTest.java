@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.journal.EventJournal;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.feed.ActivityFeed;
+import ru.yandex.practicum.filmorate.service.feed.FeedProperties;
+import ru.yandex.practicum.filmorate.service.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.trending.TrendingTracker;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+/** Stress test: concurrent writers must not lose updates in the in-memory storages. */
+class InMemoryStorageConcurrencyTest {
+
+  private static final int THREADS = 64;
+  private static final int OPS_PER_THREAD = 500;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+  private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+  private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+  private final SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(), Duration.ofSeconds(2));
+  private final ActivityFeed feed = new ActivityFeed(userStorage, Clock.systemUTC(), new FeedProperties(100, 1000, 1000, 0));
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void concurrentCreatesGetUniqueIds() throws Exception {
+    final List<Long> ids = new ArrayList<>();
+    for (List<Long> chunk : runConcurrently(thread -> {
+      final List<Long> created = new ArrayList<>(OPS_PER_THREAD);
+      for (int i = 0; i < OPS_PER_THREAD; i++) {
+        created.add(filmStorage.create(sampleFilm()).getId());
+      }
+      return created;
+    })) {
+      ids.addAll(chunk);
+    }
+
+    assertThat(new HashSet<>(ids)).hasSize(THREADS * OPS_PER_THREAD);
+    assertThat(filmStorage.findAll()).hasSize(THREADS * OPS_PER_THREAD);
+  }
+
+  @Test
+  void concurrentLikesThroughServiceAreNotLost() throws Exception {
+    final FilmService filmService = new FilmService(filmStorage, userStorage,
+        new PopularFilmsCache(new ObjectMapper().findAndRegisterModules(), singleFlight), new FilmSearchIndex(),
+        EventJournal.NOOP, singleFlight, new TrendingTracker(Clock.systemUTC()), feed);
+    final long filmId = filmStorage.create(sampleFilm()).getId();
+    final List<Long> userIds = new ArrayList<>();
+    for (int i = 0; i < THREADS * OPS_PER_THREAD / 10; i++) {
+      userIds.add(userStorage.create(sampleUser(i)).getId());
+    }
+
+    runConcurrently(thread -> {
+      for (int i = 0; i < OPS_PER_THREAD; i++) {
+        // каждый пользователь лайкает несколькими потоками одновременно
+        filmService.addLike(filmId, userIds.get((thread * OPS_PER_THREAD + i) % userIds.size()));
+        // параллельные читатели не должны падать на изменяемых коллекциях
+        filmService.getPopular(5);
+      }
+      return null;
+    });
+
+    assertThat(filmStorage.getById(filmId).getLikes()).containsExactlyInAnyOrderElementsOf(userIds);
+  }
+
+  @Test
+  void concurrentFriendAddAndRemoveKeepConsistentState() throws Exception {
+    final UserService userService = new UserService(userStorage, EventJournal.NOOP, singleFlight, feed);
+    final long hubId = userStorage.create(sampleUser(-1)).getId();
+    final List<Long> friends = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      friends.add(userStorage.create(sampleUser(i)).getId());
+    }
+
+    runConcurrently(thread -> {
+      final long friendId = friends.get(thread);
+      for (int i = 0; i < OPS_PER_THREAD; i++) {
+        userService.addFriend(hubId, friendId);
+        userService.addFriend(friendId, hubId);
+        if (i < OPS_PER_THREAD - 1) {
+          userService.removeFriend(hubId, friendId);
+        }
+      }
+      return null;
+    });
+
+    final Set<Long> hubFriends = userStorage.getById(hubId).getFriends();
+    assertThat(hubFriends).containsExactlyInAnyOrderElementsOf(friends);
+  }
+
+  private <T> List<T> runConcurrently(ThreadTask<T> task) throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<T>> futures = new ArrayList<>(THREADS);
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      final Callable<T> call = () -> {
+        start.await();
+        return task.run(thread);
+      };
+      futures.add(executor.submit(call));
+    }
+    start.countDown();
+    final List<T> results = new ArrayList<>(THREADS);
+    for (Future<T> future : futures) {
+      results.add(future.get(60, TimeUnit.SECONDS));
+    }
+    return results;
+  }
+
+  private Film sampleFilm() {
+    final Film film = new Film();
+    film.setName("Film");
+    film.setReleaseDate(LocalDate.of(2000, 1, 1));
+    film.setDuration(100);
+    film.setMpa(new Mpa(1, "G"));
+    return film;
+  }
+
+  private User sampleUser(int n) {
+    final User user = new User();
+    user.setEmail("user" + n + "@example.com");
+    user.setLogin("user" + n);
+    user.setName("User " + n);
+    user.setBirthday(LocalDate.of(1990, 1, 1));
+    return user;
+  }
+
+  @FunctionalInterface
+  private interface ThreadTask<T> {
+    T run(int thread) throws Exception;
+  }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import lombok.RequiredArgsConstructor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularQuery;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+/**
+ * Property-style check: for random sequences of likes/unlikes the incrementally maintained
+ * in-memory ranking must return exactly the same top-N as the SQL query.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FilmDbStorage.class, UserDbStorage.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class PopularRankingConsistencyTest {
+
+  private static final int FILMS = 30;
+  private static final int USERS = 15;
+  private static final int OPERATIONS = 400;
+
+  private final FilmDbStorage dbStorage;
+  private final UserDbStorage userStorage;
+
+  @RepeatedTest(10)
+  void inMemoryTopMatchesDatabaseTop(RepetitionInfo repetition) {
+    final Random random = new Random(31L * repetition.getCurrentRepetition());
+    final InMemoryFilmStorage memoryStorage = new InMemoryFilmStorage();
+
+    // фильмы создаются в одном порядке, поэтому порядок id совпадает в обоих хранилищах
+    final Map<Long, Integer> dbIndex = new HashMap<>();
+    final Map<Long, Integer> memoryIndex = new HashMap<>();
+    final List<Long> dbIds = new ArrayList<>();
+    final List<Long> memoryIds = new ArrayList<>();
+    for (int i = 0; i < FILMS; i++) {
+      final Film film = randomFilm(random, i);
+      final long dbId = dbStorage.create(film).getId();
+      final long memoryId = memoryStorage.create(copyOf(film)).getId();
+      dbIndex.put(dbId, i);
+      memoryIndex.put(memoryId, i);
+      dbIds.add(dbId);
+      memoryIds.add(memoryId);
+    }
+    final List<Long> userIds = new ArrayList<>();
+    for (int i = 0; i < USERS; i++) {
+      userIds.add(userStorage.create(sampleUser(repetition.getCurrentRepetition(), i)).getId());
+    }
+
+    for (int op = 0; op < OPERATIONS; op++) {
+      final int film = random.nextInt(FILMS);
+      final long user = userIds.get(random.nextInt(USERS));
+      // лайков больше, чем удалений, чтобы счётчики расходились
+      if (random.nextInt(3) > 0) {
+        assertThat(memoryStorage.addLike(memoryIds.get(film), user))
+            .isEqualTo(dbStorage.addLike(dbIds.get(film), user));
+      } else {
+        assertThat(memoryStorage.removeLike(memoryIds.get(film), user))
+            .isEqualTo(dbStorage.removeLike(dbIds.get(film), user));
+      }
+      if (op % 50 == 0) {
+        assertSameTop(dbStorage, dbIndex, memoryStorage, memoryIndex, PopularQuery.of(1 + random.nextInt(FILMS)));
+      }
+    }
+
+    assertSameTop(dbStorage, dbIndex, memoryStorage, memoryIndex, PopularQuery.of(FILMS));
+    assertSameTop(dbStorage, dbIndex, memoryStorage, memoryIndex, new PopularQuery(5, 1, null, null));
+    assertSameTop(dbStorage, dbIndex, memoryStorage, memoryIndex, new PopularQuery(FILMS, null, 2001, 2));
+  }
+
+  private void assertSameTop(FilmStorage db, Map<Long, Integer> dbIndex,
+      FilmStorage memory, Map<Long, Integer> memoryIndex, PopularQuery query) {
+    final List<Integer> expected = db.findMostPopular(query).stream()
+        .map(f -> dbIndex.get(f.getId()))
+        .toList();
+    final List<Integer> actual = memory.findMostPopular(query).stream()
+        .map(f -> memoryIndex.get(f.getId()))
+        .toList();
+    assertThat(actual).as("top for %s", query).isEqualTo(expected);
+  }
+
+  private Film randomFilm(Random random, int index) {
+    final Film film = new Film();
+    film.setName("Film " + index);
+    film.setDescription("Random film");
+    film.setReleaseDate(LocalDate.of(2000 + random.nextInt(3), 1 + random.nextInt(12), 1));
+    film.setDuration(90);
+    final int mpaId = 1 + random.nextInt(3);
+    film.setMpa(new Mpa(mpaId, null));
+    film.setGenres(new LinkedHashSet<>(List.of(new Genre(1 + random.nextInt(3), null))));
+    return film;
+  }
+
+  private Film copyOf(Film source) {
+    final Film copy = new Film();
+    copy.setName(source.getName());
+    copy.setDescription(source.getDescription());
+    copy.setReleaseDate(source.getReleaseDate());
+    copy.setDuration(source.getDuration());
+    copy.setMpa(new Mpa(source.getMpa().getId(), null));
+    copy.setGenres(source.getGenres());
+    return copy;
+  }
+
+  private User sampleUser(int round, int index) {
+    final User user = new User();
+    user.setEmail("rank" + round + "_" + index + "@example.com");
+    user.setLogin("rank" + round + "_" + index);
+    user.setName("Ranker");
+    user.setBirthday(LocalDate.of(1990, 1, 1));
+    return user;
+  }
+}
@@ -0,0 +1,249 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.trending.TrendingCheckpointer;
+import ru.yandex.practicum.filmorate.service.trending.TrendingTracker;
+import ru.yandex.practicum.filmorate.storage.card.FilmCardDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularQuery;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+/**
+ * Регрессия планов запросов: каждый SQL, который выполняют хранилища, прогоняется через EXPLAIN
+ * на заполненной H2. Полный проход по большой таблице допустим только для операций из
+ * {@link #WHOLE_TABLE}, каждый индекс из schema.sql должен использоваться хотя бы одним планом,
+ * а дублирующих индексов быть не должно.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+  private static final Set<String> LARGE_TABLES =
+      Set.of("FILMS", "USERS", "FILM_LIKES", "FILM_GENRES", "FRIENDSHIPS", "FILM_CARDS");
+
+  // Операции, которым по смыслу нужна вся таблица
+  private static final Set<String> WHOLE_TABLE = Set.of(
+      "films.findMostPopular(limit)",   // топ без фильтров ранжирует все фильмы, в том числе без лайков
+      "cards.rebuild",                  // пересборка модели чтения проецирует все фильмы
+      "cards.isStale");                 // сверка при старте сравнивает все карточки с проекцией
+
+  private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan");
+  private static final Pattern DECLARED_INDEX = Pattern.compile("CREATE INDEX IF NOT EXISTS (\\w+)");
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate plain;
+  private final List<Plan> plans = new ArrayList<>();
+
+  @BeforeAll
+  void seedAndExplain(@TempDir Path tempDir) {
+    plain = new JdbcTemplate(dataSource);
+    plain.update("INSERT INTO users (email, login, name, birthday) "
+        + "SELECT 'u' || x || '@example.com', 'u' || x, 'U', DATE '1990-01-01' FROM SYSTEM_RANGE(1, 500)");
+    plain.update("INSERT INTO films (name, description, release_date, duration, mpa_id) "
+        + "SELECT 'Film ' || x, 'D', DATEADD(DAY, x, DATE '1990-01-01'), 100, MOD(x, 5) + 1 "
+        + "FROM SYSTEM_RANGE(1, 2000)");
+    plain.update("INSERT INTO film_genres (film_id, genre_id) SELECT id, MOD(id, 6) + 1 FROM films");
+    plain.update("INSERT INTO film_likes (film_id, user_id, created_at) "
+        + "SELECT f.id, u.id, DATEADD(DAY, -MOD(f.id, 60), CURRENT_TIMESTAMP) FROM films f JOIN users u "
+        + "ON MOD(f.id * 7 + u.id, 50) = 0");
+    plain.update("INSERT INTO friendships (user_id, friend_id) SELECT a.id, b.id FROM users a JOIN users b "
+        + "ON MOD(a.id + b.id, 25) = 0 AND a.id <> b.id");
+    plain.execute("ANALYZE");
+
+    final RecordingDataSource recorder = new RecordingDataSource(dataSource);
+    final JdbcTemplate jdbc = new JdbcTemplate(recorder.dataSource());
+    final FilmDbStorage films = new FilmDbStorage(jdbc, event -> { }, EnrichmentExecutor.SEQUENTIAL);
+    final UserDbStorage users = new UserDbStorage(jdbc, event -> { });
+    final GenreDbStorage genres = new GenreDbStorage(jdbc);
+    final MpaDbStorage mpa = new MpaDbStorage(jdbc);
+    final FilmCardDbStorage cards = new FilmCardDbStorage(jdbc);
+    final TrendingCheckpointer checkpointer = new TrendingCheckpointer(new TrendingTracker(Clock.systemUTC()),
+        jdbc, Clock.systemUTC(), tempDir.resolve("trending.bin"), Duration.ZERO);
+
+    final Map<String, Runnable> calls = new LinkedHashMap<>();
+    calls.put("films.buildIdIndex", films::buildIdIndex);
+    calls.put("users.buildIdIndex", users::buildIdIndex);
+    calls.put("films.findAll", films::findAll);
+    calls.put("films.findById", () -> films.findById(5));
+    calls.put("films.findByIds", () -> films.findByIds(List.of(1L, 2L, 3L)));
+    calls.put("films.findExistingIds", () -> films.findExistingIds(List.of(1L, 2L)));
+    calls.put("films.exists", () -> films.exists(7));
+    calls.put("films.findMostPopular(limit)", () -> films.findMostPopular(10));
+    calls.put("films.findMostPopular(genre, year, mpa)",
+        () -> films.findMostPopular(new PopularQuery(10, 2, 1992, 3)));
+    calls.put("films.findMostPopular(genre)", () -> films.findMostPopular(new PopularQuery(10, 2, null, null)));
+    calls.put("films.findMostPopular(year)", () -> films.findMostPopular(new PopularQuery(10, null, 1992, null)));
+    calls.put("films.findMostPopular(mpa)", () -> films.findMostPopular(new PopularQuery(10, null, null, 3)));
+    calls.put("films.addLike", () -> films.addLike(3, 4));
+    calls.put("films.removeLike", () -> films.removeLike(3, 4));
+    calls.put("films.applyLikes", () -> films.applyLikes(4, List.of(5L, 6L), List.of(7L)));
+    calls.put("films.create", () -> films.create(sampleFilm()));
+    calls.put("films.update", () -> {
+      final Film film = sampleFilm();
+      film.setId(10L);
+      films.update(film);
+    });
+    calls.put("films.delete", () -> films.delete(2000));
+    calls.put("users.findAll", users::findAll);
+    calls.put("users.findById", () -> users.findById(3));
+    calls.put("users.findByIds", () -> users.findByIds(List.of(1L, 2L)));
+    calls.put("users.exists", () -> users.exists(3));
+    calls.put("users.findFollowerIds", () -> users.findFollowerIds(3, 10));
+    calls.put("users.addFriend", () -> users.addFriend(1, 2));
+    calls.put("users.removeFriend", () -> users.removeFriend(1, 2));
+    calls.put("users.create", () -> users.create(sampleUser("new")));
+    calls.put("users.update", () -> {
+      final User user = sampleUser("upd");
+      user.setId(10L);
+      users.update(user);
+    });
+    calls.put("users.delete", () -> users.delete(500));
+    calls.put("genres.findAll", genres::findAll);
+    calls.put("genres.findById", () -> genres.findById(1));
+    calls.put("mpa.findAll", mpa::findAll);
+    calls.put("mpa.findById", () -> mpa.findById(1));
+    calls.put("cards.rebuild", cards::rebuild);
+    calls.put("cards.findPage", () -> cards.findPage(10, 20));
+    calls.put("cards.findMostPopular", () -> cards.findMostPopular(10));
+    calls.put("cards.findByIds", () -> cards.findByIds(List.of(1L, 2L)));
+    calls.put("cards.refresh", () -> cards.refresh(List.of(1L, 2L)));
+    calls.put("cards.isStale", cards::isStale);
+    calls.put("trending.restore", checkpointer::restore);
+
+    calls.forEach((name, call) -> {
+      recorder.clear();
+      call.run();
+      recorder.statements().forEach((sql, params) -> plans.add(new Plan(name, sql,
+          plain.queryForObject("EXPLAIN " + sql, String.class, params.toArray()).replace('\n', ' '))));
+    });
+  }
+
+  @AfterAll
+  void cleanUp() {
+    for (String table : List.of("film_cards", "film_likes", "film_genres", "friendships", "films", "users")) {
+      plain.update("DELETE FROM " + table);
+    }
+  }
+
+  @Test
+  void largeTablesAreReadThroughIndexes() {
+    final List<String> scans = new ArrayList<>();
+    for (Plan plan : plans) {
+      final Matcher matcher = TABLE_SCAN.matcher(plan.plan());
+      while (matcher.find()) {
+        if (LARGE_TABLES.contains(matcher.group(1)) && !WHOLE_TABLE.contains(plan.call())) {
+          scans.add(plan.call() + ": " + matcher.group(1) + " in " + plan.sql());
+        }
+      }
+    }
+
+    assertThat(scans).isEmpty();
+  }
+
+  @Test
+  void wholeTableOperationsStillScanOnlyWhatTheyNeed() {
+    assertThat(plans)
+        .filteredOn(plan -> WHOLE_TABLE.contains(plan.call()))
+        .isNotEmpty()
+        .allSatisfy(plan -> assertThat(TABLE_SCAN.matcher(plan.plan()).results()
+            .map(result -> result.group(1)))
+            // сверка читает ещё и сами карточки
+            .allMatch(table -> "FILMS".equals(table)
+                || "cards.isStale".equals(plan.call()) && "FILM_CARDS".equals(table)));
+  }
+
+  @Test
+  void everyDeclaredIndexIsUsedByAQuery() throws IOException {
+    final String schema = new ClassPathResource("schema.sql").getContentAsString(StandardCharsets.UTF_8);
+    final Matcher matcher = DECLARED_INDEX.matcher(schema);
+    final Set<String> declared = new LinkedHashSet<>();
+    while (matcher.find()) {
+      declared.add(matcher.group(1).toUpperCase(Locale.ROOT));
+    }
+
+    assertThat(declared).isNotEmpty();
+    assertThat(declared).allSatisfy(index -> assertThat(plans)
+        .as("план, использующий %s", index)
+        .anyMatch(plan -> plan.plan().contains("PUBLIC." + index)));
+  }
+
+  // H2 сам индексирует столбцы внешних ключей — свой индекс на тех же столбцах только замедляет запись
+  @Test
+  void noIndexDuplicatesAnother() {
+    final List<String> duplicates = plain.queryForList("""
+        SELECT table_name || '(' || columns || '): ' || LISTAGG(index_name, ', ') WITHIN GROUP (ORDER BY index_name)
+        FROM (SELECT table_name, index_name,
+                     LISTAGG(column_name, ',') WITHIN GROUP (ORDER BY ordinal_position) AS columns
+              FROM information_schema.index_columns
+              WHERE table_schema = 'PUBLIC'
+              GROUP BY table_name, index_name)
+        GROUP BY table_name, columns
+        HAVING COUNT(*) > 1""", String.class);
+
+    assertThat(duplicates).isEmpty();
+  }
+
+  private static Film sampleFilm() {
+    final Film film = new Film();
+    film.setName("Plan");
+    film.setDescription("D");
+    film.setReleaseDate(LocalDate.of(2001, 1, 1));
+    film.setDuration(90);
+    film.setMpa(new Mpa(1, null));
+    film.getGenres().add(new Genre(1, null));
+    film.getLikes().add(1L);
+    return film;
+  }
+
+  private static User sampleUser(String login) {
+    final User user = new User();
+    user.setEmail(login + "@plan.example");
+    user.setLogin(login);
+    user.setName("Plan");
+    user.setBirthday(LocalDate.of(1990, 1, 1));
+    user.getFriends().add(1L);
+    return user;
+  }
+
+  private record Plan(String call, String sql, String plan) {
+  }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+
+/**
+ * Обёртка DataSource для тестов: запоминает каждый выполненный SQL вместе с параметрами
+ * первого выполнения (для пакетов — первой строки пакета).
+ */
+final class RecordingDataSource {
+
+  private final Map<String, List<Object>> statements = new LinkedHashMap<>();
+  private final DataSource dataSource;
+
+  RecordingDataSource(DataSource target) {
+    this.dataSource = proxy(DataSource.class, target, (proxy, method, args) -> {
+      final Object result = invoke(target, method, args);
+      return result instanceof Connection connection ? connection(connection) : result;
+    });
+  }
+
+  DataSource dataSource() {
+    return dataSource;
+  }
+
+  /** SQL -> параметры первого выполнения, в порядке первого выполнения. */
+  synchronized Map<String, List<Object>> statements() {
+    return new LinkedHashMap<>(statements);
+  }
+
+  synchronized void clear() {
+    statements.clear();
+  }
+
+  private synchronized void record(String sql, List<Object> params) {
+    statements.putIfAbsent(sql, params);
+  }
+
+  private Connection connection(Connection target) {
+    return proxy(Connection.class, target, (proxy, method, args) -> {
+      final Object result = invoke(target, method, args);
+      if (result instanceof PreparedStatement prepared && args != null && args[0] instanceof String sql) {
+        return prepared(prepared, sql);
+      }
+      if (result instanceof Statement statement && !(result instanceof PreparedStatement)) {
+        return statement(statement);
+      }
+      return result;
+    });
+  }
+
+  private PreparedStatement prepared(PreparedStatement target, String sql) {
+    final Map<Integer, Object> params = new TreeMap<>();
+    return proxy(PreparedStatement.class, target, (proxy, method, args) -> {
+      final String name = method.getName();
+      if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+        params.put(index, name.equals("setNull") ? null : args[1]);
+      } else if (name.startsWith("execute") || name.equals("addBatch")) {
+        record(sql, new ArrayList<>(params.values()));
+      }
+      return invoke(target, method, args);
+    });
+  }
+
+  private Statement statement(Statement target) {
+    return proxy(Statement.class, target, (proxy, method, args) -> {
+      if ((method.getName().startsWith("execute") || method.getName().equals("addBatch"))
+          && args != null && args.length > 0 && args[0] instanceof String sql) {
+        record(sql, List.of());
+      }
+      return invoke(target, method, args);
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, handler);
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -10,6 +10,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import lombok.RequiredArgsConstructor;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
@@ -22,6 +26,7 @@ import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 class UserDbStorageTest {
 
   private final UserDbStorage userStorage;
+  private final JdbcTemplate jdbcTemplate;
 
   @Test
   void createAndFindById() {
@@ -61,6 +66,34 @@ class UserDbStorageTest {
     assertThat(all).extracting(User::getId).containsExactlyInAnyOrder(first.getId(), second.getId());
   }
 
+  @Test
+  void findByIdsLoadsFriendsAndSkipsMissingIds() {
+    final User first = userStorage.create(sampleUser("gina@example.com", "gina"));
+    final User second = userStorage.create(sampleUser("hank@example.com", "hank"));
+    userStorage.addFriend(first.getId(), second.getId());
+
+    final List<User> found = userStorage.findByIds(List.of(second.getId(), -1L, first.getId()));
+
+    assertThat(found).extracting(User::getId).containsExactlyInAnyOrder(first.getId(), second.getId());
+    assertThat(found).filteredOn(user -> user.getId().equals(first.getId()))
+        .singleElement()
+        .satisfies(user -> assertThat(user.getFriends()).containsExactly(second.getId()));
+  }
+
+  @Test
+  void findFollowerIdsReturnsUsersFollowingAndRespectsLimit() {
+    final User star = userStorage.create(sampleUser("star@example.com", "star"));
+    final User fan1 = userStorage.create(sampleUser("fan1@example.com", "fan1"));
+    final User fan2 = userStorage.create(sampleUser("fan2@example.com", "fan2"));
+    userStorage.create(sampleUser("other@example.com", "other"));
+    userStorage.addFriend(fan1.getId(), star.getId());
+    userStorage.addFriend(fan2.getId(), star.getId());
+
+    assertThat(userStorage.findFollowerIds(star.getId(), 10)).containsExactly(fan1.getId(), fan2.getId());
+    assertThat(userStorage.findFollowerIds(star.getId(), 1)).hasSize(1);
+    assertThat(userStorage.findFollowerIds(fan1.getId(), 10)).isEmpty();
+  }
+
   @Test
   void deleteRemovesUser() {
     final User user = userStorage.create(sampleUser("frank@example.com", "frank"));
@@ -71,6 +104,33 @@ class UserDbStorageTest {
         .isInstanceOf(NotFoundException.class);
   }
 
+  @Test
+  void repeatedReadsWithinRequestAreServedFromIdentityMap() {
+    final User user = userStorage.create(sampleUser("ivan@example.com", "ivan"));
+    final User friend = userStorage.create(sampleUser("jane@example.com", "jane"));
+    // вне запроса карты нет — каждое чтение идёт в БД
+    assertThat(userStorage.getById(user.getId())).isNotSameAs(userStorage.getById(user.getId()));
+
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    try {
+      final User first = userStorage.getById(user.getId());
+      jdbcTemplate.update("UPDATE users SET name = 'changed behind' WHERE id = ?", user.getId());
+
+      assertThat(userStorage.getById(user.getId())).isSameAs(first);
+      assertThat(userStorage.findByIds(List.of(user.getId(), friend.getId()))).contains(first);
+      assertThat(first.getName()).isEqualTo("Test User");
+
+      // запись обновляет экземпляр в карте, а не заставляет перечитывать
+      userStorage.addFriend(user.getId(), friend.getId());
+      assertThat(userStorage.getById(user.getId()).getFriends()).containsExactly(friend.getId());
+
+      userStorage.delete(friend.getId());
+      assertThatThrownBy(() -> userStorage.getById(friend.getId())).isInstanceOf(NotFoundException.class);
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+
   private User sampleUser(String email, String login) {
     final User user = new User();
     user.setEmail(email);
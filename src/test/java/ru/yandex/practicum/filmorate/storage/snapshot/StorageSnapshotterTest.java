@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularQuery;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+class StorageSnapshotterTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void restoresStoragesFromSnapshot() {
+    final Path path = directory.resolve("memory.snapshot");
+    final InMemoryFilmStorage films = new InMemoryFilmStorage();
+    final InMemoryUserStorage users = new InMemoryUserStorage();
+    final User alice = users.create(user("alice", null));
+    final User bob = users.create(user("bob", "Боб"));
+    users.addFriend(alice.getId(), bob.getId());
+    final Film first = films.create(film("Ёлки", null));
+    final Film second = films.create(film("Брат", "Про брата"));
+    films.addLike(second.getId(), alice.getId());
+    films.addLike(second.getId(), bob.getId());
+    films.addLike(first.getId(), bob.getId());
+    films.delete(first.getId());
+    new StorageSnapshotter(films, users, path, Duration.ZERO).close();
+
+    final InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage();
+    final InMemoryUserStorage restoredUsers = new InMemoryUserStorage();
+    assertThat(new StorageSnapshotter(restoredFilms, restoredUsers, path, Duration.ZERO).restore()).isTrue();
+
+    assertThat(restoredFilms.findAll()).usingRecursiveFieldByFieldElementComparator()
+        .containsExactlyElementsOf(films.findAll());
+    assertThat(restoredUsers.findAll()).usingRecursiveFieldByFieldElementComparator()
+        .containsExactlyInAnyOrderElementsOf(users.findAll());
+    assertThat(restoredFilms.findMostPopular(PopularQuery.of(10))).extracting(Film::getId)
+        .containsExactly(second.getId());
+    // счётчик id продолжается, а не начинается заново
+    assertThat(restoredFilms.create(film("Новый", null)).getId()).isEqualTo(first.getId() + 2);
+  }
+
+  @Test
+  void rejectsCorruptedSnapshot() throws Exception {
+    final Path path = directory.resolve("memory.snapshot");
+    final InMemoryUserStorage users = new InMemoryUserStorage();
+    users.create(user("carol", "Кэрол"));
+    new StorageSnapshotter(new InMemoryFilmStorage(), users, path, Duration.ZERO).close();
+    final byte[] bytes = Files.readAllBytes(path);
+    bytes[bytes.length / 2] ^= 0x7F;
+    Files.write(path, bytes);
+
+    final StorageSnapshotter snapshotter =
+        new StorageSnapshotter(new InMemoryFilmStorage(), new InMemoryUserStorage(), path, Duration.ZERO);
+    assertThatThrownBy(snapshotter::restore).isInstanceOf(UncheckedIOException.class);
+  }
+
+  @Test
+  void rejectsTruncatedSnapshotAndImpossibleCounts() throws Exception {
+    final Path path = directory.resolve("memory.snapshot");
+    final InMemoryUserStorage users = new InMemoryUserStorage();
+    users.create(user("dave", "Дэйв"));
+    new StorageSnapshotter(new InMemoryFilmStorage(), users, path, Duration.ZERO).close();
+    final byte[] bytes = Files.readAllBytes(path);
+    final StorageSnapshotter snapshotter =
+        new StorageSnapshotter(new InMemoryFilmStorage(), new InMemoryUserStorage(), path, Duration.ZERO);
+
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+    assertThatThrownBy(snapshotter::restore).isInstanceOf(UncheckedIOException.class);
+
+    // число пользователей (смещение 26) больше размера файла — отказ до выделения памяти
+    final byte[] huge = bytes.clone();
+    ByteBuffer.wrap(huge).putInt(26, Integer.MAX_VALUE);
+    Files.write(path, huge);
+    assertThatThrownBy(snapshotter::restore).isInstanceOf(UncheckedIOException.class)
+        .hasRootCauseMessage("Повреждённый снимок: длина 2147483647 больше файла (" + bytes.length + " байт)");
+  }
+
+  private static User user(String login, String name) {
+    final User user = new User();
+    user.setEmail(login + "@mail.ru");
+    user.setLogin(login);
+    user.setName(name);
+    user.setBirthday(LocalDate.of(1990, 5, 17));
+    return user;
+  }
+
+  private static Film film(String name, String description) {
+    final Film film = new Film();
+    film.setName(name);
+    film.setDescription(description);
+    film.setReleaseDate(LocalDate.of(1997, 12, 12));
+    film.setDuration(100);
+    film.setMpa(new Mpa(4, "R"));
+    film.setGenres(Set.of(new Genre(2, "Драма")));
+    return film;
+  }
+}